@@ -0,0 +1,91 @@
+package com.longineers.batcher;
+
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.reader.ProductFieldSetMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Deterministic product rows shaped like the output of {@code generate_products.py}.
+ */
+public final class BenchmarkProducts {
+
+    public static final String[] CATEGORIES = {
+            "Electronics", "Clothing", "Home & Garden", "Sports", "Books",
+            "Beauty", "Toys", "Automotive", "Health", "Food", "Tools", "Music"
+    };
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private BenchmarkProducts() {
+    }
+
+    public static String csvLine(int i) {
+        String category = CATEGORIES[i % CATEGORIES.length];
+        double price = (i * 7919 % 200_000) / 100.0;
+        return i + "," + new UUID(i, ~i) + ",TechCorp Premium Laptop,TechCorp," + category + "," + category + " > Laptop,"
+                + "Premium laptop designed for performance and durability.," + price + ",USD,10," + price + ","
+                + (i % 41 + 10) / 10.0 + "," + i % 1000 + "," + i % 500
+                + ",true,TEC-" + (100000 + i % 900000) + "," + (1_000_000_000_000L + i) + ",2.4,"
+                + "\"electronics,laptop,techcorp\",https://picsum.photos/400/400?random=" + i
+                + ",https://picsum.photos/200/200?random=" + i + ","
+                + CREATED.plusSeconds(i).plusNanos(123_456_000) + "," + CREATED.plusMinutes(i).plusNanos(654_321_000)
+                + ",active,false,35.0,24.0,2.0,true,0,3";
+    }
+
+    public static Product product(int i) {
+        String category = CATEGORIES[i % CATEGORIES.length];
+        return Product.builder()
+                .uuid(UUID.randomUUID())
+                .name("TechCorp Premium Laptop " + i)
+                .brand("TechCorp")
+                .category(category)
+                .subcategory(category + " > Laptop")
+                .description("Premium laptop designed for performance and durability.")
+                .price(1299.99)
+                .currency("USD")
+                .discountPercent(10.0)
+                .finalPrice(1169.99)
+                .rating(4.2)
+                .reviewCount(i % 1000)
+                .stockQuantity(i % 500)
+                .inStock(i % 500 > 0)
+                .sku("TEC-" + (100000 + i % 900000))
+                .barcode(String.valueOf(1_000_000_000_000L + i))
+                .weightKg(2.4)
+                .tags("electronics,laptop,techcorp")
+                .imageUrl("https://picsum.photos/400/400?random=" + i)
+                .thumbnailUrl("https://picsum.photos/200/200?random=" + i)
+                .createdAt(CREATED.plusSeconds(i))
+                .updatedAt(CREATED.plusMinutes(i))
+                .status("active")
+                .featured(false)
+                .lengthCm(35.0)
+                .widthCm(24.0)
+                .heightCm(2.0)
+                .freeShipping(true)
+                .shippingCost(0.0)
+                .estimatedDays(3)
+                .build();
+    }
+
+    /** Writes a CSV feed with a header and {@code rows} records to a new temporary file. */
+    public static Path writeCsvFeed(int rows) throws IOException {
+        Path file = Files.createTempFile("products", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.join(",", ProductFieldSetMapper.NAMES));
+            out.newLine();
+            for (int i = 1; i <= rows; i++) {
+                out.write(csvLine(i));
+                out.newLine();
+            }
+        }
+        return file;
+    }
+}
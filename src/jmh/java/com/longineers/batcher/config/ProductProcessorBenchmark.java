@@ -0,0 +1,99 @@
+package com.longineers.batcher.config;
+
+import com.longineers.batcher.BenchmarkProducts;
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.reader.ProductDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.support.CompositeItemProcessor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-item cost of the processors defined in {@link BatchConfig}, built through their bean methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProductProcessorBenchmark {
+
+    private ItemProcessor<Product, Product> passThroughFilter;
+    private ItemProcessor<Product, Product> categoryFilter;
+    private ItemProcessor<Product, Product> expressionFilter;
+    private ItemProcessor<Product, Product> customiseLink;
+    private CompositeItemProcessor<Product, Product> composite;
+    private Product electronics;
+    private Product books;
+    private Product internedElectronics;
+
+    @Setup
+    public void setUp() {
+        BatchConfig config = new BatchConfig(1000);
+        ProductDictionary dictionary = new ProductDictionary(ProductDictionary.DEFAULT_CAPACITY);
+        passThroughFilter = config.filterProcessor(config.productFilter(null, null, dictionary));
+        categoryFilter = config.filterProcessor(config.productFilter(null, "Electronics, Home & Garden, Sports", dictionary));
+        expressionFilter = config.filterProcessor(config.productFilter(
+                "price > 10 and rating >= 1 and brand != 'None' and updatedAt > '2000-01-01'", null, dictionary));
+        customiseLink = config.customiseLinkProcessor("?source=batcher");
+        composite = config.compositeProcessor(categoryFilter, customiseLink);
+        electronics = BenchmarkProducts.product(0);
+        books = BenchmarkProducts.product(4);
+        // A reader decodes a new category string for every row, unless it interns it in the step's dictionary.
+        electronics.setCategory(new String(electronics.getCategory()));
+        internedElectronics = BenchmarkProducts.product(0);
+        internedElectronics.setCategory(dictionary.intern(new String(internedElectronics.getCategory())));
+    }
+
+    @Benchmark
+    public Product categoryFilterWithoutCategories() throws Exception {
+        return passThroughFilter.process(electronics);
+    }
+
+    @Benchmark
+    public Product categoryFilterKeeps() throws Exception {
+        return categoryFilter.process(electronics);
+    }
+
+    /** As a reader with the step's {@link ProductDictionary} hands the product over. */
+    @Benchmark
+    public Product categoryFilterKeepsInterned() throws Exception {
+        return categoryFilter.process(internedElectronics);
+    }
+
+    @Benchmark
+    public Product categoryFilterDiscards() throws Exception {
+        return categoryFilter.process(books);
+    }
+
+    @Benchmark
+    public Product expressionFilter() throws Exception {
+        return expressionFilter.process(electronics);
+    }
+
+    @Benchmark
+    public Product customiseLink() throws Exception {
+        return customiseLink.process(electronics);
+    }
+
+    @Benchmark
+    public Product compositeKeeps() throws Exception {
+        return composite.process(electronics);
+    }
+
+    @Benchmark
+    public Product compositeDiscards() throws Exception {
+        return composite.process(books);
+    }
+}
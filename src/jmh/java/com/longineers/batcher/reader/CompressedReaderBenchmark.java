@@ -0,0 +1,110 @@
+package com.longineers.batcher.reader;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.longineers.batcher.BenchmarkProducts;
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.reader.CheckpointingInputStream.Codec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads the same generated feed plain with the {@code FlatFileItemReader} of {@code BatchConfig.reader()},
+ * and gzip and zstd compressed with {@link CompressedProductCsvReader}, which decompresses while it reads.
+ * The file sizes are printed at setup, so the time per import can be weighed against the bytes read from disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressedReaderBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private Path plain;
+    private Path gzip;
+    private Path zstd;
+
+    @Setup(Level.Trial)
+    public void generateFeeds() throws Exception {
+        plain = BenchmarkProducts.writeCsvFeed(rows);
+        gzip = Files.createTempFile("products", ".csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip), 1 << 16)) {
+            Files.copy(plain, out);
+        }
+        zstd = Files.createTempFile("products", ".csv.zst");
+        try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(zstd), 3)) {
+            Files.copy(plain, out);
+        }
+        System.out.printf("%nplain %,d bytes, gzip %,d bytes, zstd %,d bytes%n",
+                Files.size(plain), Files.size(gzip), Files.size(zstd));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFeeds() throws Exception {
+        Files.deleteIfExists(plain);
+        Files.deleteIfExists(gzip);
+        Files.deleteIfExists(zstd);
+    }
+
+    @Benchmark
+    public void plainFlatFile(Blackhole blackhole) throws Exception {
+        drain(new FlatFileItemReaderBuilder<Product>()
+                .name("productItemReader")
+                .resource(new FileSystemResource(plain))
+                .linesToSkip(1)
+                .recordSeparatorPolicy(new DefaultRecordSeparatorPolicy())
+                .delimited()
+                .delimiter(",")
+                .names(ProductFieldSetMapper.NAMES)
+                .fieldSetMapper(new ProductFieldSetMapper())
+                .build(), blackhole);
+    }
+
+    @Benchmark
+    public void gzipStreaming(Blackhole blackhole) throws Exception {
+        drain(new CompressedProductCsvReader(new FileSystemResource(gzip), Codec.GZIP), blackhole);
+    }
+
+    @Benchmark
+    public void zstdStreaming(Blackhole blackhole) throws Exception {
+        drain(new CompressedProductCsvReader(new FileSystemResource(zstd), Codec.ZSTD), blackhole);
+    }
+
+    private void drain(ItemStreamReader<Product> reader, Blackhole blackhole) throws Exception {
+        reader.open(new ExecutionContext());
+        try {
+            Product product;
+            while ((product = reader.read()) != null) {
+                blackhole.consume(product);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.BenchmarkProducts;
+import com.longineers.batcher.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-line cost of the {@code FlatFileItemReader} path in {@code BatchConfig.reader()}:
+ * tokenizing into a {@code FieldSet}, and tokenizing plus mapping to a {@link Product}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProductLineMappingBenchmark {
+
+    private DelimitedLineTokenizer tokenizer;
+    private ProductFieldSetMapper mapper;
+    private String line;
+
+    @Setup
+    public void setUp() {
+        tokenizer = new DelimitedLineTokenizer(",");
+        tokenizer.setNames(ProductFieldSetMapper.NAMES);
+        mapper = new ProductFieldSetMapper();
+        line = BenchmarkProducts.csvLine(42);
+    }
+
+    @Benchmark
+    public FieldSet tokenize() {
+        return tokenizer.tokenize(line);
+    }
+
+    @Benchmark
+    public Product tokenizeAndMap() {
+        return mapper.mapFieldSet(tokenizer.tokenize(line));
+    }
+}
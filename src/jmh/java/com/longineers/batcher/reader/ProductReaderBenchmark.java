@@ -0,0 +1,108 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.BenchmarkProducts;
+import com.longineers.batcher.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a generated product feed end to end with the {@code FlatFileItemReader} configured as in
+ * {@code BatchConfig.reader()} and with {@link MappedProductCsvReader}, each with and without a
+ * {@link ProductDictionary}. Run with {@code -prof gc} to compare allocation per row as well as time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProductReaderBenchmark {
+
+    @Param({"100000"})
+    public int rows;
+
+    private Path file;
+    private Resource resource;
+
+    @Setup(Level.Trial)
+    public void generateFeed() throws Exception {
+        file = BenchmarkProducts.writeCsvFeed(rows);
+        resource = new FileSystemResource(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFeed() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void flatFileItemReader(Blackhole blackhole) throws Exception {
+        drain(flatFileItemReader(null), blackhole);
+    }
+
+    @Benchmark
+    public void flatFileItemReaderWithDictionary(Blackhole blackhole) throws Exception {
+        drain(flatFileItemReader(new ProductDictionary(ProductDictionary.DEFAULT_CAPACITY)), blackhole);
+    }
+
+    @Benchmark
+    public void mappedProductCsvReader(Blackhole blackhole) throws Exception {
+        drain(new MappedProductCsvReader(resource), blackhole);
+    }
+
+    @Benchmark
+    public void mappedProductCsvReaderWithDictionary(Blackhole blackhole) throws Exception {
+        MappedProductCsvReader reader = new MappedProductCsvReader(resource);
+        reader.setDictionary(new ProductDictionary(ProductDictionary.DEFAULT_CAPACITY));
+        drain(reader, blackhole);
+    }
+
+    private ItemStreamReader<Product> flatFileItemReader(ProductDictionary dictionary) {
+        ProductFieldSetMapper fieldSetMapper = new ProductFieldSetMapper();
+        fieldSetMapper.setDictionary(dictionary);
+        return new FlatFileItemReaderBuilder<Product>()
+                .name("productItemReader")
+                .resource(resource)
+                .linesToSkip(1)
+                .recordSeparatorPolicy(new DefaultRecordSeparatorPolicy())
+                .delimited()
+                .delimiter(",")
+                .names(ProductFieldSetMapper.NAMES)
+                .fieldSetMapper(fieldSetMapper)
+                .build();
+    }
+
+    private void drain(ItemStreamReader<Product> reader, Blackhole blackhole) throws Exception {
+        reader.open(new ExecutionContext());
+        try {
+            Product product;
+            while ((product = reader.read()) != null) {
+                blackhole.consume(product);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
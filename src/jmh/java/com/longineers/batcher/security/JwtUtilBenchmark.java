@@ -0,0 +1,104 @@
+package com.longineers.batcher.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token checks done by {@link JwtRequestFilter} on every authenticated request. {@code legacyFilterRequest}
+ * repeats what the filter did before the key, parser and verified tokens were cached: three parses, each
+ * with a freshly built key and parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "BenchmarkJwtSecretKeyThatIsAtLeast32Bytes";
+
+    private JwtUtil jwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = jwtUtil(10_000);
+        uncachedJwtUtil = jwtUtil(0);
+        userDetails = new User("user", "password", List.of());
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    private static JwtUtil jwtUtil(int verifiedCacheSize) throws Exception {
+        JwtUtil jwtUtil = new JwtUtil();
+        inject(jwtUtil, "secret", SECRET);
+        inject(jwtUtil, "expiryTime", 3_600_000L);
+        inject(jwtUtil, "verifiedCacheSize", verifiedCacheSize);
+        return jwtUtil;
+    }
+
+    private static void inject(JwtUtil jwtUtil, String fieldName, Object value) throws Exception {
+        Field field = JwtUtil.class.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(jwtUtil, value);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public boolean isAuthenticated() {
+        return jwtUtil.isAuthenticated(token, userDetails);
+    }
+
+    /** What the filter does per request: verify the token once, then check the claims. */
+    @Benchmark
+    public boolean filterRequest() {
+        Claims claims = jwtUtil.extractVerifiedClaims(token);
+        return claims.getSubject() != null && jwtUtil.isAuthenticated(claims, userDetails);
+    }
+
+    /** As {@link #filterRequest()} for a token that is not in the verified-token cache. */
+    @Benchmark
+    public boolean filterRequestUncached() {
+        Claims claims = uncachedJwtUtil.extractVerifiedClaims(token);
+        return claims.getSubject() != null && uncachedJwtUtil.isAuthenticated(claims, userDetails);
+    }
+
+    @Benchmark
+    public boolean legacyFilterRequest() {
+        String username = legacyParse().getSubject();
+        return username != null
+                && legacyParse().getSubject().equals(userDetails.getUsername())
+                && !legacyParse().getExpiration().before(new Date());
+    }
+
+    private Claims legacyParse() {
+        Key key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,110 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.BenchmarkProducts;
+import com.longineers.batcher.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes whole chunks through the JPA writer and the step's transaction manager into an
+ * in-memory H2 database, with the Hibernate batching settings from application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChunkWriteBenchmark {
+
+    @Param({"1000"})
+    public int chunkSize;
+
+    @Param({"true", "false"})
+    public boolean usePersist;
+
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private JpaItemWriter<Product> writer;
+    private List<Product> chunk;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:chunk-write;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.longineers.batcher.model");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.physical_naming_strategy", "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+                "hibernate.jdbc.batch_size", chunkSize,
+                "hibernate.order_inserts", true));
+        factoryBean.afterPropertiesSet();
+
+        EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+        writer = new JpaItemWriterBuilder<Product>()
+                .entityManagerFactory(entityManagerFactory)
+                .usePersist(usePersist)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factoryBean.destroy();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE products");
+    }
+
+    @Setup(Level.Invocation)
+    public void buildChunk() {
+        chunk = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            chunk.add(BenchmarkProducts.product(i));
+        }
+    }
+
+    @Benchmark
+    public void writeChunk() {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(new Chunk<>(chunk));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The bulk-load mode of {@code csvImportJob}, chosen with the {@code bulkLoad} job parameter: the
+ * secondary indexes of {@code products} are dropped before the import and rebuilt after it, and the
+ * import commits with {@code synchronous_commit} off.
+ */
+public final class BulkLoad {
+
+    public static final String PARAMETER = "bulkLoad";
+
+    /** Definitions of the dropped indexes by qualified name, kept in the job execution context until rebuilt. */
+    public static final String DROPPED_INDEXES_KEY = "bulkLoad.dropped.indexes";
+
+    private BulkLoad() {
+    }
+
+    public static boolean isEnabled(JobParameters jobParameters) {
+        return "true".equals(jobParameters.getString(PARAMETER));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, String> droppedIndexes(ExecutionContext jobContext) {
+        return jobContext.containsKey(DROPPED_INDEXES_KEY)
+                ? new LinkedHashMap<>((Map<String, String>) jobContext.get(DROPPED_INDEXES_KEY))
+                : new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,85 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Creates the staging table of a staging load as an {@code UNLOGGED} table with the columns, defaults and
+ * {@code NOT NULL} constraints of {@code products}, and no indexes. Rows written to it produce no WAL. If
+ * {@code products} is partitioned, the staging table is partitioned the same way, into {@code UNLOGGED}
+ * partitions named after those of {@code products} with the job instance id appended.
+ *
+ * A restart keeps the table, so that an import resuming from its last commit finds the rows written
+ * before, and a completed import, which is not run again, leaves its rows for the swap. A kept table is
+ * checked with {@link StagingLoad#checkIntact}, as a crash of the database server empties it. Does nothing
+ * unless the job runs in staging mode.
+ *
+ * A staging load replaces all of {@code products}, so it fails if the job also has a {@code categories} or
+ * {@code filter} parameter, which would leave out every other row. Before creating its table, it drops the
+ * staging tables of other job instances that can no longer be swapped in: instances whose last execution
+ * was abandoned or completed, and instances the job repository no longer knows.
+ */
+public class CreateStagingTableTasklet implements Tasklet {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobExplorer jobExplorer;
+
+    public CreateStagingTableTasklet(DataSource dataSource, JobExplorer jobExplorer) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jobExplorer = jobExplorer;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        JobExecution jobExecution = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        if (!StagingLoad.isEnabled(jobExecution.getJobParameters())) {
+            return RepeatStatus.FINISHED;
+        }
+        StagingLoad.checkParameters(jobExecution.getJobParameters());
+        String table = StagingLoad.tableName(jobExecution.getJobInstance().getInstanceId());
+        dropStaleTables(jobExecution.getJobInstance().getInstanceId());
+        if (StagingLoad.exists(jdbcTemplate, table)) {
+            StagingLoad.checkIntact(jdbcTemplate, table);
+        } else {
+            create(table, jobExecution.getJobInstance().getInstanceId());
+            StagingLoad.markServerStart(jdbcTemplate, table);
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    private void dropStaleTables(long currentJobInstanceId) {
+        for (long jobInstanceId : StagingLoad.jobInstanceIds(jdbcTemplate)) {
+            if (jobInstanceId == currentJobInstanceId) {
+                continue;
+            }
+            JobInstance jobInstance = jobExplorer.getJobInstance(jobInstanceId);
+            JobExecution last = jobInstance == null ? null : jobExplorer.getLastJobExecution(jobInstance);
+            if (jobInstance == null
+                    || last != null && (last.getStatus() == BatchStatus.ABANDONED || last.getStatus() == BatchStatus.COMPLETED)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + StagingLoad.tableName(jobInstanceId));
+            }
+        }
+    }
+
+    private void create(String table, long jobInstanceId) {
+        String partitionKey = jdbcTemplate.queryForObject("SELECT pg_get_partkeydef('products'::regclass)", String.class);
+        if (partitionKey == null) {
+            jdbcTemplate.execute("CREATE UNLOGGED TABLE " + table + " (LIKE products INCLUDING DEFAULTS)");
+            return;
+        }
+        // A partitioned table holds no rows and cannot be unlogged, but its partitions can
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE products INCLUDING DEFAULTS) PARTITION BY " + partitionKey);
+        StagingLoad.partitions(jdbcTemplate, "products").forEach((partition, bound) -> jdbcTemplate.execute(
+                "CREATE UNLOGGED TABLE " + StagingLoad.partitionName(partition, jobInstanceId)
+                        + " PARTITION OF " + table + " " + bound));
+    }
+}
@@ -0,0 +1,66 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Drops the secondary indexes of {@code products} before a bulk load, after recording their definitions
+ * under {@link BulkLoad#DROPPED_INDEXES_KEY} in the job execution context.
+ *
+ * Secondary means neither unique nor backing a constraint: the unique index on {@code uuid} stays, as the
+ * upsert writer and the uniqueness of imported rows depend on it. The definitions are saved in the same
+ * transaction as the drops, so an index is never gone without its definition on record. Definitions
+ * recorded by an earlier attempt of the same job are kept, so a restart still rebuilds them.
+ * Does nothing unless the job runs in bulk-load mode.
+ */
+public class DropSecondaryIndexesTasklet implements Tasklet {
+
+    private static final String SECONDARY_INDEXES_SQL = """
+            SELECT quote_ident(n.nspname) || '.' || quote_ident(i.relname) AS name, pg_get_indexdef(i.oid) AS definition
+            FROM pg_index x
+            JOIN pg_class i ON i.oid = x.indexrelid
+            JOIN pg_namespace n ON n.oid = i.relnamespace
+            WHERE x.indrelid = 'products'::regclass
+              AND NOT x.indisunique
+              AND NOT x.indisprimary
+              AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = x.indexrelid)
+            ORDER BY i.relname""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobRepository jobRepository;
+
+    public DropSecondaryIndexesTasklet(DataSource dataSource, JobRepository jobRepository) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jobRepository = jobRepository;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        JobExecution jobExecution = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        if (!BulkLoad.isEnabled(jobExecution.getJobParameters())) {
+            return RepeatStatus.FINISHED;
+        }
+        Map<String, String> dropped = BulkLoad.droppedIndexes(jobExecution.getExecutionContext());
+        Map<String, String> existing = new LinkedHashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(SECONDARY_INDEXES_SQL)) {
+            existing.put((String) row.get("name"), (String) row.get("definition"));
+        }
+        dropped.putAll(existing);
+
+        jobExecution.getExecutionContext().put(BulkLoad.DROPPED_INDEXES_KEY, dropped);
+        jobRepository.updateExecutionContext(jobExecution);
+        for (String index : existing.keySet()) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + index);
+        }
+        return RepeatStatus.FINISHED;
+    }
+}
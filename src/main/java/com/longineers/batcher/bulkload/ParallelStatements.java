@@ -0,0 +1,51 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent statements, such as {@code CREATE INDEX} on one table, each on a connection of its own
+ * in auto-commit, up to {@code threads} at a time. They run outside any transaction of the calling thread.
+ */
+final class ParallelStatements {
+
+    private ParallelStatements() {
+    }
+
+    /** Waits for every statement, so that none is cut off by a failure of another, then throws the first failure. */
+    static void execute(DataSource dataSource, int threads, Collection<String> statements) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("index-build-", 0).factory());
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (String statement : statements) {
+                runs.add(executor.submit(() -> new JdbcTemplate(dataSource).execute(statement)));
+            }
+            Exception failure = null;
+            for (Future<?> run : runs) {
+                try {
+                    run.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception cause ? cause : e;
+                    } else {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+
+import javax.sql.DataSource;
+
+/**
+ * Rebuilds the indexes of a bulk load that ended before {@code rebuildIndexesStep} ran, for example
+ * because it was stopped during the import. The definitions still under
+ * {@link BulkLoad#DROPPED_INDEXES_KEY} are built as {@link RebuildSecondaryIndexesTasklet} builds them,
+ * and removed from the job execution context once every index exists again.
+ *
+ * After a normal run the step has already removed them and this does nothing. If the rebuild fails, the
+ * definitions stay, and restarting the execution drops and rebuilds the indexes as usual. A crash of the
+ * application ends the job without this callback; see the README on how to recover from one.
+ */
+public class RebuildIndexesListener implements JobExecutionListener {
+
+    private final DataSource dataSource;
+    private final JobRepository jobRepository;
+    private final int threads;
+
+    public RebuildIndexesListener(DataSource dataSource, JobRepository jobRepository, int threads) {
+        this.dataSource = dataSource;
+        this.jobRepository = jobRepository;
+        this.threads = threads;
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (!BulkLoad.isEnabled(jobExecution.getJobParameters())
+                || !jobExecution.getExecutionContext().containsKey(BulkLoad.DROPPED_INDEXES_KEY)) {
+            return;
+        }
+        try {
+            RebuildSecondaryIndexesTasklet.rebuild(dataSource, threads, jobExecution.getExecutionContext());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Rebuilding the indexes dropped for the bulk load failed", e);
+        }
+        jobRepository.updateExecutionContext(jobExecution);
+    }
+}
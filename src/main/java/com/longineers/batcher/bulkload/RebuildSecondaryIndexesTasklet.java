@@ -0,0 +1,67 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Rebuilds the indexes recorded by {@link DropSecondaryIndexesTasklet} after a bulk load, then runs
+ * {@code ANALYZE products} so the planner sees the imported rows.
+ *
+ * Each index is built on a connection of its own, up to {@code threads} at a time; PostgreSQL lets
+ * several {@code CREATE INDEX} run on one table at once. The statements use {@code IF NOT EXISTS}, so a
+ * retry after a partial rebuild only builds what is missing. The definitions are removed from the job
+ * execution context once every index exists again; if a build fails they stay, and restarting the job
+ * runs the rebuild again. Does nothing unless the job runs in bulk-load mode.
+ */
+public class RebuildSecondaryIndexesTasklet implements Tasklet {
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int threads;
+
+    public RebuildSecondaryIndexesTasklet(DataSource dataSource, int threads) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.threads = threads;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        JobExecution jobExecution = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        if (!BulkLoad.isEnabled(jobExecution.getJobParameters())) {
+            return RepeatStatus.FINISHED;
+        }
+        rebuild(dataSource, threads, jobExecution.getExecutionContext());
+        jdbcTemplate.execute("ANALYZE products");
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * Builds the indexes recorded in {@code jobContext} and removes their definitions from it once they
+     * all exist. Also used by {@link RebuildIndexesListener} when the job ends before this step runs.
+     */
+    static void rebuild(DataSource dataSource, int threads, ExecutionContext jobContext) throws Exception {
+        Map<String, String> dropped = BulkLoad.droppedIndexes(jobContext);
+        if (!dropped.isEmpty()) {
+            ParallelStatements.execute(dataSource, threads,
+                    dropped.values().stream().map(RebuildSecondaryIndexesTasklet::ifNotExists).toList());
+        }
+        jobContext.remove(BulkLoad.DROPPED_INDEXES_KEY);
+    }
+
+    /**
+     * {@code pg_get_indexdef} yields {@code CREATE INDEX name ON ...}; secondary indexes are never unique.
+     * On a partitioned table it yields {@code ON ONLY}, which would leave the partitions without the index.
+     */
+    static String ifNotExists(String definition) {
+        return definition.replaceFirst("^CREATE INDEX (\\S+) ON (?:ONLY )?", "CREATE INDEX IF NOT EXISTS $1 ON ");
+    }
+}
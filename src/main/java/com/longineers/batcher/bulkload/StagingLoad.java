@@ -0,0 +1,105 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.JobParameters;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The staging mode of {@code csvImportJob}, chosen with the {@code staging} job parameter: the import
+ * writes into an {@code UNLOGGED} copy of {@code products}, partitioned like it, which then replaces
+ * {@code products} in one transaction. Each job instance has a staging table of its own, kept across
+ * restarts.
+ */
+public final class StagingLoad {
+
+    public static final String PARAMETER = "staging";
+
+    private StagingLoad() {
+    }
+
+    public static boolean isEnabled(JobParameters jobParameters) {
+        return "true".equals(jobParameters.getString(PARAMETER));
+    }
+
+    /**
+     * @throws IllegalStateException if the job also has a {@code categories} or {@code filter} parameter;
+     *         a staging load replaces every row of {@code products} and would lose the rows they leave out
+     */
+    static void checkParameters(JobParameters jobParameters) {
+        if (jobParameters.getString("categories") != null || jobParameters.getString("filter") != null) {
+            throw new IllegalStateException("A staging load replaces all products and cannot be combined with categories or filter");
+        }
+    }
+
+    public static String tableName(long jobInstanceId) {
+        return "products_staging_" + jobInstanceId;
+    }
+
+    /** The job instances that have a staging table. */
+    static List<Long> jobInstanceIds(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("""
+                SELECT substring(relname FROM '^products_staging_([0-9]+)$')::bigint
+                FROM pg_class
+                WHERE relname ~ '^products_staging_[0-9]+$' AND relkind IN ('r', 'p') AND pg_table_is_visible(oid)
+                ORDER BY 1""", Long.class);
+    }
+
+    /** The name of the staging table's partition that corresponds to {@code partition} of {@code products}. */
+    static String partitionName(String partition, long jobInstanceId) {
+        return partition + "_" + jobInstanceId;
+    }
+
+    /** The partitions of {@code table} by name, with their bounds, such as {@code FOR VALUES IN ('Books')}. */
+    static Map<String, String> partitions(JdbcTemplate jdbcTemplate, String table) {
+        Map<String, String> partitions = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                ORDER BY c.relname""",
+                rs -> {
+                    partitions.put(rs.getString("name"), rs.getString("bound"));
+                }, table);
+        return partitions;
+    }
+
+    /** The tables that hold the rows of {@code table}: its partitions, or the table itself if it has none. */
+    static List<String> leaves(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT relid::regclass::text FROM pg_partition_tree(to_regclass(?)) WHERE isleaf", String.class, table);
+    }
+
+    static boolean exists(JdbcTemplate jdbcTemplate, String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    /**
+     * Records the start time of the database server in the comment of a new staging table. PostgreSQL empties
+     * {@code UNLOGGED} tables when it recovers from a crash, which {@link #checkIntact} detects from it.
+     */
+    static void markServerStart(JdbcTemplate jdbcTemplate, String table) {
+        String started = jdbcTemplate.queryForObject(
+                "SELECT extract(epoch FROM pg_postmaster_start_time())::text", String.class);
+        jdbcTemplate.execute("COMMENT ON TABLE " + table + " IS '" + started + "'");
+    }
+
+    /**
+     * @throws IllegalStateException if the staging table, or one of its partitions, is still unlogged and the
+     *         server has restarted since it was created, so that rows written to it may be lost
+     */
+    static void checkIntact(JdbcTemplate jdbcTemplate, String table) {
+        Boolean intact = jdbcTemplate.queryForObject("""
+                SELECT bool_and(c.relpersistence = 'p')
+                    OR obj_description(to_regclass(?), 'pg_class') = extract(epoch FROM pg_postmaster_start_time())::text
+                FROM pg_partition_tree(to_regclass(?)) t
+                JOIN pg_class c ON c.oid = t.relid""", Boolean.class, table, table);
+        if (!Boolean.TRUE.equals(intact)) {
+            throw new IllegalStateException("The database server restarted since " + table
+                    + " was created and may have emptied it; drop it and launch the staging load again");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.longineers.batcher.bulkload;
+
+import com.longineers.batcher.writer.ProductKeyWriter;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finishes a staging load: makes the staging table logged, gives it the indexes and constraints of
+ * {@code products}, and puts it in the place of {@code products}.
+ *
+ * {@code SET LOGGED} of each partition and the index builds run on connections of their own before the
+ * swap, up to {@code threads} at a time, so {@code products} stays readable meanwhile. The swap itself
+ * runs in the step transaction: it locks {@code products}, moves the ownership of its id sequence to the
+ * staging table, drops {@code products}, and renames the staging table, its partitions and its indexes,
+ * including the index of each partition, to the names of the old ones. Readers see either the old table or the new one, never a partly loaded
+ * one. Waiting for the lock gives up after {@code lockTimeout}, failing the step, so that a long-running
+ * query on {@code products} does not leave every other reader queued behind the swap; restarting the job
+ * tries again.
+ *
+ * The keys of the staged rows go into a new {@link ProductKeyWriter#TABLE}, built in the step transaction
+ * once the indexes exist and swapped in together with the staging table. Its primary key makes the swap
+ * fail, leaving {@code products} as it was, if a {@code uuid} was staged twice, also under two categories.
+ * A partitioned staging table cannot take a primary key over an index built beforehand, so it gets the
+ * primary key of {@code products} in the step transaction as well.
+ *
+ * Does nothing unless the job runs in staging mode, or when the staging table is gone because an earlier
+ * attempt already swapped it in. Fails, like {@link CreateStagingTableTasklet}, if the job also has a
+ * {@code categories} or {@code filter} parameter.
+ */
+public class SwapStagingTableTasklet implements Tasklet {
+
+    private static final String INDEXES_SQL = """
+            SELECT i.relname AS name, pg_get_indexdef(i.oid) AS definition, c.contype::text AS constraint_type,
+                   pg_get_constraintdef(c.oid) AS constraint_definition
+            FROM pg_index x
+            JOIN pg_class i ON i.oid = x.indexrelid
+            LEFT JOIN pg_constraint c
+              ON c.conindid = x.indexrelid AND c.conrelid = x.indrelid AND c.contype IN ('p', 'u')
+            WHERE x.indrelid = 'products'::regclass
+            ORDER BY i.relname""";
+
+    private static final String PARTITION_INDEXES_SQL = """
+            SELECT t.relname AS partition, p.relname AS parent, c.relname AS name
+            FROM pg_index x
+            JOIN pg_inherits i ON i.inhparent = x.indexrelid
+            JOIN pg_class p ON p.oid = x.indexrelid
+            JOIN pg_class c ON c.oid = i.inhrelid
+            JOIN pg_index cx ON cx.indexrelid = c.oid
+            JOIN pg_class t ON t.oid = cx.indrelid
+            WHERE x.indrelid = to_regclass(?)""";
+
+    private static final Pattern INDEX_DEFINITION = Pattern.compile("^CREATE (UNIQUE )?INDEX \\S+ ON (?:ONLY )?\\S+ ");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int threads;
+    private final Duration lockTimeout;
+
+    public SwapStagingTableTasklet(DataSource dataSource, int threads, Duration lockTimeout) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.threads = threads;
+        this.lockTimeout = lockTimeout;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        JobExecution jobExecution = chunkContext.getStepContext().getStepExecution().getJobExecution();
+        if (!StagingLoad.isEnabled(jobExecution.getJobParameters())) {
+            return RepeatStatus.FINISHED;
+        }
+        StagingLoad.checkParameters(jobExecution.getJobParameters());
+        long jobInstanceId = jobExecution.getJobInstance().getInstanceId();
+        String staging = StagingLoad.tableName(jobInstanceId);
+        if (!StagingLoad.exists(jdbcTemplate, staging)) {
+            return RepeatStatus.FINISHED;
+        }
+        StagingLoad.checkIntact(jdbcTemplate, staging);
+        boolean partitioned = !StagingLoad.partitions(jdbcTemplate, staging).isEmpty();
+        List<Index> indexes = jdbcTemplate.query(INDEXES_SQL, (rs, rowNum) -> new Index(rs.getString("name"),
+                rs.getString("definition"), rs.getString("constraint_type"), rs.getString("constraint_definition")));
+
+        // Outside the step transaction, which would keep the staging table locked against the index builds
+        ParallelStatements.execute(dataSource, threads, StagingLoad.leaves(jdbcTemplate, staging).stream()
+                .map(leaf -> "ALTER TABLE " + leaf + " SET LOGGED").toList());
+        ParallelStatements.execute(dataSource, threads, indexes.stream()
+                .filter(index -> !partitioned || index.constraintType() == null)
+                .map(index -> index.stagingDefinition(staging, jobInstanceId))
+                .toList());
+
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeout.toMillis());
+        String keys = stageKeys(staging, jobInstanceId);
+        jdbcTemplate.execute("ANALYZE " + staging);
+        for (Index index : indexes) {
+            if (index.constraintType() != null) {
+                String name = index.stagingName(jobInstanceId);
+                jdbcTemplate.execute("ALTER TABLE " + staging + " ADD CONSTRAINT " + name + " " + (partitioned
+                        ? index.constraintDefinition()
+                        : (index.constraintType().equals("p") ? "PRIMARY KEY" : "UNIQUE") + " USING INDEX " + name));
+            }
+        }
+        jdbcTemplate.execute("LOCK TABLE products, " + ProductKeyWriter.TABLE + " IN ACCESS EXCLUSIVE MODE");
+        Set<String> partitions = StagingLoad.partitions(jdbcTemplate, "products").keySet();
+        Map<List<String>, String> partitionIndexes = partitionIndexes("products");
+        String sequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('products', 'id')", String.class);
+        if (sequence != null) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY " + staging + ".id");
+        }
+        jdbcTemplate.execute("DROP TABLE products, " + ProductKeyWriter.TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + staging + " RENAME TO products");
+        jdbcTemplate.execute("ALTER TABLE " + keys + " RENAME TO " + ProductKeyWriter.TABLE);
+        jdbcTemplate.execute("ALTER INDEX " + keys + "_pkey RENAME TO " + ProductKeyWriter.TABLE + "_pkey");
+        for (String partition : partitions) {
+            jdbcTemplate.execute("ALTER TABLE IF EXISTS " + StagingLoad.partitionName(partition, jobInstanceId)
+                    + " RENAME TO " + partition);
+        }
+        for (Index index : indexes) {
+            jdbcTemplate.execute("ALTER INDEX " + index.stagingName(jobInstanceId) + " RENAME TO " + index.name());
+        }
+        // PostgreSQL named the partition indexes after the staging partitions when it built them
+        partitionIndexes("products").forEach((key, name) -> {
+            String oldName = partitionIndexes.get(key);
+            if (oldName != null && !oldName.equals(name)) {
+                jdbcTemplate.execute("ALTER INDEX " + name + " RENAME TO " + oldName);
+            }
+        });
+        return RepeatStatus.FINISHED;
+    }
+
+    /**
+     * Copies the uuid and category of every staged row into a new table like {@link ProductKeyWriter#TABLE}
+     * and gives it its primary key, and returns its name.
+     *
+     * @throws IllegalStateException if a uuid was staged more than once
+     */
+    private String stageKeys(String staging, long jobInstanceId) {
+        String keys = ProductKeyWriter.TABLE + "_" + jobInstanceId;
+        jdbcTemplate.execute("CREATE TABLE " + keys + " (LIKE " + ProductKeyWriter.TABLE + ")");
+        jdbcTemplate.execute("INSERT INTO " + keys + " (uuid, category) SELECT uuid, category FROM " + staging);
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + keys + " ADD CONSTRAINT " + keys + "_pkey PRIMARY KEY (uuid)");
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("Duplicate uuids in " + staging + "; products is left as it was: "
+                    + e.getMostSpecificCause().getMessage(), e);
+        }
+        return keys;
+    }
+
+    /** The index names of the partitions of {@code table}, by partition name and name of the parent index. */
+    private Map<List<String>, String> partitionIndexes(String table) {
+        Map<List<String>, String> indexes = new HashMap<>();
+        jdbcTemplate.query(PARTITION_INDEXES_SQL, rs -> {
+            indexes.put(List.of(rs.getString("partition"), rs.getString("parent")), rs.getString("name"));
+        }, table);
+        return indexes;
+    }
+
+    /**
+     * An index of {@code products}; {@code constraintType} is {@code p} or {@code u} if it backs that constraint,
+     * and {@code constraintDefinition} then defines the constraint, such as {@code PRIMARY KEY (id, category)}.
+     */
+    record Index(String name, String definition, String constraintType, String constraintDefinition) {
+
+        String stagingName(long jobInstanceId) {
+            return name + "_" + jobInstanceId;
+        }
+
+        /** The definition on the staging table, with {@code IF NOT EXISTS} so a retry only builds what is missing. */
+        String stagingDefinition(String staging, long jobInstanceId) {
+            return INDEX_DEFINITION.matcher(definition).replaceFirst(
+                    "CREATE $1INDEX IF NOT EXISTS " + Matcher.quoteReplacement(stagingName(jobInstanceId))
+                            + " ON " + staging + " ");
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.longineers.batcher.bulkload;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Turns {@code synchronous_commit} off for each chunk transaction of a bulk load, so that a commit
+ * returns without waiting for its WAL to be flushed to disk.
+ *
+ * {@code SET LOCAL} lasts until the end of the transaction and is issued on the connection bound to
+ * it, the one the writers use, so pooled connections are returned unchanged. A database crash may lose
+ * the last chunks reported as committed, never corrupting the table; re-run the import with the
+ * {@code upsert} writer to fill them in.
+ */
+public class SynchronousCommitOffListener implements ChunkListener {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SynchronousCommitOffListener(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /** Called inside the chunk transaction. */
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        if ("true".equals(context.getStepContext().getJobParameters().get(BulkLoad.PARAMETER))) {
+            jdbcTemplate.execute("SET LOCAL synchronous_commit TO OFF");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.longineers.batcher.bulkload;
+
+import com.longineers.batcher.writer.ProductKeyWriter;
+import com.longineers.batcher.writer.ProductPartitions;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Empties the categories a reload imports again, given by the {@code categories} job parameter, before the
+ * import refills them. A category with a partition of its own is emptied with {@code TRUNCATE}, which
+ * leaves the other partitions alone and is instant however many rows it held; the rows of a category
+ * stored in a shared or the default partition are deleted. The keys of the categories are deleted from
+ * {@link ProductKeyWriter#TABLE} as well. All of it commits together, in the step transaction. Does nothing unless the job is launched with {@code reload}.
+ */
+public class TruncateCategoriesTasklet implements Tasklet {
+
+    public static final String PARAMETER = "reload";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TruncateCategoriesTasklet(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) {
+        JobParameters jobParameters = chunkContext.getStepContext().getStepExecution().getJobParameters();
+        String categories = jobParameters.getString("categories");
+        if (!"true".equals(jobParameters.getString(PARAMETER)) || categories == null) {
+            return RepeatStatus.FINISHED;
+        }
+        ProductPartitions partitions = ProductPartitions.load(jdbcTemplate, "products");
+        List<String> truncated = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        List<String> reloaded = Arrays.stream(categories.split(",")).map(String::trim).distinct().toList();
+        for (String category : reloaded) {
+            String partition = partitions.exclusivePartition(category);
+            if (partition != null) {
+                truncated.add(partition);
+            } else {
+                deleted.add(category);
+            }
+        }
+        if (!truncated.isEmpty()) {
+            jdbcTemplate.execute("TRUNCATE " + String.join(", ", truncated));
+        }
+        if (!deleted.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM products WHERE category = ANY (?)", (Object) deleted.toArray(String[]::new));
+        }
+        jdbcTemplate.update("DELETE FROM " + ProductKeyWriter.TABLE + " WHERE category = ANY (?)",
+                (Object) reloaded.toArray(String[]::new));
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,137 @@
+package com.longineers.batcher.chunk;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.policy.SimpleCompletionPolicy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Completes chunks at a size that makes writing and committing each one take about a target time.
+ *
+ * The time from the start of a chunk's write to the end of its commit is measured for every chunk, and
+ * the size of the next chunk is scaled by the ratio of the target to that time. One chunk changes the
+ * size by at most a factor of {@value #MAX_STEP}, changes of less than a tenth are ignored, and the size
+ * stays within the configured bounds. When the database slows down the chunks shrink, so that locks and
+ * transactions stay short; when it speeds up again they grow back, so that the per-chunk overhead stays
+ * small.
+ *
+ * Each adjustment is recorded in the step execution context: the current size under {@link #SIZE_KEY},
+ * the number of adjustments under {@link #ADJUSTMENT_COUNT_KEY} and the latest {@value #HISTORY} of them
+ * under {@link #ADJUSTMENTS_KEY}. A restarted step starts at the size it had reached. One instance
+ * serves one step execution.
+ */
+public class AdaptiveChunkSizePolicy extends SimpleCompletionPolicy
+        implements StepExecutionListener, ChunkListener, ItemWriteListener<Object> {
+
+    public static final String SIZE_KEY = "adaptiveChunk.size";
+    public static final String ADJUSTMENT_COUNT_KEY = "adaptiveChunk.adjustment.count";
+    public static final String ADJUSTMENTS_KEY = "adaptiveChunk.adjustments";
+
+    static final int HISTORY = 50;
+
+    private static final double MAX_STEP = 2.0;
+    private static final double DEADBAND = 0.1;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long targetNanos;
+    private final LongSupplier nanoClock;
+
+    private StepExecution stepExecution;
+    private long readCountBefore;
+    private long writeStart = -1;
+    private long adjustments;
+
+    public AdaptiveChunkSizePolicy(int initialSize, int minSize, int maxSize, Duration targetLatency) {
+        this(initialSize, minSize, maxSize, targetLatency, System::nanoTime);
+    }
+
+    AdaptiveChunkSizePolicy(int initialSize, int minSize, int maxSize, Duration targetLatency, LongSupplier nanoClock) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid adaptive chunk size bounds: " + minSize + ".." + maxSize);
+        }
+        if (targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Invalid adaptive chunk target latency: " + targetLatency);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.targetNanos = targetLatency.toNanos();
+        this.nanoClock = nanoClock;
+        setChunkSize(bounded(initialSize));
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        this.stepExecution = stepExecution;
+        ExecutionContext context = stepExecution.getExecutionContext();
+        if (context.containsKey(SIZE_KEY)) {
+            setChunkSize(bounded(context.getInt(SIZE_KEY)));
+        }
+        adjustments = context.getLong(ADJUSTMENT_COUNT_KEY, 0);
+        readCountBefore = stepExecution.getReadCount();
+    }
+
+    @Override
+    public void beforeWrite(Chunk<?> items) {
+        writeStart = nanoClock.getAsLong();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long readCount = stepExecution.getReadCount();
+        long itemsRead = readCount - readCountBefore;
+        readCountBefore = readCount;
+        if (writeStart >= 0 && itemsRead > 0) {
+            adjust(itemsRead, nanoClock.getAsLong() - writeStart);
+        }
+        writeStart = -1;
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        writeStart = -1;
+        readCountBefore = stepExecution.getReadCount();
+    }
+
+    /** Scales the size of the chunk just written, whose last chunk may have been short, toward the target. */
+    private void adjust(long itemsRead, long latencyNanos) {
+        int current = getChunkSize();
+        double factor = Math.max(1 / MAX_STEP, Math.min(MAX_STEP, (double) targetNanos / Math.max(latencyNanos, 1)));
+        int proposed = bounded(Math.round(Math.min(itemsRead, current) * factor));
+        if (Math.abs(proposed - current) < current * DEADBAND) {
+            return;
+        }
+        setChunkSize(proposed);
+        record(current, proposed, latencyNanos);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void record(int from, int to, long latencyNanos) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        adjustments++;
+        List<String> history = context.containsKey(ADJUSTMENTS_KEY)
+                ? new ArrayList<>((List<String>) context.get(ADJUSTMENTS_KEY))
+                : new ArrayList<>();
+        history.add(String.format("after %d items: %d -> %d (write and commit took %d ms)",
+                stepExecution.getReadCount(), from, to, latencyNanos / 1_000_000));
+        if (history.size() > HISTORY) {
+            history.subList(0, history.size() - HISTORY).clear();
+        }
+        context.putInt(SIZE_KEY, to);
+        context.putLong(ADJUSTMENT_COUNT_KEY, adjustments);
+        context.put(ADJUSTMENTS_KEY, history);
+    }
+
+    private int bounded(long size) {
+        return (int) Math.max(minSize, Math.min(maxSize, size));
+    }
+}
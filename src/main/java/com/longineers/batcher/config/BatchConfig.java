@@ -1,122 +1,398 @@
 package com.longineers.batcher.config;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
-
 import java.util.Arrays;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.SkipListener;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.FlowExecutionStatus;
+import org.springframework.batch.core.job.flow.JobExecutionDecider;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.ParseException;
 import org.springframework.batch.item.support.CompositeItemProcessor;
+import org.springframework.batch.item.support.CompositeItemWriter;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.batch.item.database.JpaItemWriter;
 import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
-import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.MultiResourceItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.builder.MultiResourceItemReaderBuilder;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.policy.ExceptionClassifierRetryPolicy;
+import org.springframework.retry.policy.NeverRetryPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import com.longineers.batcher.bulkload.CreateStagingTableTasklet;
+import com.longineers.batcher.bulkload.DropSecondaryIndexesTasklet;
+import com.longineers.batcher.bulkload.RebuildIndexesListener;
+import com.longineers.batcher.bulkload.RebuildSecondaryIndexesTasklet;
+import com.longineers.batcher.bulkload.StagingLoad;
+import com.longineers.batcher.bulkload.SwapStagingTableTasklet;
+import com.longineers.batcher.bulkload.SynchronousCommitOffListener;
+import com.longineers.batcher.bulkload.TruncateCategoriesTasklet;
+import com.longineers.batcher.chunk.AdaptiveChunkSizePolicy;
+import com.longineers.batcher.filter.ProductFilter;
+import com.longineers.batcher.listener.ChunkMetricsListener;
+import com.longineers.batcher.listener.DeadLetterListener;
+import com.longineers.batcher.listener.HighWaterMarkListener;
+import com.longineers.batcher.listener.InputSizeEstimationListener;
 import com.longineers.batcher.model.Product;
+import com.longineers.batcher.partition.ByteRangeResource;
+import com.longineers.batcher.pipeline.PipelinedItemReader;
+import com.longineers.batcher.pipeline.PipelinedItemReader.ProcessedItem;
+import com.longineers.batcher.partition.CsvByteRangePartitioner;
+import com.longineers.batcher.partition.FilePartitioner;
+import com.longineers.batcher.reader.CheckpointingInputStream.Codec;
+import com.longineers.batcher.reader.CompressedProductCsvReader;
+import com.longineers.batcher.reader.IncrementalItemReader;
+import com.longineers.batcher.reader.InputResources;
+import com.longineers.batcher.reader.JsonProductReader;
+import com.longineers.batcher.reader.MappedProductCsvReader;
+import com.longineers.batcher.reader.ProductDictionary;
+import com.longineers.batcher.reader.ProductFieldSetMapper;
+import com.longineers.batcher.reader.ProductFileReader;
+import com.longineers.batcher.writer.ProductCopyWriter;
+import com.longineers.batcher.writer.ProductKeyWriter;
+import com.longineers.batcher.writer.ProductPartitionWriter;
+import com.longineers.batcher.writer.ProductUpsertWriter;
+import com.longineers.batcher.writer.TransientDatabaseErrors;
 
 import jakarta.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
 import org.springframework.beans.factory.annotation.Value;
 
 @Configuration
 @EnableBatchProcessing
 public class BatchConfig {
 
+    private static final String INPUT_RESOURCE = "db/data/massive_products.csv";
+    private static final String JSON_INPUT_RESOURCE = "db/data/massive_products.json";
+
     @Value("${batch.chunk-size}")
     private final int chunkSize;
 
+    @Value("${batch.fault-tolerance.skip-limit:100}")
+    private int skipLimit;
+
+    @Value("${batch.fault-tolerance.retry-limit:3}")
+    private int retryLimit;
+
+    @Value("${batch.adaptive-chunk.enabled:false}")
+    private boolean adaptiveChunkSize;
+
     public BatchConfig(@Value("${batch.chunk-size}") int chunkSize) {
         this.chunkSize = chunkSize;
     }
 
+    /** Resolves {@code input} job parameters to files under {@code batch.input-root}. */
     @Bean
-    public FlatFileItemReader<Product> reader() {
+    public InputResources inputResources(@Value("${batch.input-root}") String inputRoot) {
+        return new InputResources(Path.of(inputRoot));
+    }
+
+    /**
+     * Reads the files named by the {@code input} job parameter, a path, directory or pattern resolved by
+     * {@link InputResources}, or the bundled feed when it is not given. Several files are read one after
+     * the other through a {@link MultiResourceItemReader}.
+     *
+     * The {@code format} job parameter selects how each file is read: {@code csv} (default) with the reader
+     * chosen by {@code batch.reader-mode}, {@code json} with the streaming {@link JsonProductReader}.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<Product> reader(
+            @Value("${batch.reader-mode:flatfile}") String readerMode,
+            @Value("#{jobParameters['input']}") String input,
+            @Value("#{jobParameters['format']}") String format,
+            InputResources inputResources,
+            ProductFilter productFilter,
+            ProductDictionary productDictionary,
+            @Value("#{jobExecutionContext['" + HighWaterMarkListener.SINCE_KEY + "']}") String since,
+            @Value("#{jobParameters['sortedNewestFirst']}") String sortedNewestFirst) {
+        String inputFormat = format == null ? "csv" : format;
+        Function<Resource, ItemStreamReader<Product>> fileReader =
+                fileReaderFactory(readerMode, inputFormat, productFilter.readerPredicate(), productDictionary);
+        Resource[] resources = resolveInput(inputResources, input, inputFormat);
+        ItemStreamReader<Product> reader = resources.length == 1
+                ? fileReader.apply(resources[0])
+                : new MultiResourceItemReaderBuilder<Product>()
+                        .name("productMultiResourceReader")
+                        .resources(resources)
+                        .comparator(InputResources.PATH_ORDER)
+                        .delegate(new ProductFileReader(fileReader))
+                        .build();
+        return incremental(reader, since, sortedNewestFirst);
+    }
+
+    /**
+     * Reads the single file of one partition of the per-file partitioned step, as {@link #reader} reads each file.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<Product> fileReader(
+            @Value("${batch.reader-mode:flatfile}") String readerMode,
+            @Value("#{stepExecutionContext['" + FilePartitioner.FILE_KEY + "']}") String file,
+            @Value("#{jobParameters['format']}") String format,
+            ProductFilter productFilter,
+            ProductDictionary productDictionary,
+            @Value("#{jobExecutionContext['" + HighWaterMarkListener.SINCE_KEY + "']}") String since,
+            @Value("#{jobParameters['sortedNewestFirst']}") String sortedNewestFirst) {
+        ItemStreamReader<Product> reader = fileReaderFactory(readerMode, format == null ? "csv" : format,
+                productFilter.readerPredicate(), productDictionary)
+                .apply(FilePartitioner.resource(file));
+        return incremental(reader, since, sortedNewestFirst);
+    }
+
+    private Function<Resource, ItemStreamReader<Product>> fileReaderFactory(String readerMode, String format,
+                                                                           Predicate<Product> readerFilter,
+                                                                           ProductDictionary dictionary) {
+        return switch (format) {
+            case "csv" -> resource -> csvReader(readerMode, resource, readerFilter, dictionary);
+            case "json" -> resource -> {
+                JsonProductReader reader = new JsonProductReader(resource);
+                reader.setDictionary(dictionary);
+                return reader;
+            };
+            default -> throw new IllegalArgumentException("Unknown input format: " + format);
+        };
+    }
+
+    /**
+     * Selects the CSV reader with {@code batch.reader-mode}: {@code flatfile} (default) uses {@code FlatFileItemReader},
+     * {@code mapped} tokenizes the memory-mapped file in place with {@link MappedProductCsvReader}. A gzip or zstd
+     * compressed feed is detected from its first bytes and read with {@link CompressedProductCsvReader} in either mode.
+     * Each of them maps only the category and {@code inStock} of rows that {@code readerFilter} rejects, and
+     * interns the low-cardinality text columns in {@code dictionary}.
+     */
+    private ItemStreamReader<Product> csvReader(String readerMode, Resource resource, Predicate<Product> readerFilter,
+                                                ProductDictionary dictionary) {
+        Codec codec;
+        try {
+            codec = Codec.detect(resource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + resource.getDescription(), e);
+        }
+        if (codec != Codec.NONE) {
+            CompressedProductCsvReader reader = new CompressedProductCsvReader(resource, codec);
+            reader.setReaderFilter(readerFilter);
+            reader.setDictionary(dictionary);
+            return reader;
+        }
+        return switch (readerMode) {
+            case "flatfile" -> productReaderBuilder("productItemReader", resource, readerFilter, dictionary)
+                    .linesToSkip(1)
+                    .build();
+            case "mapped" -> {
+                MappedProductCsvReader reader = new MappedProductCsvReader(resource);
+                reader.setReaderFilter(readerFilter);
+                reader.setDictionary(dictionary);
+                yield reader;
+            }
+            default -> throw new IllegalArgumentException("Unknown batch.reader-mode: " + readerMode);
+        };
+    }
+
+    private static Resource[] resolveInput(InputResources inputResources, String input, String format) {
+        Resource defaultResource = new ClassPathResource("json".equals(format) ? JSON_INPUT_RESOURCE : INPUT_RESOURCE);
+        try {
+            return inputResources.resolve(input, defaultResource);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resolve input " + input, e);
+        }
+    }
+
+    /** The single CSV file that the byte-range partitioned step splits. */
+    private static Resource singleInputResource(InputResources inputResources, String input) {
+        Resource[] resources = resolveInput(inputResources, input, "csv");
+        if (resources.length != 1) {
+            throw new IllegalArgumentException("Byte-range partitioning needs a single input file but "
+                    + input + " matches " + resources.length);
+        }
+        return resources[0];
+    }
+
+    /**
+     * Reads only the byte range of one partition; the header lies outside every range.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<Product> partitionReader(
+            @Value("${batch.reader-mode:flatfile}") String readerMode,
+            @Value("#{stepExecutionContext['" + CsvByteRangePartitioner.START_OFFSET_KEY + "']}") Long startOffset,
+            @Value("#{stepExecutionContext['" + CsvByteRangePartitioner.END_OFFSET_KEY + "']}") Long endOffset,
+            @Value("#{jobParameters['input']}") String input,
+            InputResources inputResources,
+            ProductFilter productFilter,
+            ProductDictionary productDictionary,
+            @Value("#{jobExecutionContext['" + HighWaterMarkListener.SINCE_KEY + "']}") String since,
+            @Value("#{jobParameters['sortedNewestFirst']}") String sortedNewestFirst) {
+        Resource resource = singleInputResource(inputResources, input);
+        Predicate<Product> readerFilter = productFilter.readerPredicate();
+        ItemStreamReader<Product> reader = switch (readerMode) {
+            case "flatfile" -> productReaderBuilder("productPartitionReader",
+                    new ByteRangeResource(resource, startOffset, endOffset), readerFilter, productDictionary)
+                    .build();
+            case "mapped" -> {
+                MappedProductCsvReader mappedReader = new MappedProductCsvReader(resource, startOffset, endOffset);
+                mappedReader.setReaderFilter(readerFilter);
+                mappedReader.setDictionary(productDictionary);
+                yield mappedReader;
+            }
+            default -> throw new IllegalArgumentException("Unknown batch.reader-mode: " + readerMode);
+        };
+        return incremental(reader, since, sortedNewestFirst);
+    }
+
+    /**
+     * Skips rows not updated since the high-water mark of an incremental run, and records the latest
+     * {@code updatedAt} of every run so that the next incremental run can start from it.
+     */
+    private ItemStreamReader<Product> incremental(ItemStreamReader<Product> reader, String since, String sortedNewestFirst) {
+        return new IncrementalItemReader(reader,
+                since == null ? null : LocalDateTime.parse(since),
+                Boolean.parseBoolean(sortedNewestFirst));
+    }
+
+    private FlatFileItemReaderBuilder<Product> productReaderBuilder(String name, Resource resource,
+                                                                    Predicate<Product> readerFilter,
+                                                                    ProductDictionary dictionary) {
+        ProductFieldSetMapper fieldSetMapper = new ProductFieldSetMapper();
+        fieldSetMapper.setReaderFilter(readerFilter);
+        fieldSetMapper.setDictionary(dictionary);
         return new FlatFileItemReaderBuilder<Product>()
-                .name("productItemReader")
-                .resource(new ClassPathResource("db/data/massive_products.csv"))
-                .linesToSkip(1)
+                .name(name)
+                .resource(resource)
+                .recordSeparatorPolicy(new DefaultRecordSeparatorPolicy())
                 .delimited()
                 .delimiter(",")
-                .names(new String[] {
-                        "id", "uuid", "name", "brand", "category", "subcategory", "description",
-                        "price", "currency", "discountPercent", "finalPrice", "rating", "reviewCount",
-                        "stockQuantity", "inStock", "sku", "barcode", "weightKg", "tags", "imageUrl",
-                        "thumbnailUrl", "createdAt", "updatedAt", "status", "featured", "lengthCm",
-                        "widthCm", "heightCm", "freeShipping", "shippingCost", "estimatedDays"
-                })
-                .fieldSetMapper(fieldSet -> Product.builder()
-                        // .id(fieldSet.readLong("id"))
-                        .uuid(java.util.UUID.fromString(fieldSet.readString("uuid")))
-                        .name(fieldSet.readString("name"))
-                        .brand(fieldSet.readString("brand"))
-                        .category(fieldSet.readString("category"))
-                        .subcategory(fieldSet.readString("subcategory"))
-                        .description(fieldSet.readString("description"))
-                        .price(fieldSet.readDouble("price"))
-                        .currency(fieldSet.readString("currency"))
-                        .discountPercent(fieldSet.readDouble("discountPercent"))
-                        .finalPrice(fieldSet.readDouble("finalPrice"))
-                        .rating(fieldSet.readDouble("rating"))
-                        .reviewCount(fieldSet.readInt("reviewCount"))
-                        .stockQuantity(fieldSet.readInt("stockQuantity"))
-                        .inStock(fieldSet.readBoolean("inStock"))
-                        .sku(fieldSet.readString("sku"))
-                        .barcode(fieldSet.readString("barcode"))
-                        .weightKg(fieldSet.readDouble("weightKg"))
-                        .tags(fieldSet.readString("tags"))
-                        .imageUrl(fieldSet.readString("imageUrl"))
-                        .thumbnailUrl(fieldSet.readString("thumbnailUrl"))
-                        .createdAt(LocalDateTime.parse(fieldSet.readString("createdAt")))
-                        .updatedAt(LocalDateTime.parse(fieldSet.readString("updatedAt")))
-                        .status(fieldSet.readString("status"))
-                        .featured(fieldSet.readBoolean("featured"))
-                        .lengthCm(fieldSet.readDouble("lengthCm"))
-                        .widthCm(fieldSet.readDouble("widthCm"))
-                        .heightCm(fieldSet.readDouble("heightCm"))
-                        .freeShipping(fieldSet.readBoolean("freeShipping"))
-                        .shippingCost(fieldSet.readDouble("shippingCost"))
-                        .estimatedDays(fieldSet.readInt("estimatedDays"))
-                        .build()
-                )
-                .build();
+                .names(ProductFieldSetMapper.NAMES)
+                .fieldSetMapper(fieldSetMapper);
     }
 
+    /**
+     * Selects the writer with {@code batch.writer-mode}: {@code jpa} (default) persists one entity at a time,
+     * {@code copy-text} and {@code copy-binary} stream each chunk with PostgreSQL {@code COPY ... FROM STDIN},
+     * {@code upsert} inserts or updates each chunk keyed on {@code uuid} and skips rows that did not change,
+     * {@code copy-partitioned} groups each chunk by category and streams each group in binary {@code COPY}
+     * format straight into its partition. Each of them records the keys of the products it stores with
+     * {@link ProductKeyWriter}, the {@code jpa} mode through a {@link ProductKeyWriter} run before it.
+     *
+     * A staging load always streams with {@code COPY} into the staging table of its job, in binary format
+     * unless {@code copy-text} is selected, and into its partitions with {@code copy-partitioned}; the
+     * table is empty and has no indexes to upsert against.
+     */
     @Bean
-    public JpaItemWriter<Product> writer(EntityManagerFactory entityManagerFactory) {
-        return new JpaItemWriterBuilder<Product>()
-                .entityManagerFactory(entityManagerFactory)
-                .build();
+    @StepScope
+    public ItemWriter<Product> writer(EntityManagerFactory entityManagerFactory,
+                                      DataSource dataSource,
+                                      @Value("${batch.writer-mode:jpa}") String writerMode,
+                                      @Value("#{stepExecution}") StepExecution stepExecution) {
+        if (StagingLoad.isEnabled(stepExecution.getJobParameters())) {
+            String staging = StagingLoad.tableName(stepExecution.getJobExecution().getJobInstance().getInstanceId());
+            return switch (writerMode) {
+                case "copy-text" -> new ProductCopyWriter(dataSource, ProductCopyWriter.Format.TEXT, staging);
+                case "copy-partitioned" -> new ProductPartitionWriter(dataSource, ProductCopyWriter.Format.BINARY, staging);
+                default -> new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY, staging);
+            };
+        }
+        return switch (writerMode) {
+            case "jpa" -> {
+                CompositeItemWriter<Product> writer = new CompositeItemWriter<>();
+                writer.setDelegates(Arrays.asList(new ProductKeyWriter(dataSource), new JpaItemWriterBuilder<Product>()
+                        .entityManagerFactory(entityManagerFactory)
+                        .usePersist(true)
+                        .build()));
+                yield writer;
+            }
+            case "copy-text" -> new ProductCopyWriter(dataSource, ProductCopyWriter.Format.TEXT);
+            case "copy-binary" -> new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY);
+            case "upsert" -> new ProductUpsertWriter(dataSource);
+            case "copy-partitioned" -> new ProductPartitionWriter(dataSource, ProductCopyWriter.Format.BINARY, "products");
+            default -> throw new IllegalArgumentException("Unknown batch.writer-mode: " + writerMode);
+        };
+    }
+
+    /**
+     * Interns {@code brand}, {@code category}, {@code subcategory}, {@code currency} and {@code status} for the
+     * readers of one step, so that the products read share one instance of each value; see {@link ProductDictionary}.
+     * Unlike the other step-scoped beans it is not proxied, since the readers call it for every row and a proxy
+     * would look up the step's instance on each call. It is only injected into beans of the same step.
+     */
+    @Bean
+    @Scope(value = "step", proxyMode = ScopedProxyMode.NO)
+    public ProductDictionary productDictionary(@Value("${batch.reader.dictionary-capacity:1024}") int capacity) {
+        return new ProductDictionary(capacity);
     }
 
+    /**
+     * Compiles the {@code filter} job parameter, a {@link ProductFilter} expression, together with the
+     * {@code categories} list once per step. Without either every product is kept.
+     *
+     * The categories are interned in the step's {@link ProductDictionary} before the readers start, so the
+     * category of a product they keep is the very instance in the filter's set. Its hash code is cached and
+     * the lookup ends in a reference comparison instead of comparing the characters.
+     */
     @Bean
     @StepScope
-    public ItemProcessor<Product, Product> categoryFilterProcessor(
-            @Value("#{jobParameters['categories']}") String categories) {
-        if (categories == null || categories.isEmpty()) {
-            return item -> item; // If no categories are provided, pass all items through.
+    public ProductFilter productFilter(@Value("#{jobParameters['filter']}") String filter,
+                                       @Value("#{jobParameters['categories']}") String categories,
+                                       ProductDictionary productDictionary) {
+        ProductFilter productFilter = filter == null || filter.isBlank() ? ProductFilter.ALL : ProductFilter.parse(filter);
+        if (categories != null && !categories.isEmpty()) {
+            productFilter = productFilter.and(ProductFilter.categoryIn(Arrays.stream(categories.split(","))
+                    .map(String::trim)
+                    .map(productDictionary::intern)
+                    .toList()));
         }
-        Set<String> categorySet = Arrays.stream(categories.split(","))
-                .map(String::trim)
-                .collect(Collectors.toSet());
+        return productFilter;
+    }
 
-        return product -> {
-            if (categorySet.contains(product.getCategory())) {
-                return product; // Keep the product if its category is in the set.
-            }
-            return null; // Discard the product by returning null.
-        };
+    /**
+     * Drops products the {@link ProductFilter} rejects. The CSV readers test its conditions on
+     * {@code category} and {@code inStock} before mapping a row and hand over rejected rows as stubs,
+     * which are dropped here so that they are counted as filtered.
+     */
+    @Bean
+    @StepScope
+    public ItemProcessor<Product, Product> filterProcessor(ProductFilter productFilter) {
+        if (productFilter.isEmpty()) {
+            return item -> item; // Without a filter, pass all items through.
+        }
+        Predicate<Product> predicate = productFilter.predicate();
+        return product -> predicate.test(product) ? product : null;
     }
 
     @Bean
@@ -132,45 +408,477 @@ public class BatchConfig {
 
     @Bean
     public CompositeItemProcessor<Product, Product> compositeProcessor(
-            @Qualifier("categoryFilterProcessor") ItemProcessor<Product, Product> categoryFilterProcessor,
+            @Qualifier("filterProcessor") ItemProcessor<Product, Product> filterProcessor,
             @Qualifier("customiseLinkProcessor") ItemProcessor<Product, Product> customiseLinkProcessor) {
         CompositeItemProcessor<Product, Product> processor = new CompositeItemProcessor<>();
-        processor.setDelegates(Arrays.asList(categoryFilterProcessor, customiseLinkProcessor));
+        processor.setDelegates(Arrays.asList(filterProcessor, customiseLinkProcessor));
         return processor;
     }
 
+    /**
+     * Wraps the reader and processor of csvImportStep so that they run on threads of their own
+     * when {@code batch.step-mode} is {@code pipelined}.
+     */
+    @Bean
+    @StepScope
+    public PipelinedItemReader<Product, Product> pipelinedReader(
+            ItemStreamReader<Product> reader,
+            CompositeItemProcessor<Product, Product> compositeProcessor,
+            @Value("${batch.pipeline.queue-capacity:4}") int queueCapacity,
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            MeterRegistry meterRegistry) {
+        return new PipelinedItemReader<>(reader, compositeProcessor, this.chunkSize, queueCapacity,
+                stepExecution, meterRegistry);
+    }
+
+    @Bean
+    @StepScope
+    public PipelinedItemReader<Product, Product> pipelinedPartitionReader(
+            ItemStreamReader<Product> partitionReader,
+            CompositeItemProcessor<Product, Product> compositeProcessor,
+            @Value("${batch.pipeline.queue-capacity:4}") int queueCapacity,
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            MeterRegistry meterRegistry) {
+        return new PipelinedItemReader<>(partitionReader, compositeProcessor, this.chunkSize, queueCapacity,
+                stepExecution, meterRegistry);
+    }
+
+    @Bean
+    @StepScope
+    public PipelinedItemReader<Product, Product> pipelinedFileReader(
+            ItemStreamReader<Product> fileReader,
+            CompositeItemProcessor<Product, Product> compositeProcessor,
+            @Value("${batch.pipeline.queue-capacity:4}") int queueCapacity,
+            @Value("#{stepExecution}") StepExecution stepExecution,
+            MeterRegistry meterRegistry) {
+        return new PipelinedItemReader<>(fileReader, compositeProcessor, this.chunkSize, queueCapacity,
+                stepExecution, meterRegistry);
+    }
+
+    /**
+     * Is not run again once it has completed, so that restarting a job whose rebuildIndexesStep or
+     * swapStagingTableStep failed goes on from that step instead of importing the file a second time.
+     */
     @Bean
     public Step csvImportStep(  JobRepository jobRepository,
-                                 FlatFileItemReader<Product> reader,
+                                 ItemStreamReader<Product> reader,
+                                 PipelinedItemReader<Product, Product> pipelinedReader,
                                  CompositeItemProcessor<Product, Product> compositeProcessor,
-                                 JpaItemWriter<Product> writer,
-                                 PlatformTransactionManager transactionManager) {
-        return new StepBuilder("csvImportStep", jobRepository)
-                .<Product, Product>chunk(this.chunkSize, transactionManager)
-                .reader(reader)
-                .processor(compositeProcessor)
-                .writer(writer)
+                                 ItemWriter<Product> writer,
+                                 PlatformTransactionManager transactionManager,
+                                 ChunkMetricsListener chunkMetricsListener,
+                                 DeadLetterListener deadLetterListener,
+                                 AdaptiveChunkSizePolicy adaptiveChunkSizePolicy,
+                                 SynchronousCommitOffListener synchronousCommitOffListener,
+                                 @Value("${batch.step-mode:chunk}") String stepMode) {
+        return importStep(new StepBuilder("csvImportStep", jobRepository), stepMode,
+                reader, pipelinedReader, compositeProcessor, writer, transactionManager, chunkMetricsListener,
+                deadLetterListener, adaptiveChunkSizePolicy, synchronousCommitOffListener)
+                .build();
+    }
+
+    /**
+     * Selects how a chunk is produced with {@code batch.step-mode}: {@code chunk} (default) reads, processes
+     * and writes on the step thread, {@code pipelined} reads and processes ahead on two more threads
+     * through {@link PipelinedItemReader} while the step thread writes.
+     *
+     * {@code fault-tolerant} works like {@code chunk} but skips up to {@code batch.fault-tolerance.skip-limit}
+     * rows that cannot be parsed or that the table cannot store, and writes each to the
+     * {@link DeadLetterListener}. The readers detect both kinds while reading, so a skipped row is simply
+     * left out of its chunk: no rollback, and no re-writing the chunk item by item to find it. Write errors
+     * are not skipped; transient ones, see {@link TransientDatabaseErrors}, are retried up to
+     * {@code batch.fault-tolerance.retry-limit} attempts with the chunk's processed items kept.
+     *
+     * With {@code batch.adaptive-chunk.enabled} the {@code chunk} and {@code fault-tolerant} modes size
+     * their chunks with the {@link AdaptiveChunkSizePolicy}, starting from {@code batch.chunk-size}.
+     */
+    private SimpleStepBuilder<?, Product> importStep(StepBuilder stepBuilder,
+                                                     String stepMode,
+                                                     ItemStreamReader<Product> reader,
+                                                     PipelinedItemReader<Product, Product> pipelinedReader,
+                                                     ItemProcessor<Product, Product> processor,
+                                                     ItemWriter<Product> writer,
+                                                     PlatformTransactionManager transactionManager,
+                                                     ChunkMetricsListener chunkMetricsListener,
+                                                     DeadLetterListener deadLetterListener,
+                                                     AdaptiveChunkSizePolicy adaptiveChunkSizePolicy,
+                                                     SynchronousCommitOffListener synchronousCommitOffListener) {
+        if (this.adaptiveChunkSize && stepMode.equals("pipelined")) {
+            throw new IllegalArgumentException("batch.adaptive-chunk.enabled cannot be combined with batch.step-mode=pipelined");
+        }
+        SimpleStepBuilder<?, Product> builder = switch (stepMode) {
+            case "chunk" -> chunk(stepBuilder, transactionManager, adaptiveChunkSizePolicy)
+                    .reader(reader)
+                    .processor(processor)
+                    .writer(writer);
+            case "pipelined" -> stepBuilder
+                    .<ProcessedItem<Product>, Product>chunk(this.chunkSize, transactionManager)
+                    .reader(pipelinedReader)
+                    .processor(ProcessedItem::item)
+                    .writer(writer);
+            case "fault-tolerant" -> chunk(stepBuilder, transactionManager, adaptiveChunkSizePolicy)
+                    .reader(reader)
+                    .processor(processor)
+                    .writer(writer)
+                    .faultTolerant()
+                    .processorNonTransactional()
+                    .skipLimit(this.skipLimit)
+                    .skip(ParseException.class)
+                    .retryPolicy(transientDatabaseErrorRetryPolicy())
+                    .listener((SkipListener<Product, Product>) deadLetterListener)
+                    .listener((StepExecutionListener) deadLetterListener);
+            default -> throw new IllegalArgumentException("Unknown batch.step-mode: " + stepMode);
+        };
+        builder.listener(synchronousCommitOffListener);
+        return builder.listener(chunkMetricsListener);
+    }
+
+    private SimpleStepBuilder<Product, Product> chunk(StepBuilder stepBuilder,
+                                                      PlatformTransactionManager transactionManager,
+                                                      AdaptiveChunkSizePolicy adaptiveChunkSizePolicy) {
+        if (!this.adaptiveChunkSize) {
+            return stepBuilder.chunk(this.chunkSize, transactionManager);
+        }
+        SimpleStepBuilder<Product, Product> builder = stepBuilder.chunk(adaptiveChunkSizePolicy, transactionManager);
+        builder.listener((ItemWriteListener<Object>) adaptiveChunkSizePolicy);
+        builder.listener((ChunkListener) adaptiveChunkSizePolicy);
+        builder.listener((StepExecutionListener) adaptiveChunkSizePolicy);
+        return builder;
+    }
+
+    private RetryPolicy transientDatabaseErrorRetryPolicy() {
+        RetryPolicy retry = new SimpleRetryPolicy(this.retryLimit);
+        RetryPolicy never = new NeverRetryPolicy();
+        ExceptionClassifierRetryPolicy policy = new ExceptionClassifierRetryPolicy();
+        policy.setExceptionClassifier(error -> TransientDatabaseErrors.isTransient(error) ? retry : never);
+        return policy;
+    }
+
+    @Bean
+    @StepScope
+    public AdaptiveChunkSizePolicy adaptiveChunkSizePolicy(
+            @Value("${batch.adaptive-chunk.target-latency:500ms}") Duration targetLatency,
+            @Value("${batch.adaptive-chunk.min-size:100}") int minSize,
+            @Value("${batch.adaptive-chunk.max-size:10000}") int maxSize) {
+        return new AdaptiveChunkSizePolicy(this.chunkSize, minSize, maxSize, targetLatency);
+    }
+
+    /** Collects the rows a {@code fault-tolerant} step skips, one file per step execution. */
+    @Bean
+    @StepScope
+    public DeadLetterListener deadLetterListener(
+            @Value("${batch.fault-tolerance.dead-letter-dir:dead-letter}") String directory,
+            @Value("#{stepExecution}") StepExecution stepExecution) {
+        return new DeadLetterListener(Path.of(directory), stepExecution);
+    }
+
+    /**
+     * Drops the secondary indexes of {@code products} when the job is launched with {@code bulkLoad}.
+     * It runs again on restart, so that indexes added since are dropped too.
+     */
+    @Bean
+    public Step dropIndexesStep(JobRepository jobRepository,
+                                PlatformTransactionManager transactionManager,
+                                DataSource dataSource) {
+        return new StepBuilder("dropIndexesStep", jobRepository)
+                .tasklet(new DropSecondaryIndexesTasklet(dataSource, jobRepository), transactionManager)
                 .allowStartIfComplete(true)
                 .build();
     }
 
+    /** Rebuilds the indexes dropped by dropIndexesStep, whether the import succeeded or not. */
     @Bean
-    public Step anotherStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("anotherStep", jobRepository)
-                .tasklet((contribution, chunkContext) -> {
-                    System.out.println("This is another step in the job.");
-                    return org.springframework.batch.repeat.RepeatStatus.FINISHED;
-                }, transactionManager)
+    public Step rebuildIndexesStep(JobRepository jobRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   DataSource dataSource,
+                                   @Value("${batch.bulk-load.rebuild-threads:4}") int threads) {
+        return new StepBuilder("rebuildIndexesStep", jobRepository)
+                .tasklet(new RebuildSecondaryIndexesTasklet(dataSource, threads), transactionManager)
+                .allowStartIfComplete(true)
+                .build();
+    }
+
+    /** Creates the UNLOGGED staging table of a staging load; see {@link CreateStagingTableTasklet}. */
+    @Bean
+    public Step createStagingTableStep(JobRepository jobRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       DataSource dataSource,
+                                       JobExplorer jobExplorer) {
+        return new StepBuilder("createStagingTableStep", jobRepository)
+                .tasklet(new CreateStagingTableTasklet(dataSource, jobExplorer), transactionManager)
+                .allowStartIfComplete(true)
                 .build();
     }
-    
+
+    /** Empties the categories of a reload before the import refills them; see {@link TruncateCategoriesTasklet}. */
+    @Bean
+    public Step truncateCategoriesStep(JobRepository jobRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       DataSource dataSource) {
+        return new StepBuilder("truncateCategoriesStep", jobRepository)
+                .tasklet(new TruncateCategoriesTasklet(dataSource), transactionManager)
+                .build();
+    }
+
+    /** Indexes the staging table of a completed staging load and swaps it in for products. */
+    @Bean
+    public Step swapStagingTableStep(JobRepository jobRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     DataSource dataSource,
+                                     @Value("${batch.bulk-load.rebuild-threads:4}") int threads,
+                                     @Value("${batch.staging.swap-lock-timeout:10s}") Duration lockTimeout) {
+        return new StepBuilder("swapStagingTableStep", jobRepository)
+                .tasklet(new SwapStagingTableTasklet(dataSource, threads, lockTimeout), transactionManager)
+                .build();
+    }
+
+    @Bean
+    public SynchronousCommitOffListener synchronousCommitOffListener(DataSource dataSource) {
+        return new SynchronousCommitOffListener(dataSource);
+    }
+
+    @Bean
+    @StepScope
+    public Partitioner csvRangePartitioner(@Value("#{jobParameters['partitions']}") Long partitions,
+                                           @Value("#{jobParameters['input']}") String input,
+                                           InputResources inputResources) {
+        return new CsvByteRangePartitioner(singleInputResource(inputResources, input), partitions.intValue());
+    }
+
+    @Bean
+    public TaskExecutor partitionTaskExecutor(@Value("${batch.partition.threads:4}") int threads,
+                                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("csv-partition-", threads);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("csv-partition-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    @StepScope
+    public Partitioner filePartitioner(@Value("#{jobParameters['input']}") String input,
+                                       @Value("#{jobParameters['format']}") String format,
+                                       InputResources inputResources) {
+        return new FilePartitioner(resolveInput(inputResources, input, format));
+    }
+
+    /**
+     * Runs the per-file workers. Files beyond {@code batch.file-partition.threads} wait in the queue
+     * until a worker finishes.
+     */
+    @Bean
+    public TaskExecutor filePartitionTaskExecutor(@Value("${batch.file-partition.threads:4}") int threads,
+                                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return virtualThreadExecutor("file-partition-", threads);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("file-partition-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs jobs launched through the REST API. Launches beyond {@code batch.launcher.threads} running
+     * jobs queue up to {@code batch.launcher.queue-capacity}; further launches are rejected.
+     *
+     * With {@code spring.threads.virtual.enabled} the pool keeps its limits but its threads are virtual,
+     * so {@code batch.launcher.threads} can be raised to hundreds without reserving a stack for each.
+     */
+    @Bean
+    public TaskExecutor jobLaunchTaskExecutor(@Value("${batch.launcher.threads:2}") int threads,
+                                              @Value("${batch.launcher.queue-capacity:10}") int queueCapacity,
+                                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name("job-launcher-", 0).factory());
+        } else {
+            executor.setThreadNamePrefix("job-launcher-");
+        }
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Starts a virtual thread for each task, at most {@code concurrencyLimit} at once; further tasks
+     * wait for one of them to finish.
+     */
+    private static TaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+
+    @Bean
+    public ChunkMetricsListener chunkMetricsListener(MeterRegistry meterRegistry) {
+        return new ChunkMetricsListener(meterRegistry);
+    }
+
+    @Bean
+    public HighWaterMarkListener highWaterMarkListener(JobExplorer jobExplorer, JobRepository jobRepository) {
+        return new HighWaterMarkListener(jobExplorer, jobRepository);
+    }
+
+    /** Rebuilds the indexes of a bulk load that ended before rebuildIndexesStep; see {@link RebuildIndexesListener}. */
+    @Bean
+    public RebuildIndexesListener rebuildIndexesListener(DataSource dataSource,
+                                                         JobRepository jobRepository,
+                                                         @Value("${batch.bulk-load.rebuild-threads:4}") int threads) {
+        return new RebuildIndexesListener(dataSource, jobRepository, threads);
+    }
+
+    @Bean
+    public InputSizeEstimationListener inputSizeEstimationListener(JobRepository jobRepository, InputResources inputResources) {
+        return new InputSizeEstimationListener(new ClassPathResource(INPUT_RESOURCE), inputResources, jobRepository);
+    }
+
+    /**
+     * Worker for one byte range. Unlike csvImportStep it is not restartable once complete,
+     * so restarting a failed job re-runs only the partitions that did not complete.
+     */
+    @Bean
+    public Step csvImportWorkerStep(JobRepository jobRepository,
+                                    ItemStreamReader<Product> partitionReader,
+                                    PipelinedItemReader<Product, Product> pipelinedPartitionReader,
+                                    CompositeItemProcessor<Product, Product> compositeProcessor,
+                                    ItemWriter<Product> writer,
+                                    PlatformTransactionManager transactionManager,
+                                    ChunkMetricsListener chunkMetricsListener,
+                                    DeadLetterListener deadLetterListener,
+                                    AdaptiveChunkSizePolicy adaptiveChunkSizePolicy,
+                                    SynchronousCommitOffListener synchronousCommitOffListener,
+                                    @Value("${batch.step-mode:chunk}") String stepMode) {
+        return importStep(new StepBuilder("csvImportWorkerStep", jobRepository), stepMode,
+                partitionReader, pipelinedPartitionReader, compositeProcessor, writer, transactionManager,
+                chunkMetricsListener, deadLetterListener, adaptiveChunkSizePolicy, synchronousCommitOffListener)
+                .build();
+    }
+
+    @Bean
+    public Step csvImportPartitionedStep(JobRepository jobRepository,
+                                         Partitioner csvRangePartitioner,
+                                         Step csvImportWorkerStep,
+                                         TaskExecutor partitionTaskExecutor) {
+        return new StepBuilder("csvImportPartitionedStep", jobRepository)
+                .partitioner(csvImportWorkerStep.getName(), csvRangePartitioner)
+                .step(csvImportWorkerStep)
+                .taskExecutor(partitionTaskExecutor)
+                .build();
+    }
+
+    /**
+     * Worker for one input file. Each file commits its own chunks, so a failing file leaves the files
+     * already imported in place, and restarting the job re-runs only the files that did not complete.
+     */
+    @Bean
+    public Step csvImportFileWorkerStep(JobRepository jobRepository,
+                                        ItemStreamReader<Product> fileReader,
+                                        PipelinedItemReader<Product, Product> pipelinedFileReader,
+                                        CompositeItemProcessor<Product, Product> compositeProcessor,
+                                        ItemWriter<Product> writer,
+                                        PlatformTransactionManager transactionManager,
+                                        ChunkMetricsListener chunkMetricsListener,
+                                        DeadLetterListener deadLetterListener,
+                                        AdaptiveChunkSizePolicy adaptiveChunkSizePolicy,
+                                        SynchronousCommitOffListener synchronousCommitOffListener,
+                                        @Value("${batch.step-mode:chunk}") String stepMode) {
+        return importStep(new StepBuilder("csvImportFileWorkerStep", jobRepository), stepMode,
+                fileReader, pipelinedFileReader, compositeProcessor, writer, transactionManager,
+                chunkMetricsListener, deadLetterListener, adaptiveChunkSizePolicy, synchronousCommitOffListener)
+                .build();
+    }
+
+    @Bean
+    public Step csvImportFilePartitionedStep(JobRepository jobRepository,
+                                             Partitioner filePartitioner,
+                                             Step csvImportFileWorkerStep,
+                                             TaskExecutor filePartitionTaskExecutor) {
+        return new StepBuilder("csvImportFilePartitionedStep", jobRepository)
+                .partitioner(csvImportFileWorkerStep.getName(), filePartitioner)
+                .step(csvImportFileWorkerStep)
+                .taskExecutor(filePartitionTaskExecutor)
+                .build();
+    }
+
+    /**
+     * Routes to the byte-range partitioned step when the job is launched with {@code partitions} greater
+     * than one, and to the per-file partitioned step when it is launched with {@code perFile}.
+     */
+    @Bean
+    public JobExecutionDecider importModeDecider() {
+        return (jobExecution, stepExecution) -> {
+            if ("true".equals(jobExecution.getJobParameters().getString("perFile"))) {
+                return new FlowExecutionStatus("PER_FILE");
+            }
+            Long partitions = jobExecution.getJobParameters().getLong("partitions");
+            return new FlowExecutionStatus(partitions != null && partitions > 1 ? "PARTITIONED" : "SINGLE");
+        };
+    }
+
+    /**
+     * Fails the job after rebuildIndexesStep if the import, or the rebuild, did not complete; the
+     * rebuild runs after a failed import as well. Only a complete import goes on to swapStagingTableStep.
+     */
+    @Bean
+    public JobExecutionDecider importOutcomeDecider() {
+        return (jobExecution, stepExecution) -> jobExecution.getStepExecutions().stream()
+                .allMatch(execution -> execution.getStatus() == BatchStatus.COMPLETED)
+                ? FlowExecutionStatus.COMPLETED
+                : FlowExecutionStatus.FAILED;
+    }
+
     @Bean
-    public Job csvImportJob(JobRepository jobRepository, Step csvImportStep, Step anotherStep) {
+    public Job csvImportJob(JobRepository jobRepository,
+                            JobExecutionDecider importModeDecider,
+                            JobExecutionDecider importOutcomeDecider,
+                            Step dropIndexesStep,
+                            Step createStagingTableStep,
+                            Step truncateCategoriesStep,
+                            Step csvImportStep,
+                            Step csvImportPartitionedStep,
+                            Step csvImportFilePartitionedStep,
+                            Step rebuildIndexesStep,
+                            Step swapStagingTableStep,
+                            InputSizeEstimationListener inputSizeEstimationListener,
+                            HighWaterMarkListener highWaterMarkListener,
+                            RebuildIndexesListener rebuildIndexesListener) {
         return new JobBuilder("csvImportJob", jobRepository)
-                // .start(csvImportStep)
                 .incrementer(new RunIdIncrementer())
-                .flow(csvImportStep)
-                // .next(anotherStep)
+                .listener(inputSizeEstimationListener)
+                .listener(highWaterMarkListener)
+                .listener(rebuildIndexesListener)
+                .start(dropIndexesStep)
+                .next(createStagingTableStep)
+                .next(truncateCategoriesStep)
+                .next(importModeDecider)
+                    .on("PARTITIONED").to(csvImportPartitionedStep)
+                .from(importModeDecider)
+                    .on("PER_FILE").to(csvImportFilePartitionedStep)
+                .from(importModeDecider)
+                    .on("*").to(csvImportStep)
+                .from(csvImportPartitionedStep)
+                    .on("*").to(rebuildIndexesStep)
+                .from(csvImportFilePartitionedStep)
+                    .on("*").to(rebuildIndexesStep)
+                .from(csvImportStep)
+                    .on("*").to(rebuildIndexesStep)
+                .from(rebuildIndexesStep)
+                    .on("*").to(importOutcomeDecider)
+                .from(importOutcomeDecider)
+                    .on("FAILED").fail()
+                .from(importOutcomeDecider)
+                    .on("*").to(swapStagingTableStep)
                 .end()
                 .build();
     }
@@ -1,10 +1,12 @@
 package com.longineers.batcher.config;
 
+import com.longineers.batcher.security.ExpiringUserCache;
 import com.longineers.batcher.security.JwtRequestFilter;
 import com.longineers.batcher.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -15,13 +17,21 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public JwtRequestFilter jwtRequestFilter(UserDetailsService userDetailsService, JwtUtil jwtUtil) {
-        return new JwtRequestFilter(userDetailsService, jwtUtil);
+    public JwtRequestFilter jwtRequestFilter(JwtUtil jwtUtil) {
+        return new JwtRequestFilter(jwtUtil);
+    }
+
+    @Bean
+    public UserCache userCache(@Value("${security.user-cache.max-size:1000}") int maxSize,
+                               @Value("${security.user-cache.ttl:5m}") Duration timeToLive) {
+        return new ExpiringUserCache(maxSize, timeToLive);
     }
 
     @Bean
@@ -29,6 +39,7 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/authenticate").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
@@ -1,11 +1,24 @@
 package com.longineers.batcher.controller;
 
-import org.springframework.batch.core.Job;
+import com.longineers.batcher.bulkload.BulkLoad;
+import com.longineers.batcher.bulkload.StagingLoad;
+import com.longineers.batcher.bulkload.TruncateCategoriesTasklet;
+import com.longineers.batcher.filter.ProductFilter;
+import com.longineers.batcher.model.JobLaunchResponse;
+import com.longineers.batcher.model.JobProgress;
+import com.longineers.batcher.reader.InputResources;
+import com.longineers.batcher.service.BatchJobService;
+import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,16 +31,30 @@ import java.util.Collections;
 @RequiredArgsConstructor
 @RestController
 public class BatchJobController {
-    private final JobLauncher jobLauncher;
-    private final Job batchJob;
+    private final BatchJobService batchJobService;
+    private final InputResources inputResources;
 
     @Data
     private static class JobLaunchRequest {
         private List<String> categories = Collections.emptyList();
+        private String filter;
+        private Integer partitions;
+        private String format;
+        private String input;
+        private boolean perFile;
+        private boolean incremental;
+        private boolean sortedNewestFirst;
+        private boolean bulkLoad;
+        private boolean staging;
+        private boolean reload;
     }
 
+    /**
+     * Launches the import in the background and answers 202 with the execution id to poll
+     * on {@code /status/{executionId}}.
+     */
     @PostMapping("/run")
-    public ResponseEntity<String> runBatchJob(@RequestBody(required = false) JobLaunchRequest request) {
+    public ResponseEntity<?> runBatchJob(@RequestBody(required = false) JobLaunchRequest request) {
         try {
             JobParametersBuilder jobParametersBuilder = new JobParametersBuilder()
                     .addLong("time", System.currentTimeMillis()); // Ensures uniqueness for re-runs
@@ -35,14 +62,147 @@ public class BatchJobController {
             if (request != null && !request.getCategories().isEmpty()) {
                 jobParametersBuilder.addString("categories", String.join(",", request.getCategories()));
             }
+            if (request != null && request.getFilter() != null && !request.getFilter().isBlank()) {
+                try {
+                    ProductFilter.parse(request.getFilter());
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body(e.getMessage());
+                }
+                jobParametersBuilder.addString("filter", request.getFilter());
+            }
+            if (request != null && request.getPartitions() != null) {
+                if (request.getPartitions() < 1) {
+                    return ResponseEntity.badRequest().body("partitions must be at least 1");
+                }
+                jobParametersBuilder.addLong("partitions", request.getPartitions().longValue());
+            }
+            if (request != null && request.getFormat() != null) {
+                if (!request.getFormat().equals("csv") && !request.getFormat().equals("json")) {
+                    return ResponseEntity.badRequest().body("format must be csv or json");
+                }
+                if (request.getFormat().equals("json") && request.getPartitions() != null && request.getPartitions() > 1) {
+                    return ResponseEntity.badRequest().body("json input cannot be partitioned");
+                }
+                jobParametersBuilder.addString("format", request.getFormat());
+            }
+            if (request != null && request.getInput() != null) {
+                try {
+                    inputResources.resolve(request.getInput(), null);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body(e.getMessage());
+                }
+                jobParametersBuilder.addString("input", request.getInput());
+            }
+            if (request != null && request.isPerFile()) {
+                if (request.getPartitions() != null && request.getPartitions() > 1) {
+                    return ResponseEntity.badRequest().body("perFile cannot be combined with partitions");
+                }
+                jobParametersBuilder.addString("perFile", "true");
+            }
+            if (request != null && request.isIncremental()) {
+                jobParametersBuilder.addString("incremental", "true");
+                if (request.isSortedNewestFirst()) {
+                    jobParametersBuilder.addString("sortedNewestFirst", "true");
+                }
+            }
+            if (request != null && request.isBulkLoad()) {
+                jobParametersBuilder.addString(BulkLoad.PARAMETER, "true");
+            }
+            if (request != null && request.isStaging()) {
+                if (request.isIncremental() || request.isBulkLoad()) {
+                    return ResponseEntity.badRequest().body("staging cannot be combined with incremental or bulkLoad");
+                }
+                if (!request.getCategories().isEmpty() || request.getFilter() != null && !request.getFilter().isBlank()) {
+                    return ResponseEntity.badRequest().body("staging replaces all products and cannot be combined with categories or filter");
+                }
+                jobParametersBuilder.addString(StagingLoad.PARAMETER, "true");
+            }
+            if (request != null && request.isReload()) {
+                if (request.getCategories() == null || request.getCategories().isEmpty()) {
+                    return ResponseEntity.badRequest().body("reload requires categories");
+                }
+                if (request.isIncremental() || request.isStaging()) {
+                    return ResponseEntity.badRequest().body("reload cannot be combined with incremental or staging");
+                }
+                jobParametersBuilder.addString(TruncateCategoriesTasklet.PARAMETER, "true");
+            }
 
             JobParameters jobParameters = jobParametersBuilder.toJobParameters();
-            jobLauncher.run(batchJob, jobParameters);
+            JobExecution jobExecution = batchJobService.launch(jobParameters);
 
-            return ResponseEntity.ok("Batch job started successfully.");
+            return accepted(jobExecution);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many batch jobs queued, try again later.");
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error starting batch job: " + e.getMessage());
         }
     }
+
+    /**
+     * Restarts a failed or stopped execution with its original parameters. In partitioned mode
+     * only the partitions that did not complete are run again.
+     */
+    @PostMapping("/restart/{executionId}")
+    public ResponseEntity<?> restartBatchJob(@PathVariable long executionId) {
+        try {
+            return accepted(batchJobService.restart(executionId));
+        } catch (NoSuchJobExecutionException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Too many batch jobs queued, try again later.");
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error restarting batch job: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/status/{executionId}")
+    public ResponseEntity<JobProgress> getBatchJobStatus(@PathVariable long executionId) {
+        return batchJobService.getProgress(executionId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Requests a graceful stop; the execution ends as STOPPED after its current chunk and can be restarted.
+     */
+    @PostMapping("/stop/{executionId}")
+    public ResponseEntity<String> stopBatchJob(@PathVariable long executionId) {
+        try {
+            batchJobService.stop(executionId);
+            return ResponseEntity.accepted().body("Stop requested for job execution " + executionId + ".");
+        } catch (NoSuchJobExecutionException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("No job execution found with id: " + executionId);
+        } catch (JobExecutionNotRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Job execution " + executionId + " is not running.");
+        }
+    }
+
+    /**
+     * Gives up on a stopped or failed execution, which can then no longer be restarted; a staging load's
+     * table is dropped when the next staging load starts.
+     */
+    @PostMapping("/abandon/{executionId}")
+    public ResponseEntity<String> abandonBatchJob(@PathVariable long executionId) {
+        try {
+            batchJobService.abandon(executionId);
+            return ResponseEntity.ok("Job execution " + executionId + " abandoned.");
+        } catch (NoSuchJobExecutionException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("No job execution found with id: " + executionId);
+        } catch (JobExecutionAlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Job execution " + executionId + " is still running; stop it first.");
+        }
+    }
+
+    private ResponseEntity<JobLaunchResponse> accepted(JobExecution jobExecution) {
+        return ResponseEntity.accepted()
+                .body(new JobLaunchResponse(jobExecution.getId(), jobExecution.getStatus().name()));
+    }
 }
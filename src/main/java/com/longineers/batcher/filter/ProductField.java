@@ -0,0 +1,74 @@
+package com.longineers.batcher.filter;
+
+import com.longineers.batcher.model.Product;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The {@link Product} fields a filter expression may refer to, named as in the CSV header, each with
+ * its getter so that compiled filters read fields without reflection. Integer fields are read as
+ * doubles so that every number compares the same way.
+ */
+enum ProductField {
+
+    NAME("name", Type.TEXT, Product::getName),
+    BRAND("brand", Type.TEXT, Product::getBrand),
+    CATEGORY("category", Type.TEXT, Product::getCategory),
+    SUBCATEGORY("subcategory", Type.TEXT, Product::getSubcategory),
+    DESCRIPTION("description", Type.TEXT, Product::getDescription),
+    PRICE("price", Type.NUMBER, Product::getPrice),
+    CURRENCY("currency", Type.TEXT, Product::getCurrency),
+    DISCOUNT_PERCENT("discountPercent", Type.NUMBER, Product::getDiscountPercent),
+    FINAL_PRICE("finalPrice", Type.NUMBER, Product::getFinalPrice),
+    RATING("rating", Type.NUMBER, Product::getRating),
+    REVIEW_COUNT("reviewCount", Type.NUMBER, product -> asDouble(product.getReviewCount())),
+    STOCK_QUANTITY("stockQuantity", Type.NUMBER, product -> asDouble(product.getStockQuantity())),
+    IN_STOCK("inStock", Type.BOOLEAN, Product::getInStock),
+    SKU("sku", Type.TEXT, Product::getSku),
+    BARCODE("barcode", Type.TEXT, Product::getBarcode),
+    WEIGHT_KG("weightKg", Type.NUMBER, Product::getWeightKg),
+    TAGS("tags", Type.TEXT, Product::getTags),
+    IMAGE_URL("imageUrl", Type.TEXT, Product::getImageUrl),
+    THUMBNAIL_URL("thumbnailUrl", Type.TEXT, Product::getThumbnailUrl),
+    CREATED_AT("createdAt", Type.TIMESTAMP, Product::getCreatedAt),
+    UPDATED_AT("updatedAt", Type.TIMESTAMP, Product::getUpdatedAt),
+    STATUS("status", Type.TEXT, Product::getStatus),
+    FEATURED("featured", Type.BOOLEAN, Product::getFeatured),
+    LENGTH_CM("lengthCm", Type.NUMBER, Product::getLengthCm),
+    WIDTH_CM("widthCm", Type.NUMBER, Product::getWidthCm),
+    HEIGHT_CM("heightCm", Type.NUMBER, Product::getHeightCm),
+    FREE_SHIPPING("freeShipping", Type.BOOLEAN, Product::getFreeShipping),
+    SHIPPING_COST("shippingCost", Type.NUMBER, Product::getShippingCost),
+    ESTIMATED_DAYS("estimatedDays", Type.NUMBER, product -> asDouble(product.getEstimatedDays()));
+
+    enum Type { TEXT, NUMBER, BOOLEAN, TIMESTAMP }
+
+    private static final Map<String, ProductField> BY_NAME = new HashMap<>();
+
+    static {
+        for (ProductField field : values()) {
+            BY_NAME.put(field.fieldName, field);
+        }
+    }
+
+    final String fieldName;
+    final Type type;
+    final Function<Product, ? extends Comparable<?>> getter;
+
+    ProductField(String fieldName, Type type, Function<Product, ? extends Comparable<?>> getter) {
+        this.fieldName = fieldName;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    /** Returns the field with the given name, or {@code null} if there is none. */
+    static ProductField named(String name) {
+        return BY_NAME.get(name);
+    }
+
+    private static Double asDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+}
@@ -0,0 +1,136 @@
+package com.longineers.batcher.filter;
+
+import com.longineers.batcher.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A filter expression compiled to a {@link Predicate} over {@link Product}, for example
+ * {@code inStock and price > 100 and brand in ('TechCorp', 'HomeMax')}.
+ *
+ * An expression compares fields named as in the CSV header with literals: {@code 'text'} in single
+ * quotes, numbers, {@code true}/{@code false}, and timestamps written as ISO text. It supports
+ * {@code = != < <= > >=}, {@code in (...)}, {@code and}, {@code or}, {@code not} and parentheses.
+ * A boolean field on its own means {@code field = true}. A comparison with a missing value is false.
+ *
+ * The conditions joined by {@code and} at the top level are kept apart. Those that read only the
+ * {@link #READER_FIELDS} make up the {@link #readerPredicate()}, which the CSV readers evaluate before
+ * mapping the rest of a row. A row it rejects fails the full predicate too, so the readers may hand it
+ * on as a stub without the other fields.
+ */
+public class ProductFilter {
+
+    /** Fields the CSV readers map for {@link #readerPredicate()} before the rest of the row. */
+    public static final Set<String> READER_FIELDS = Set.of(ProductField.CATEGORY.fieldName, ProductField.IN_STOCK.fieldName);
+
+    /** Keeps every product. */
+    public static final ProductFilter ALL = new ProductFilter(List.of());
+
+    private static final Set<ProductField> READER_FIELD_SET = EnumSet.of(ProductField.CATEGORY, ProductField.IN_STOCK);
+
+    private final List<Condition> conditions;
+
+    ProductFilter(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Compiles a filter expression.
+     *
+     * @throws IllegalArgumentException if the expression is malformed or refers to an unknown field
+     */
+    public static ProductFilter parse(String expression) {
+        return new ProductFilter(new ProductFilterParser(expression).parse());
+    }
+
+    /** Keeps products whose category is one of {@code categories}. */
+    public static ProductFilter categoryIn(Collection<String> categories) {
+        return new ProductFilter(List.of(Condition.in(ProductField.CATEGORY, Set.copyOf(categories))));
+    }
+
+    /** Keeps products that pass both this filter and {@code other}. */
+    public ProductFilter and(ProductFilter other) {
+        List<Condition> combined = new ArrayList<>(conditions);
+        combined.addAll(other.conditions);
+        return new ProductFilter(List.copyOf(combined));
+    }
+
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    public Predicate<Product> predicate() {
+        return allOf(conditions);
+    }
+
+    /**
+     * Returns the conditions that read only {@link #READER_FIELDS}, or {@code null} if there are none.
+     */
+    public Predicate<Product> readerPredicate() {
+        List<Condition> readerConditions = conditions.stream()
+                .filter(condition -> READER_FIELD_SET.containsAll(condition.fields()))
+                .toList();
+        return readerConditions.isEmpty() ? null : allOf(readerConditions);
+    }
+
+    private static Predicate<Product> allOf(List<Condition> conditions) {
+        if (conditions.isEmpty()) {
+            return product -> true;
+        }
+        if (conditions.size() == 1) {
+            return conditions.get(0).predicate();
+        }
+        @SuppressWarnings("unchecked")
+        Predicate<Product>[] predicates = conditions.stream().map(Condition::predicate).toArray(Predicate[]::new);
+        return product -> {
+            for (Predicate<Product> predicate : predicates) {
+                if (!predicate.test(product)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /** A compiled condition and the fields it reads. */
+    record Condition(Predicate<Product> predicate, Set<ProductField> fields) {
+
+        static Condition in(ProductField field, Set<?> values) {
+            var getter = field.getter;
+            return new Condition(product -> {
+                Object value = getter.apply(product);
+                return value != null && values.contains(value);
+            }, EnumSet.of(field));
+        }
+
+        static Condition allOf(List<Condition> conditions) {
+            Set<ProductField> fields = EnumSet.noneOf(ProductField.class);
+            conditions.forEach(condition -> fields.addAll(condition.fields()));
+            return new Condition(ProductFilter.allOf(conditions), fields);
+        }
+
+        static Condition anyOf(List<Condition> conditions) {
+            Set<ProductField> fields = EnumSet.noneOf(ProductField.class);
+            conditions.forEach(condition -> fields.addAll(condition.fields()));
+            @SuppressWarnings("unchecked")
+            Predicate<Product>[] predicates = conditions.stream().map(Condition::predicate).toArray(Predicate[]::new);
+            return new Condition(product -> {
+                for (Predicate<Product> predicate : predicates) {
+                    if (predicate.test(product)) {
+                        return true;
+                    }
+                }
+                return false;
+            }, fields);
+        }
+
+        Condition negate() {
+            return new Condition(predicate.negate(), fields);
+        }
+    }
+}
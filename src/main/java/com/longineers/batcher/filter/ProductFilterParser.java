@@ -0,0 +1,326 @@
+package com.longineers.batcher.filter;
+
+import com.longineers.batcher.filter.ProductFilter.Condition;
+import com.longineers.batcher.model.Product;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Recursive descent parser for the expressions described on {@link ProductFilter}:
+ *
+ * <pre>
+ * expression := conjunction ("or" conjunction)*
+ * conjunction := unary ("and" unary)*
+ * unary      := "not" unary | "(" expression ")" | comparison
+ * comparison := field (operator literal | "in" "(" literal ("," literal)* ")")?
+ * </pre>
+ *
+ * Keywords are case-insensitive, field names are not. Errors report the character position.
+ */
+class ProductFilterParser {
+
+    private enum TokenType { IDENTIFIER, KEYWORD, STRING, NUMBER, OPERATOR, LEFT_PAREN, RIGHT_PAREN, COMMA, END }
+
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "in", "true", "false");
+
+    private final String input;
+    private int position;
+
+    private TokenType type;
+    private String text;
+    private int tokenStart;
+
+    ProductFilterParser(String input) {
+        this.input = input;
+    }
+
+    /** Returns the conditions joined by {@code and} at the top level. */
+    List<Condition> parse() {
+        next();
+        if (type == TokenType.END) {
+            throw error("Empty filter");
+        }
+        List<Condition> conditions = expression();
+        if (type != TokenType.END) {
+            throw error("Unexpected '" + text + "'");
+        }
+        return List.copyOf(conditions);
+    }
+
+    private List<Condition> expression() {
+        List<Condition> conjunction = conjunction();
+        if (!isKeyword("or")) {
+            return conjunction;
+        }
+        List<Condition> alternatives = new ArrayList<>();
+        alternatives.add(Condition.allOf(conjunction));
+        while (isKeyword("or")) {
+            next();
+            alternatives.add(Condition.allOf(conjunction()));
+        }
+        return List.of(Condition.anyOf(alternatives));
+    }
+
+    private List<Condition> conjunction() {
+        List<Condition> conditions = new ArrayList<>(unary());
+        while (isKeyword("and")) {
+            next();
+            conditions.addAll(unary());
+        }
+        return conditions;
+    }
+
+    /** A parenthesized conjunction is spliced into the enclosing one, so its conditions stay separate. */
+    private List<Condition> unary() {
+        if (isKeyword("not")) {
+            next();
+            return List.of(Condition.allOf(unary()).negate());
+        }
+        if (type == TokenType.LEFT_PAREN) {
+            next();
+            List<Condition> conditions = expression();
+            expect(TokenType.RIGHT_PAREN, "')'");
+            return conditions;
+        }
+        return List.of(comparison());
+    }
+
+    private Condition comparison() {
+        if (type != TokenType.IDENTIFIER) {
+            throw error("Expected a field name but found '" + text + "'");
+        }
+        ProductField field = ProductField.named(text);
+        if (field == null) {
+            throw error("Unknown field '" + text + "'");
+        }
+        next();
+        if (type == TokenType.OPERATOR) {
+            String operator = text;
+            if (field.type == ProductField.Type.BOOLEAN && !operator.equals("=") && !operator.equals("!=")) {
+                throw error("Operator " + operator + " cannot be applied to " + field.fieldName);
+            }
+            next();
+            return compare(field, operator, literal(field));
+        }
+        if (isKeyword("in")) {
+            next();
+            expect(TokenType.LEFT_PAREN, "'('");
+            Set<Object> values = new HashSet<>();
+            values.add(literal(field));
+            while (type == TokenType.COMMA) {
+                next();
+                values.add(literal(field));
+            }
+            expect(TokenType.RIGHT_PAREN, "')'");
+            return Condition.in(field, values);
+        }
+        if (field.type == ProductField.Type.BOOLEAN) {
+            return compare(field, "=", Boolean.TRUE);
+        }
+        throw error("Expected an operator after " + field.fieldName);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Condition compare(ProductField field, String operator, Comparable value) {
+        Function<Product, ? extends Comparable> getter = field.getter;
+        Predicate<Product> predicate = switch (operator) {
+            case "=" -> product -> {
+                Comparable actual = getter.apply(product);
+                return actual != null && actual.compareTo(value) == 0;
+            };
+            case "!=" -> product -> {
+                Comparable actual = getter.apply(product);
+                return actual != null && actual.compareTo(value) != 0;
+            };
+            case "<" -> product -> {
+                Comparable actual = getter.apply(product);
+                return actual != null && actual.compareTo(value) < 0;
+            };
+            case "<=" -> product -> {
+                Comparable actual = getter.apply(product);
+                return actual != null && actual.compareTo(value) <= 0;
+            };
+            case ">" -> product -> {
+                Comparable actual = getter.apply(product);
+                return actual != null && actual.compareTo(value) > 0;
+            };
+            case ">=" -> product -> {
+                Comparable actual = getter.apply(product);
+                return actual != null && actual.compareTo(value) >= 0;
+            };
+            default -> throw new IllegalStateException("Unknown operator " + operator);
+        };
+        return new Condition(predicate, EnumSet.of(field));
+    }
+
+    /** Reads a literal of the field's type. */
+    private Comparable<?> literal(ProductField field) {
+        Comparable<?> value = switch (field.type) {
+            case TEXT -> {
+                if (type != TokenType.STRING) {
+                    throw error("Expected a quoted text for " + field.fieldName);
+                }
+                yield text;
+            }
+            case NUMBER -> {
+                if (type != TokenType.NUMBER) {
+                    throw error("Expected a number for " + field.fieldName);
+                }
+                yield Double.parseDouble(text);
+            }
+            case BOOLEAN -> {
+                if (!isKeyword("true") && !isKeyword("false")) {
+                    throw error("Expected true or false for " + field.fieldName);
+                }
+                yield Boolean.parseBoolean(text);
+            }
+            case TIMESTAMP -> {
+                if (type != TokenType.STRING) {
+                    throw error("Expected a quoted timestamp for " + field.fieldName);
+                }
+                yield timestamp(text);
+            }
+        };
+        next();
+        return value;
+    }
+
+    private LocalDateTime timestamp(String value) {
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw error("Invalid timestamp '" + value + "'");
+        }
+    }
+
+    private boolean isKeyword(String keyword) {
+        return type == TokenType.KEYWORD && text.equals(keyword);
+    }
+
+    private void expect(TokenType expected, String description) {
+        if (type != expected) {
+            throw error("Expected " + description + " but found '" + text + "'");
+        }
+        next();
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid filter at position " + (tokenStart + 1) + ": " + message);
+    }
+
+    // --- tokenizer ---
+
+    private void next() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        tokenStart = position;
+        if (position == input.length()) {
+            type = TokenType.END;
+            text = "end of filter";
+            return;
+        }
+        char c = input.charAt(position);
+        if (Character.isLetter(c) || c == '_') {
+            while (position < input.length()
+                    && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_')) {
+                position++;
+            }
+            text = input.substring(tokenStart, position);
+            String keyword = text.toLowerCase(Locale.ROOT);
+            if (KEYWORDS.contains(keyword)) {
+                type = TokenType.KEYWORD;
+                text = keyword;
+            } else {
+                type = TokenType.IDENTIFIER;
+            }
+        } else if (Character.isDigit(c) || ((c == '-' || c == '.') && position + 1 < input.length()
+                && (Character.isDigit(input.charAt(position + 1)) || input.charAt(position + 1) == '.'))) {
+            number();
+        } else if (c == '\'') {
+            string();
+        } else if (c == '(' || c == ')' || c == ',') {
+            position++;
+            type = c == '(' ? TokenType.LEFT_PAREN : c == ')' ? TokenType.RIGHT_PAREN : TokenType.COMMA;
+            text = String.valueOf(c);
+        } else {
+            operator();
+        }
+    }
+
+    private void number() {
+        if (input.charAt(position) == '-') {
+            position++;
+        }
+        while (position < input.length() && (Character.isDigit(input.charAt(position)) || input.charAt(position) == '.')) {
+            position++;
+        }
+        if (position < input.length() && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+            position++;
+            if (position < input.length() && (input.charAt(position) == '+' || input.charAt(position) == '-')) {
+                position++;
+            }
+            while (position < input.length() && Character.isDigit(input.charAt(position))) {
+                position++;
+            }
+        }
+        type = TokenType.NUMBER;
+        text = input.substring(tokenStart, position);
+        try {
+            Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number '" + text + "'");
+        }
+    }
+
+    /** Single-quoted text; a quote inside is written twice. */
+    private void string() {
+        StringBuilder value = new StringBuilder();
+        position++;
+        while (true) {
+            if (position == input.length()) {
+                throw error("Unterminated text");
+            }
+            char c = input.charAt(position++);
+            if (c == '\'') {
+                if (position < input.length() && input.charAt(position) == '\'') {
+                    value.append('\'');
+                    position++;
+                } else {
+                    break;
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        type = TokenType.STRING;
+        text = value.toString();
+    }
+
+    private void operator() {
+        String rest = input.substring(position);
+        for (String operator : new String[]{"<=", ">=", "!=", "<>", "==", "=", "<", ">"}) {
+            if (rest.startsWith(operator)) {
+                position += operator.length();
+                type = TokenType.OPERATOR;
+                text = switch (operator) {
+                    case "<>" -> "!=";
+                    case "==" -> "=";
+                    default -> operator;
+                };
+                return;
+            }
+        }
+        throw error("Unexpected character '" + input.charAt(position) + "'");
+    }
+}
@@ -0,0 +1,206 @@
+package com.longineers.batcher.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.annotation.AfterChunk;
+import org.springframework.batch.core.annotation.AfterProcess;
+import org.springframework.batch.core.annotation.AfterRead;
+import org.springframework.batch.core.annotation.AfterWrite;
+import org.springframework.batch.core.annotation.BeforeChunk;
+import org.springframework.batch.core.annotation.BeforeProcess;
+import org.springframework.batch.core.annotation.BeforeRead;
+import org.springframework.batch.core.annotation.BeforeWrite;
+import org.springframework.batch.core.annotation.OnProcessError;
+import org.springframework.batch.core.annotation.OnReadError;
+import org.springframework.batch.core.annotation.OnWriteError;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes per-chunk metrics of the import steps:
+ * <ul>
+ *     <li>{@code batcher.chunk.read}, {@code batcher.chunk.process}, {@code batcher.chunk.write}: time spent
+ *     in each stage for one chunk,</li>
+ *     <li>{@code batcher.chunk.commit}: latency of the chunk's transaction commit,</li>
+ *     <li>{@code batcher.items.filtered}: items dropped by the processor, i.e. by {@code filterProcessor},</li>
+ *     <li>{@code batcher.jvm.allocation.rate}: bytes per second allocated by the JVM during the last chunk.</li>
+ * </ul>
+ * Timers publish histogram buckets. Partition workers are tagged with the name of the worker step, without
+ * the partition suffix. Chunk state is kept per thread, so one instance serves concurrent partitions.
+ */
+public class ChunkMetricsListener {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong allocationRate = new AtomicLong();
+    private final ThreadLocal<ChunkSample> samples = ThreadLocal.withInitial(ChunkSample::new);
+
+    public ChunkMetricsListener(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("batcher.jvm.allocation.rate", allocationRate, AtomicLong::get)
+                .description("Bytes allocated per second by all JVM threads, sampled over the last chunk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @BeforeChunk
+    public void beforeChunk(ChunkContext chunkContext) {
+        ChunkSample sample = samples.get();
+        sample.step = stepTag(chunkContext.getStepContext().getStepName());
+        sample.readNanos = 0;
+        sample.processNanos = 0;
+        sample.writeNanos = 0;
+        sample.filtered = 0;
+        sample.chunkStart = System.nanoTime();
+        sample.allocatedAtStart = allocatedBytes();
+    }
+
+    @BeforeRead
+    public void beforeRead() {
+        samples.get().readStart = System.nanoTime();
+    }
+
+    @AfterRead
+    public void afterRead(Object item) {
+        ChunkSample sample = samples.get();
+        sample.readNanos += System.nanoTime() - sample.readStart;
+    }
+
+    @OnReadError
+    public void onReadError(Exception e) {
+        afterRead(null);
+    }
+
+    @BeforeProcess
+    public void beforeProcess(Object item) {
+        samples.get().processStart = System.nanoTime();
+    }
+
+    @AfterProcess
+    public void afterProcess(Object item, Object result) {
+        ChunkSample sample = samples.get();
+        sample.processNanos += System.nanoTime() - sample.processStart;
+        if (result == null) {
+            sample.filtered++;
+        }
+    }
+
+    @OnProcessError
+    public void onProcessError(Object item, Exception e) {
+        ChunkSample sample = samples.get();
+        sample.processNanos += System.nanoTime() - sample.processStart;
+    }
+
+    @BeforeWrite
+    public void beforeWrite(Chunk<?> items) {
+        samples.get().writeStart = System.nanoTime();
+    }
+
+    @AfterWrite
+    public void afterWrite(Chunk<?> items) {
+        ChunkSample sample = samples.get();
+        sample.writeNanos += System.nanoTime() - sample.writeStart;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new CommitTimer(sample.step));
+        }
+    }
+
+    @OnWriteError
+    public void onWriteError(Exception e, Chunk<?> items) {
+        ChunkSample sample = samples.get();
+        sample.writeNanos += System.nanoTime() - sample.writeStart;
+    }
+
+    @AfterChunk
+    public void afterChunk(ChunkContext chunkContext) {
+        ChunkSample sample = samples.get();
+        timer("batcher.chunk.read", sample.step).record(sample.readNanos, TimeUnit.NANOSECONDS);
+        timer("batcher.chunk.process", sample.step).record(sample.processNanos, TimeUnit.NANOSECONDS);
+        timer("batcher.chunk.write", sample.step).record(sample.writeNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("batcher.items.filtered")
+                .description("Items filtered out by the processor")
+                .tag("step", sample.step)
+                .register(meterRegistry)
+                .increment(sample.filtered);
+
+        long allocated = allocatedBytes();
+        long elapsed = System.nanoTime() - sample.chunkStart;
+        if (allocated >= 0 && sample.allocatedAtStart >= 0 && elapsed > 0) {
+            allocationRate.set(Math.max(0, allocated - sample.allocatedAtStart) * 1_000_000_000L / elapsed);
+        }
+    }
+
+    private Timer timer(String name, String step) {
+        return Timer.builder(name)
+                .tag("step", step)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /** Drops the {@code :partitionN} suffix of worker steps to keep the number of series bounded. */
+    private static String stepTag(String stepName) {
+        int separator = stepName.indexOf(':');
+        return separator < 0 ? stepName : stepName.substring(0, separator);
+    }
+
+    /**
+     * Bytes allocated so far by the live threads; {@code getTotalThreadAllocatedBytes} would also count
+     * threads that have ended, but needs Java 21. Threads that end during a chunk take their bytes with
+     * them, so the rate is a lower bound then.
+     */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()) {
+            long total = 0;
+            for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                if (bytes > 0) {
+                    total += bytes;
+                }
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    private static class ChunkSample {
+        private String step;
+        private long chunkStart;
+        private long allocatedAtStart;
+        private long readStart;
+        private long readNanos;
+        private long processStart;
+        private long processNanos;
+        private long writeStart;
+        private long writeNanos;
+        private int filtered;
+    }
+
+    private class CommitTimer implements TransactionSynchronization {
+
+        private final String step;
+        private long commitStart;
+
+        CommitTimer(String step) {
+            this.step = step;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            commitStart = System.nanoTime();
+        }
+
+        @Override
+        public void afterCommit() {
+            timer("batcher.chunk.commit", step).record(System.nanoTime() - commitStart, TimeUnit.NANOSECONDS);
+        }
+    }
+}
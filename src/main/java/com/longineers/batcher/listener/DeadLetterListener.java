@@ -0,0 +1,115 @@
+package com.longineers.batcher.listener;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the items a fault-tolerant step skips to a dead-letter CSV file with the columns
+ * {@code line,reason,input}: the line number and raw input of a rejected row, and why it was rejected.
+ *
+ * The file is named after the job execution and the step, so partition workers each write their
+ * own, and is only created once the first item is skipped. Its path is recorded in the step execution
+ * context under {@link #FILE_KEY}. One instance serves one step execution.
+ */
+public class DeadLetterListener implements SkipListener<Product, Product>, StepExecutionListener {
+
+    public static final String FILE_KEY = "deadLetter.file";
+
+    private static final String HEADER = "line,reason,input";
+
+    private final Path file;
+
+    private BufferedWriter writer;
+
+    public DeadLetterListener(Path directory, StepExecution stepExecution) {
+        String stepName = stepExecution.getStepName().replaceAll("[^A-Za-z0-9._-]", "_");
+        this.file = directory.resolve("job-" + stepExecution.getJobExecutionId() + "-" + stepName + ".csv");
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void onSkipInRead(Throwable t) {
+        if (t instanceof FlatFileParseException e) {
+            write(String.valueOf(e.getLineNumber()), reason(e), e.getInput());
+        } else {
+            write("", reason(t), "");
+        }
+    }
+
+    @Override
+    public void onSkipInProcess(Product item, Throwable t) {
+        write("", reason(t), String.valueOf(item.getUuid()));
+    }
+
+    @Override
+    public void onSkipInWrite(Product item, Throwable t) {
+        write("", reason(t), String.valueOf(item.getUuid()));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (writer != null) {
+            stepExecution.getExecutionContext().putString(FILE_KEY, file.toString());
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close " + file, e);
+            } finally {
+                writer = null;
+            }
+        }
+        return null;
+    }
+
+    /** The message of the mapping or validation error a reader wrapped, rather than the wrapper's own. */
+    private static String reason(Throwable t) {
+        Throwable cause = t instanceof FlatFileParseException && t.getCause() != null ? t.getCause() : t;
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private void write(String line, String reason, String input) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                boolean exists = Files.exists(file);
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (!exists) {
+                    writer.write(HEADER);
+                    writer.newLine();
+                }
+            }
+            writer.write(line);
+            writer.write(',');
+            writer.write(quote(reason));
+            writer.write(',');
+            writer.write(quote(input));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write dead letter to " + file, e);
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,99 @@
+package com.longineers.batcher.listener;
+
+import com.longineers.batcher.reader.IncrementalItemReader;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the {@code updatedAt} high-water mark of the import in the job execution context.
+ *
+ * A run that completes without a {@code categories} or {@code filter} parameter records the latest {@code updatedAt} it
+ * has read under {@link #HIGH_WATER_MARK_KEY}. A run launched with {@code incremental=true} looks up
+ * the mark of the most recent completed execution that recorded one and stores it under
+ * {@link #SINCE_KEY}, where the readers pick it up to skip older rows. A restart keeps the mark of
+ * the execution it restarts.
+ */
+public class HighWaterMarkListener implements JobExecutionListener {
+
+    public static final String HIGH_WATER_MARK_KEY = "incremental.high.water.mark";
+    public static final String SINCE_KEY = "incremental.since";
+
+    private static final int PAGE_SIZE = 50;
+
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+
+    public HighWaterMarkListener(JobExplorer jobExplorer, JobRepository jobRepository) {
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+        if (!"true".equals(jobExecution.getJobParameters().getString("incremental"))
+                || jobContext.containsKey(SINCE_KEY)) {
+            return;
+        }
+        String mark = lastHighWaterMark(jobExecution.getJobInstance().getJobName());
+        if (mark != null) {
+            jobContext.putString(SINCE_KEY, mark);
+            jobRepository.updateExecutionContext(jobExecution);
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED
+                || jobExecution.getJobParameters().getString("categories") != null
+                || jobExecution.getJobParameters().getString("filter") != null) {
+            return;
+        }
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+        LocalDateTime mark = jobContext.containsKey(SINCE_KEY) ? LocalDateTime.parse(jobContext.getString(SINCE_KEY)) : null;
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            ExecutionContext stepContext = stepExecution.getExecutionContext();
+            if (stepContext.containsKey(IncrementalItemReader.MAX_UPDATED_AT_KEY)) {
+                LocalDateTime stepMax = LocalDateTime.parse(stepContext.getString(IncrementalItemReader.MAX_UPDATED_AT_KEY));
+                if (mark == null || stepMax.isAfter(mark)) {
+                    mark = stepMax;
+                }
+            }
+        }
+        if (mark != null) {
+            jobContext.putString(HIGH_WATER_MARK_KEY, mark.toString());
+            jobRepository.updateExecutionContext(jobExecution);
+        }
+    }
+
+    /** Walks the job instances from newest to oldest until one has a completed execution with a mark. */
+    private String lastHighWaterMark(String jobName) {
+        for (int start = 0; ; start += PAGE_SIZE) {
+            List<JobInstance> instances = jobExplorer.getJobInstances(jobName, start, PAGE_SIZE);
+            for (JobInstance instance : instances) {
+                String mark = jobExplorer.getJobExecutions(instance).stream()
+                        .filter(execution -> execution.getStatus() == BatchStatus.COMPLETED)
+                        .filter(execution -> execution.getExecutionContext().containsKey(HIGH_WATER_MARK_KEY))
+                        .max(Comparator.comparing(JobExecution::getId))
+                        .map(execution -> execution.getExecutionContext().getString(HIGH_WATER_MARK_KEY))
+                        .orElse(null);
+                if (mark != null) {
+                    return mark;
+                }
+            }
+            if (instances.size() < PAGE_SIZE) {
+                return null;
+            }
+        }
+    }
+}
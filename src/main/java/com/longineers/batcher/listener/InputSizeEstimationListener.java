@@ -0,0 +1,86 @@
+package com.longineers.batcher.listener;
+
+import com.longineers.batcher.reader.CheckpointingInputStream;
+import com.longineers.batcher.reader.InputResources;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Estimates how many records the input holds from its size and the average length of the
+ * lines in its first megabyte, and stores the estimate in the job execution context so the
+ * status endpoint can compute an ETA while the job runs. The input is the {@code input} job
+ * parameter, or {@code defaultResource} without it; the estimates of several files are added up.
+ * Jobs launched with {@code format=json} and compressed input get no estimate.
+ */
+public class InputSizeEstimationListener implements JobExecutionListener {
+
+    public static final String ESTIMATED_TOTAL_ITEMS_KEY = "estimated.total.items";
+
+    private static final int SAMPLE_SIZE = 1 << 20;
+
+    private final Resource defaultResource;
+    private final InputResources inputResources;
+    private final JobRepository jobRepository;
+
+    public InputSizeEstimationListener(Resource defaultResource, InputResources inputResources, JobRepository jobRepository) {
+        this.defaultResource = defaultResource;
+        this.inputResources = inputResources;
+        this.jobRepository = jobRepository;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        if ("json".equals(jobExecution.getJobParameters().getString("format"))) {
+            return;
+        }
+        try {
+            long estimate = 0;
+            for (Resource resource : inputResources.resolve(jobExecution.getJobParameters().getString("input"), defaultResource)) {
+                if (CheckpointingInputStream.Codec.detect(resource) != CheckpointingInputStream.Codec.NONE) {
+                    return;
+                }
+                estimate += estimateRecords(resource);
+            }
+            jobExecution.getExecutionContext().putLong(ESTIMATED_TOTAL_ITEMS_KEY, estimate);
+            jobRepository.updateExecutionContext(jobExecution);
+        } catch (IOException | IllegalArgumentException e) {
+            // No estimate means no ETA; the import itself reports a missing or unreadable input.
+        }
+    }
+
+    static long estimateRecords(Resource resource) throws IOException {
+        long size = resource.contentLength();
+        byte[] sample = new byte[SAMPLE_SIZE];
+        int length;
+        try (InputStream in = resource.getInputStream()) {
+            length = in.readNBytes(sample, 0, sample.length);
+        }
+        int lines = 0;
+        int headerEnd = -1;
+        for (int i = 0; i < length; i++) {
+            if (sample[i] == '\n') {
+                if (headerEnd < 0) {
+                    headerEnd = i + 1;
+                } else {
+                    lines++;
+                }
+            }
+        }
+        if (headerEnd < 0) {
+            return 0;
+        }
+        if (length == size) {
+            return lines + (length > headerEnd && sample[length - 1] != '\n' ? 1 : 0);
+        }
+        if (lines == 0) {
+            return 0;
+        }
+        double bytesPerLine = (double) (length - headerEnd) / lines;
+        return Math.round((size - headerEnd) / bytesPerLine);
+    }
+}
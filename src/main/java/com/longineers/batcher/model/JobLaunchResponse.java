@@ -0,0 +1,11 @@
+package com.longineers.batcher.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class JobLaunchResponse {
+    private final Long jobExecutionId;
+    private final String status;
+}
@@ -0,0 +1,33 @@
+package com.longineers.batcher.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of one job execution as recorded in the BATCH_* tables. Counts are summed over the
+ * steps that process items; {@code estimatedTotalItems} and {@code etaSeconds} are null when
+ * the input size could not be estimated or the job is no longer running. The inserted, updated and
+ * unchanged counts are only reported by the {@code upsert} writer mode and are null otherwise.
+ */
+@Data
+@Builder
+public class JobProgress {
+    private final Long jobExecutionId;
+    private final String jobName;
+    private final String status;
+    private final String exitCode;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final long readCount;
+    private final long writeCount;
+    private final long filterCount;
+    private final long skipCount;
+    private final double rowsPerSecond;
+    private final Long estimatedTotalItems;
+    private final Long etaSeconds;
+    private final Long insertedCount;
+    private final Long updatedCount;
+    private final Long unchangedCount;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.Data;
 import java.util.UUID;
@@ -19,8 +20,12 @@ import lombok.AllArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
+    /** Ids reserved per sequence call; must match the increment of {@code products_id_pooled_seq}. */
+    public static final int ID_ALLOCATION_SIZE = 1000;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id_pooled_seq")
+    @SequenceGenerator(name = "products_id_pooled_seq", sequenceName = "products_id_pooled_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private UUID uuid;
     private String name;
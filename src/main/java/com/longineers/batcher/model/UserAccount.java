@@ -0,0 +1,29 @@
+package com.longineers.batcher.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@Table(name = "users")
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAccount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String username;
+    /** BCrypt hash, computed when the user is created and never on lookup. */
+    private String passwordHash;
+    /** Comma-separated role names without the {@code ROLE_} prefix. */
+    private String roles;
+    private boolean enabled;
+}
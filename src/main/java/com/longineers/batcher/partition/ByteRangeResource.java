@@ -0,0 +1,103 @@
+package com.longineers.batcher.partition;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Exposes the bytes {@code [start, end)} of another resource, so a standard
+ * {@code FlatFileItemReader} can read one partition produced by {@link CsvByteRangePartitioner}.
+ */
+public class ByteRangeResource extends AbstractResource {
+
+    private final Resource delegate;
+    private final long start;
+    private final long end;
+
+    public ByteRangeResource(Resource delegate, long start, long end) {
+        this.delegate = delegate;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public long contentLength() {
+        return end - start;
+    }
+
+    @Override
+    public String getDescription() {
+        return "bytes [" + start + ", " + end + ") of " + delegate.getDescription();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = delegate.getInputStream();
+        try {
+            in.skipNBytes(start);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BoundedInputStream(in, end - start);
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.longineers.batcher.partition;
+
+import com.longineers.batcher.reader.CheckpointingInputStream;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits a CSV file into byte ranges that start and end on record boundaries.
+ *
+ * The header record is excluded from every range, and newlines inside quoted fields are not
+ * treated as boundaries. Only the part of the file up to the last split point is scanned.
+ * The ranges depend only on the file, so a restart gets the same partition names and offsets.
+ */
+public class CsvByteRangePartitioner implements Partitioner {
+
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Resource resource;
+    private final int partitions;
+
+    public CsvByteRangePartitioner(Resource resource, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1 but was " + partitions);
+        }
+        this.resource = resource;
+        this.partitions = partitions;
+    }
+
+    /** The configured partition count is used instead of {@code gridSize} so it can vary per job launch. */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        List<Long> boundaries;
+        try {
+            if (CheckpointingInputStream.Codec.detect(resource) != CheckpointingInputStream.Codec.NONE) {
+                throw new ItemStreamException("Compressed input cannot be split into byte ranges: " + resource.getDescription());
+            }
+            boundaries = boundaries(resource, partitions);
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to split " + resource.getDescription(), e);
+        }
+
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+        for (int i = 0; i < boundaries.size() - 1; i++) {
+            ExecutionContext context = new ExecutionContext();
+            context.putLong(START_OFFSET_KEY, boundaries.get(i));
+            context.putLong(END_OFFSET_KEY, boundaries.get(i + 1));
+            result.put("partition" + i, context);
+        }
+        return result;
+    }
+
+    /**
+     * Returns ascending offsets: the first is the end of the header, the last is the file size
+     * and each one in between is the start of a record.
+     */
+    static List<Long> boundaries(Resource resource, int partitions) throws IOException {
+        long size = resource.contentLength();
+        List<Long> boundaries = new ArrayList<>(partitions + 1);
+        long headerEnd = -1;
+        long step = 0;
+        long nextTarget = Long.MAX_VALUE;
+        boolean inQuotes = false;
+
+        try (InputStream in = resource.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            int read;
+            scan:
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n' && !inQuotes) {
+                        long recordStart = position + i + 1;
+                        if (headerEnd < 0) {
+                            headerEnd = recordStart;
+                            boundaries.add(headerEnd);
+                            step = (size - headerEnd) / partitions;
+                            nextTarget = headerEnd + step;
+                        } else if (recordStart >= nextTarget && recordStart < size) {
+                            boundaries.add(recordStart);
+                            nextTarget = headerEnd + step * boundaries.size();
+                        }
+                        if (boundaries.size() == partitions) {
+                            break scan;
+                        }
+                    }
+                }
+                position += read;
+            }
+        }
+
+        if (headerEnd < 0) {
+            boundaries.add(size);
+        }
+        boundaries.add(size);
+        return boundaries;
+    }
+}
@@ -0,0 +1,65 @@
+package com.longineers.batcher.partition;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Creates one partition per input file, so that each file is imported by its own worker step.
+ *
+ * Each partition records the URI of its file under {@link #FILE_KEY}. On restart Spring Batch hands a
+ * failed worker the execution context it saved, so the worker resumes the same file where it stopped
+ * even if the files matching the input have changed since.
+ */
+public class FilePartitioner implements Partitioner {
+
+    public static final String FILE_KEY = "input.file";
+
+    private final Resource[] resources;
+
+    public FilePartitioner(Resource[] resources) {
+        if (resources.length == 0) {
+            throw new IllegalArgumentException("No input files to partition");
+        }
+        this.resources = resources;
+    }
+
+    /** One partition per file regardless of {@code gridSize}; the thread pool bounds how many run at once. */
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> result = new LinkedHashMap<>();
+        for (int i = 0; i < resources.length; i++) {
+            ExecutionContext context = new ExecutionContext();
+            try {
+                context.putString(FILE_KEY, resources[i].getURI().toString());
+            } catch (IOException e) {
+                throw new ItemStreamException("Unable to locate " + resources[i].getDescription(), e);
+            }
+            result.put("file" + i, context);
+        }
+        return result;
+    }
+
+    /** Resolves a URI recorded under {@link #FILE_KEY} back to the file it names. */
+    public static Resource resource(String uri) {
+        URI location = URI.create(uri);
+        if ("file".equals(location.getScheme())) {
+            return new FileSystemResource(Path.of(location));
+        }
+        try {
+            return new UrlResource(location);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid input file " + uri, e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.longineers.batcher.pipeline;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the reader and the processor of a chunk-oriented step on two threads of their own, so that
+ * parsing, processing and the writes done by the step thread overlap.
+ *
+ * The stages hand batches of {@code batchSize} items to each other through bounded queues of
+ * {@code queueCapacity} batches; a stage that gets ahead blocks until the next one catches up.
+ * The step reads {@link ProcessedItem}s and unwraps them with {@code ProcessedItem::item}, so items
+ * filtered by the processor still count as filtered and a chunk still holds {@code commit-interval}
+ * read items. Only the writer runs in the chunk transaction.
+ *
+ * For restarts, the reader thread takes a snapshot of the delegate's execution context after each
+ * batch. {@link #update(ExecutionContext)} saves the snapshot of the last batch the step has fully
+ * consumed, plus the number of items taken from the batch after it, which are skipped again on
+ * restart.
+ *
+ * Per stage, time spent waiting on a queue is recorded in the {@code batcher.pipeline.stall} timer and
+ * the number of batches waiting in each queue in the {@code batcher.pipeline.queue.depth} gauge. The
+ * stage that limits throughput is the one that waits least.
+ */
+public class PipelinedItemReader<I, O> extends ItemStreamSupport implements ItemStreamReader<PipelinedItemReader.ProcessedItem<O>> {
+
+    /** An item after processing; {@code item} is null if the processor filtered it. */
+    public record ProcessedItem<O>(O item) { }
+
+    private record Batch<T>(List<T> items, ExecutionContext snapshot, boolean last, Throwable failure) {
+        static <T> Batch<T> failed(Throwable failure) {
+            return new Batch<>(List.of(), null, true, failure);
+        }
+    }
+
+    private static final String SKIP_KEY = "skip";
+
+    private final ItemStreamReader<? extends I> delegate;
+    private final ItemProcessor<? super I, ? extends O> processor;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final StepExecution stepExecution;
+    private final MeterRegistry meterRegistry;
+
+    private BlockingQueue<Batch<I>> readQueue;
+    private BlockingQueue<Batch<ProcessedItem<O>>> processedQueue;
+    private Thread readerThread;
+    private Thread processorThread;
+    private final List<Meter> gauges = new ArrayList<>();
+    private Timer readerOutputStall;
+    private Timer processorInputStall;
+    private Timer processorOutputStall;
+    private Timer writerInputStall;
+
+    private Batch<ProcessedItem<O>> current;
+    private int position;
+    private ExecutionContext lastSnapshot;
+    private int lastSnapshotSkip;
+
+    public PipelinedItemReader(ItemStreamReader<? extends I> delegate,
+                               ItemProcessor<? super I, ? extends O> processor,
+                               int batchSize,
+                               int queueCapacity,
+                               StepExecution stepExecution,
+                               MeterRegistry meterRegistry) {
+        if (batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("batchSize and queueCapacity must be at least 1");
+        }
+        this.delegate = delegate;
+        this.processor = processor;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.stepExecution = stepExecution;
+        this.meterRegistry = meterRegistry;
+        setName(ClassUtils.getShortName(PipelinedItemReader.class));
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        lastSnapshot = new ExecutionContext();
+        delegate.update(lastSnapshot);
+        lastSnapshotSkip = executionContext.getInt(getExecutionContextKey(SKIP_KEY), 0);
+        current = null;
+        position = 0;
+
+        String stepName = stepExecution.getStepName();
+        readQueue = new ArrayBlockingQueue<>(queueCapacity);
+        processedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        gauges.add(queueDepth(stepName, "read", readQueue));
+        gauges.add(queueDepth(stepName, "processed", processedQueue));
+        readerOutputStall = stall(stepName, "read", "output");
+        processorInputStall = stall(stepName, "process", "input");
+        processorOutputStall = stall(stepName, "process", "output");
+        writerInputStall = stall(stepName, "write", "input");
+
+        int skip = lastSnapshotSkip;
+        readerThread = new Thread(() -> runInStep(() -> readLoop(skip)), stepName + "-read");
+        processorThread = new Thread(() -> runInStep(this::processLoop), stepName + "-process");
+        readerThread.setDaemon(true);
+        processorThread.setDaemon(true);
+        readerThread.start();
+        processorThread.start();
+    }
+
+    @Override
+    public ProcessedItem<O> read() throws Exception {
+        while (current == null || position == current.items().size()) {
+            if (current != null) {
+                lastSnapshot = current.snapshot();
+                lastSnapshotSkip = 0;
+                if (current.last()) {
+                    return null;
+                }
+            }
+            Batch<ProcessedItem<O>> next = take(processedQueue, writerInputStall);
+            if (next.failure() != null) {
+                if (next.failure() instanceof Exception e) {
+                    throw e;
+                }
+                throw (Error) next.failure();
+            }
+            current = next;
+            position = 0;
+        }
+        return current.items().get(position++);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        ExecutionContext snapshot = lastSnapshot;
+        int skip = lastSnapshotSkip + position;
+        if (current != null && position == current.items().size()) {
+            snapshot = current.snapshot();
+            skip = 0;
+        }
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            executionContext.put(entry.getKey(), entry.getValue());
+        }
+        executionContext.putInt(getExecutionContextKey(SKIP_KEY), skip);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        try {
+            stop(readerThread);
+            stop(processorThread);
+        } finally {
+            gauges.forEach(meterRegistry::remove);
+            gauges.clear();
+            readerThread = null;
+            processorThread = null;
+            delegate.close();
+        }
+    }
+
+    private void readLoop(int skip) throws Exception {
+        try {
+            for (int i = 0; i < skip && delegate.read() != null; i++) {
+                // already committed before the restart
+            }
+            boolean last = false;
+            while (!last) {
+                List<I> items = new ArrayList<>(batchSize);
+                while (items.size() < batchSize) {
+                    I item = delegate.read();
+                    if (item == null) {
+                        last = true;
+                        break;
+                    }
+                    items.add(item);
+                }
+                ExecutionContext snapshot = new ExecutionContext();
+                delegate.update(snapshot);
+                put(readQueue, new Batch<>(items, snapshot, last, null), readerOutputStall);
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Throwable e) {
+            put(readQueue, Batch.failed(e), readerOutputStall);
+        }
+    }
+
+    private void processLoop() throws Exception {
+        while (true) {
+            Batch<I> batch = take(readQueue, processorInputStall);
+            Batch<ProcessedItem<O>> processed;
+            if (batch.failure() != null) {
+                processed = Batch.failed(batch.failure());
+            } else {
+                try {
+                    List<ProcessedItem<O>> items = new ArrayList<>(batch.items().size());
+                    for (I item : batch.items()) {
+                        items.add(new ProcessedItem<>(processor.process(item)));
+                    }
+                    processed = new Batch<>(items, batch.snapshot(), batch.last(), null);
+                } catch (Throwable e) {
+                    processed = Batch.failed(e);
+                }
+            }
+            put(processedQueue, processed, processorOutputStall);
+            if (processed.last()) {
+                return;
+            }
+        }
+    }
+
+    /** Binds the step scope to the stage thread, so step-scoped delegates resolve as on the step thread. */
+    private void runInStep(StageLoop loop) {
+        StepSynchronizationManager.register(stepExecution);
+        try {
+            loop.run();
+        } catch (InterruptedException e) {
+            // closed by the step thread
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            StepSynchronizationManager.release();
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T batch, Timer stall) throws InterruptedException {
+        if (!queue.offer(batch)) {
+            long start = System.nanoTime();
+            queue.put(batch);
+            stall.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static <T> T take(BlockingQueue<T> queue, Timer stall) throws InterruptedException {
+        T batch = queue.poll();
+        if (batch == null) {
+            long start = System.nanoTime();
+            batch = queue.take();
+            stall.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return batch;
+    }
+
+    private static void stop(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Meter queueDepth(String stepName, String queue, Collection<?> items) {
+        return Gauge.builder("batcher.pipeline.queue.depth", items, Collection::size)
+                .description("Batches waiting in a pipeline queue")
+                .tag("step", stepName)
+                .tag("queue", queue)
+                .register(meterRegistry);
+    }
+
+    private Timer stall(String stepName, String stage, String waitingFor) {
+        return Timer.builder("batcher.pipeline.stall")
+                .description("Time a pipeline stage spent waiting on its input or output queue")
+                .tag("step", stepName)
+                .tag("stage", stage)
+                .tag("waiting.for", waitingFor)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface StageLoop {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,91 @@
+package com.longineers.batcher.reader;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Decompresses a gzip or zstd stream and reports a {@link Checkpoint} at the start of every gzip
+ * member or zstd frame: a point where decompression can start afresh without the bytes before it.
+ *
+ * Files written as one member or frame have a single checkpoint at the start. Files written as many,
+ * for example by {@code bgzip} or {@code pzstd}, can be resumed close to any decompressed offset.
+ */
+public abstract class CheckpointingInputStream extends InputStream {
+
+    /** Read buffer for the compressed input. */
+    static final int BUFFER_SIZE = 1 << 20;
+
+    /** A member or frame boundary: the offset in the compressed file and the decompressed bytes before it. */
+    public record Checkpoint(long compressedOffset, long decompressedOffset) {
+        public static final Checkpoint START = new Checkpoint(0, 0);
+    }
+
+    public enum Codec {
+        NONE, GZIP, ZSTD;
+
+        /** Detects the codec from the magic bytes at the start of the resource. */
+        public static Codec detect(Resource resource) throws IOException {
+            if (!resource.exists()) {
+                return NONE;
+            }
+            byte[] magic;
+            try (InputStream in = resource.getInputStream()) {
+                magic = in.readNBytes(4);
+            }
+            if (magic.length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+                return GZIP;
+            }
+            if (magic.length == 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                    && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+                return ZSTD;
+            }
+            return NONE;
+        }
+    }
+
+    protected final InputStream compressed;
+    protected final Consumer<Checkpoint> onCheckpoint;
+    protected long compressedOffset;
+    protected long decompressedOffset;
+
+    protected CheckpointingInputStream(InputStream compressed, Checkpoint start, Consumer<Checkpoint> onCheckpoint) {
+        this.compressed = compressed;
+        this.onCheckpoint = onCheckpoint;
+        this.compressedOffset = start.compressedOffset();
+        this.decompressedOffset = start.decompressedOffset();
+    }
+
+    /**
+     * Opens {@code resource} at {@code start}, which must be a checkpoint reported earlier or
+     * {@link Checkpoint#START}.
+     */
+    public static CheckpointingInputStream open(Resource resource, Codec codec, Checkpoint start,
+                                                Consumer<Checkpoint> onCheckpoint) throws IOException {
+        InputStream in = resource.getInputStream();
+        try {
+            in.skipNBytes(start.compressedOffset());
+            return switch (codec) {
+                case GZIP -> new GzipMemberInputStream(in, start, onCheckpoint);
+                case ZSTD -> new ZstdFrameInputStream(in, start, onCheckpoint);
+                case NONE -> throw new IllegalArgumentException("Input is not compressed");
+            };
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        compressed.close();
+    }
+}
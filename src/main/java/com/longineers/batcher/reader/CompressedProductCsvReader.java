@@ -0,0 +1,220 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.reader.CheckpointingInputStream.Checkpoint;
+import com.longineers.batcher.reader.CheckpointingInputStream.Codec;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
+import org.springframework.batch.item.file.separator.RecordSeparatorPolicy;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.Predicate;
+
+/**
+ * Reads a gzip or zstd compressed product feed, decompressing while it streams, with the same
+ * record separator policy, tokenizer and mapper as the {@code FlatFileItemReader} of the plain feed.
+ *
+ * The decompressed offset of the next record is tracked as the reader advances, and the execution
+ * context saves it together with the last {@link Checkpoint} before it: the compressed offset of a
+ * gzip member or zstd frame and the decompressed offset at which it starts. A restart resumes
+ * decompression at that checkpoint and discards the bytes up to the saved offset without parsing
+ * them. Files written as a single member or frame resume from the start of the file.
+ */
+public class CompressedProductCsvReader extends ItemStreamSupport implements ItemStreamReader<Product> {
+
+    private static final String POSITION_KEY = "position";
+    private static final String READ_COUNT_KEY = "read.count";
+    private static final String LINE_KEY = "line";
+    private static final String CHECKPOINT_COMPRESSED_KEY = "checkpoint.compressed";
+    private static final String CHECKPOINT_DECOMPRESSED_KEY = "checkpoint.decompressed";
+
+    private final Resource resource;
+    private final Codec codec;
+    private final RecordSeparatorPolicy recordSeparatorPolicy = new DefaultRecordSeparatorPolicy();
+    private final DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+    private final ProductFieldSetMapper fieldSetMapper = new ProductFieldSetMapper();
+    private final Deque<Checkpoint> pendingCheckpoints = new ArrayDeque<>();
+    private Checkpoint checkpoint;
+
+    private CheckpointingInputStream input;
+    private final byte[] buffer = new byte[CheckpointingInputStream.BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLimit;
+    private byte[] line = new byte[1024];
+
+    private long position;
+    private long readCount;
+    private long lineNumber;
+
+    public CompressedProductCsvReader(Resource resource, Codec codec) {
+        this.resource = resource;
+        this.codec = codec;
+        this.tokenizer.setNames(ProductFieldSetMapper.NAMES);
+        setName(ClassUtils.getShortName(CompressedProductCsvReader.class));
+    }
+
+    /** See {@link ProductFieldSetMapper#setReaderFilter}. */
+    public void setReaderFilter(Predicate<Product> readerFilter) {
+        fieldSetMapper.setReaderFilter(readerFilter);
+    }
+
+    /** See {@link ProductFieldSetMapper#setDictionary}. */
+    public void setDictionary(ProductDictionary dictionary) {
+        fieldSetMapper.setDictionary(dictionary);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        pendingCheckpoints.clear();
+        bufferPosition = 0;
+        bufferLimit = 0;
+        try {
+            if (executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+                position = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+                readCount = executionContext.getLong(getExecutionContextKey(READ_COUNT_KEY));
+                lineNumber = executionContext.getLong(getExecutionContextKey(LINE_KEY));
+                checkpoint = new Checkpoint(
+                        executionContext.getLong(getExecutionContextKey(CHECKPOINT_COMPRESSED_KEY)),
+                        executionContext.getLong(getExecutionContextKey(CHECKPOINT_DECOMPRESSED_KEY)));
+                input = CheckpointingInputStream.open(resource, codec, checkpoint, pendingCheckpoints::addLast);
+                discard(position - checkpoint.decompressedOffset());
+            } else {
+                position = 0;
+                readCount = 0;
+                lineNumber = 0;
+                checkpoint = Checkpoint.START;
+                input = CheckpointingInputStream.open(resource, codec, checkpoint, pendingCheckpoints::addLast);
+                readRecord(); // header
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource.getDescription(), e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        advanceCheckpoint();
+        executionContext.putLong(getExecutionContextKey(POSITION_KEY), position);
+        executionContext.putLong(getExecutionContextKey(READ_COUNT_KEY), readCount);
+        executionContext.putLong(getExecutionContextKey(LINE_KEY), lineNumber);
+        executionContext.putLong(getExecutionContextKey(CHECKPOINT_COMPRESSED_KEY), checkpoint.compressedOffset());
+        executionContext.putLong(getExecutionContextKey(CHECKPOINT_DECOMPRESSED_KEY), checkpoint.decompressedOffset());
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + resource.getDescription(), e);
+            } finally {
+                input = null;
+            }
+        }
+    }
+
+    @Override
+    public Product read() throws IOException {
+        String record;
+        while ((record = readRecord()) != null) {
+            if (record.isEmpty()) {
+                continue; // blank line
+            }
+            readCount++;
+            try {
+                return fieldSetMapper.mapFieldSet(tokenizer.tokenize(record));
+            } catch (RuntimeException e) {
+                throw new FlatFileParseException("Parsing error at line: " + lineNumber + " in resource=["
+                        + resource.getDescription() + "], input=[" + record + "]", e, record, (int) lineNumber);
+            }
+        }
+        return null;
+    }
+
+    /** Moves to the latest checkpoint reported by the input at or before the next record. */
+    private void advanceCheckpoint() {
+        while (!pendingCheckpoints.isEmpty() && pendingCheckpoints.peekFirst().decompressedOffset() <= position) {
+            checkpoint = pendingCheckpoints.removeFirst();
+        }
+    }
+
+    /** Joins physical lines until the record separator policy sees the end of a record. */
+    private String readRecord() throws IOException {
+        String record = readLine();
+        if (record == null) {
+            return null;
+        }
+        while (!recordSeparatorPolicy.isEndOfRecord(record)) {
+            String next = readLine();
+            if (next == null) {
+                throw new FlatFileParseException("Unexpected end of file before record complete at line: "
+                        + lineNumber + " in resource=[" + resource.getDescription() + "]", record, (int) lineNumber);
+            }
+            record = recordSeparatorPolicy.preProcess(record) + next;
+        }
+        return recordSeparatorPolicy.postProcess(record);
+    }
+
+    /** Reads one line of decompressed bytes, without its line terminator. */
+    private String readLine() throws IOException {
+        int length = 0;
+        while (true) {
+            if (bufferPosition == bufferLimit && !refill()) {
+                if (length == 0) {
+                    return null;
+                }
+                break;
+            }
+            byte b = buffer[bufferPosition++];
+            position++;
+            if (b == '\n') {
+                break;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[length++] = b;
+        }
+        lineNumber++;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private boolean refill() throws IOException {
+        int n = input.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = n;
+        return true;
+    }
+
+    private void discard(long bytes) throws IOException {
+        long remaining = bytes;
+        while (remaining > 0) {
+            int n = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n < 0) {
+                throw new IOException("Input ends before the saved position " + position);
+            }
+            remaining -= n;
+        }
+    }
+}
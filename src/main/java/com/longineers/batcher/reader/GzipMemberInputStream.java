@@ -0,0 +1,165 @@
+package com.longineers.batcher.reader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates a gzip file member by member with a raw {@link Inflater}, unlike
+ * {@link java.util.zip.GZIPInputStream}, so that the compressed offset of every member is known.
+ */
+class GzipMemberInputStream extends CheckpointingInputStream {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private int bufferPosition;
+    private int bufferLimit;
+    private boolean inMember;
+    private boolean finished;
+
+    GzipMemberInputStream(InputStream compressed, Checkpoint start, Consumer<Checkpoint> onCheckpoint) {
+        super(compressed, start, onCheckpoint);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!finished) {
+            if (!inMember && !startMember()) {
+                finished = true;
+                break;
+            }
+            try {
+                if (inflater.needsInput()) {
+                    if (!fill()) {
+                        throw new EOFException("Unexpected end of gzip member");
+                    }
+                    inflater.setInput(buffer, bufferPosition, bufferLimit - bufferPosition);
+                }
+                int n = inflater.inflate(b, off, len);
+                consumeInflaterInput();
+                if (n > 0) {
+                    crc.update(b, off, n);
+                    decompressedOffset += n;
+                    if (inflater.finished()) {
+                        endMember();
+                    }
+                    return n;
+                }
+                if (inflater.finished()) {
+                    endMember();
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Unexpected preset dictionary in gzip member");
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Corrupt gzip member at offset " + compressedOffset + ": " + e.getMessage());
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        super.close();
+    }
+
+    /** Reads the header of the next member; false at the end of the file. */
+    private boolean startMember() throws IOException {
+        if (bufferPosition == bufferLimit && !fill()) {
+            return false;
+        }
+        onCheckpoint.accept(new Checkpoint(compressedOffset, decompressedOffset));
+        if (readUnsignedByte() != 0x1F || readUnsignedByte() != 0x8B) {
+            throw new ZipException("Not in gzip format at offset " + compressedOffset);
+        }
+        if (readUnsignedByte() != 8) {
+            throw new ZipException("Unsupported gzip compression method");
+        }
+        int flags = readUnsignedByte();
+        skip(6); // modification time, extra flags, operating system
+        if ((flags & FEXTRA) != 0) {
+            skip(readUnsignedByte() | readUnsignedByte() << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            while (readUnsignedByte() != 0) {
+                // file name
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readUnsignedByte() != 0) {
+                // comment
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skip(2);
+        }
+        inflater.reset();
+        crc.reset();
+        inMember = true;
+        return true;
+    }
+
+    /** Checks the trailer of the member just inflated. */
+    private void endMember() throws IOException {
+        long expectedCrc = readIntLittleEndian();
+        long expectedSize = readIntLittleEndian();
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException("Corrupt gzip trailer: CRC mismatch");
+        }
+        if (expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+            throw new ZipException("Corrupt gzip trailer: size mismatch");
+        }
+        inMember = false;
+    }
+
+    private void consumeInflaterInput() {
+        int consumed = bufferLimit - bufferPosition - inflater.getRemaining();
+        bufferPosition += consumed;
+        compressedOffset += consumed;
+    }
+
+    private boolean fill() throws IOException {
+        if (bufferPosition < bufferLimit) {
+            return true;
+        }
+        int n = compressed.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = n;
+        return true;
+    }
+
+    private int readUnsignedByte() throws IOException {
+        if (!fill()) {
+            throw new EOFException("Unexpected end of gzip member");
+        }
+        compressedOffset++;
+        return buffer[bufferPosition++] & 0xFF;
+    }
+
+    private long readIntLittleEndian() throws IOException {
+        return readUnsignedByte() | readUnsignedByte() << 8 | readUnsignedByte() << 16 | (long) readUnsignedByte() << 24;
+    }
+
+    private void skip(int bytes) throws IOException {
+        for (int i = 0; i < bytes; i++) {
+            readUnsignedByte();
+        }
+    }
+}
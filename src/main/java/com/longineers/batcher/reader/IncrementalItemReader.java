@@ -0,0 +1,89 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+
+import java.time.LocalDateTime;
+
+/**
+ * Drops products whose {@code updatedAt} is not after {@code since} right after they are parsed,
+ * before they reach the processors and the writer. Products without {@code updatedAt} are kept.
+ *
+ * With {@code sortedNewestFirst} the input is known to be ordered by descending {@code updatedAt},
+ * so reading stops at the first product that is not newer than {@code since}.
+ *
+ * Whether or not it filters, the reader records the latest {@code updatedAt} it has read and the
+ * number of products it dropped in the step execution context under {@link #MAX_UPDATED_AT_KEY}
+ * and {@link #SKIPPED_KEY}; the job turns the former into the high-water mark of the next run.
+ */
+public class IncrementalItemReader implements ItemStreamReader<Product> {
+
+    public static final String MAX_UPDATED_AT_KEY = "incremental.max.updated.at";
+    public static final String SKIPPED_KEY = "incremental.skipped";
+
+    private final ItemStreamReader<Product> delegate;
+    private final LocalDateTime since;
+    private final boolean sortedNewestFirst;
+
+    private LocalDateTime maxUpdatedAt;
+    private long skipped;
+    private boolean exhausted;
+
+    public IncrementalItemReader(ItemStreamReader<Product> delegate, LocalDateTime since, boolean sortedNewestFirst) {
+        this.delegate = delegate;
+        this.since = since;
+        this.sortedNewestFirst = sortedNewestFirst;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+        maxUpdatedAt = executionContext.containsKey(MAX_UPDATED_AT_KEY)
+                ? LocalDateTime.parse(executionContext.getString(MAX_UPDATED_AT_KEY))
+                : null;
+        skipped = executionContext.getLong(SKIPPED_KEY, 0);
+        exhausted = false;
+    }
+
+    @Override
+    public Product read() throws Exception {
+        if (exhausted) {
+            return null;
+        }
+        Product product;
+        while ((product = delegate.read()) != null) {
+            LocalDateTime updatedAt = product.getUpdatedAt();
+            if (updatedAt == null) {
+                return product;
+            }
+            if (maxUpdatedAt == null || updatedAt.isAfter(maxUpdatedAt)) {
+                maxUpdatedAt = updatedAt;
+            }
+            if (since == null || updatedAt.isAfter(since)) {
+                return product;
+            }
+            skipped++;
+            if (sortedNewestFirst) {
+                exhausted = true;
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+        if (maxUpdatedAt != null) {
+            executionContext.putString(MAX_UPDATED_AT_KEY, maxUpdatedAt.toString());
+        }
+        executionContext.putLong(SKIPPED_KEY, skipped);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        delegate.close();
+    }
+}
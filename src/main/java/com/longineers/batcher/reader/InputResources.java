@@ -0,0 +1,102 @@
+package com.longineers.batcher.reader;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the {@code input} job parameter to the files to import: a file path, a directory, whose
+ * regular files are all imported, or an Ant-style pattern such as {@code /data/feeds/*.csv.gz} or
+ * {@code /data/feeds/**}{@code /products-*.json}. Files are returned in {@link #PATH_ORDER} and are
+ * read from disk as they are imported.
+ *
+ * Only files under the input root, {@code batch.input-root}, may be imported. A relative location is
+ * resolved against the root, and a location that names or matches anything outside it, also through
+ * a symbolic link, is rejected.
+ */
+public final class InputResources {
+
+    /** Orders files by their full path, as they are imported one after the other. */
+    public static final Comparator<Resource> PATH_ORDER = Comparator.comparing(Resource::getDescription);
+
+    private static final ResourcePatternResolver RESOLVER = new PathMatchingResourcePatternResolver();
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final Path root;
+
+    public InputResources(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Resolves {@code location}, or returns {@code defaultResource} when no location is given.
+     *
+     * @throws IllegalArgumentException if nothing matches or the location reaches outside the input root
+     */
+    public Resource[] resolve(String location, Resource defaultResource) throws IOException {
+        if (location == null || location.isBlank()) {
+            return new Resource[] {defaultResource};
+        }
+        Path path = root.resolve(location).normalize();
+        requireUnderRoot(path, location);
+        Resource[] resources;
+        if (PATH_MATCHER.isPattern(location)) {
+            resources = Arrays.stream(RESOLVER.getResources("file:" + path))
+                    .filter(Resource::isFile)
+                    .map(InputResources::toFileSystemResource)
+                    .filter(resource -> Files.isRegularFile(resource.getFile().toPath()))
+                    .toArray(Resource[]::new);
+        } else if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                resources = files.filter(Files::isRegularFile)
+                        .map(FileSystemResource::new)
+                        .toArray(Resource[]::new);
+            }
+        } else if (Files.isRegularFile(path)) {
+            resources = new Resource[] {new FileSystemResource(path)};
+        } else {
+            throw new IllegalArgumentException("Input not found: " + location);
+        }
+        if (resources.length == 0) {
+            throw new IllegalArgumentException("No input files match " + location);
+        }
+        for (Resource resource : resources) {
+            requireUnderRoot(resource.getFile().toPath().toRealPath(), location);
+        }
+        Arrays.sort(resources, PATH_ORDER);
+        return resources;
+    }
+
+    private void requireUnderRoot(Path path, String location) {
+        if (!path.startsWith(root) && !path.startsWith(realRoot())) {
+            throw new IllegalArgumentException("Input " + location + " is outside the input root " + root);
+        }
+    }
+
+    private Path realRoot() {
+        try {
+            return Files.exists(root) ? root.toRealPath() : root;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot resolve the input root " + root, e);
+        }
+    }
+
+    private static FileSystemResource toFileSystemResource(Resource resource) {
+        try {
+            return new FileSystemResource(resource.getFile());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + resource.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.longineers.batcher.reader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Reads the product feed written by {@code generate_products.py --format json}: one top-level array
+ * of snake_case product objects with nested {@code dimensions} and {@code shipping} objects and a
+ * {@code tags} array.
+ *
+ * The document is consumed token by token with a streaming {@link JsonParser}, and each element is
+ * mapped straight to a {@link Product} without building a tree, so memory use does not grow with the
+ * file. The index of the next element is saved in the execution context; on restart the elements
+ * before it are skipped with {@link JsonParser#skipChildren()} without being mapped. Not thread-safe.
+ *
+ * An element that cannot be mapped, or that {@link ProductValidator} rejects, fails with a
+ * {@link FlatFileParseException} carrying the line the element starts on and the element's text as its
+ * input, read back from the resource, so that a dead letter can be traced and replayed. The rest of the
+ * element is consumed first, so the next read continues with the following element.
+ *
+ * With a {@link ProductDictionary}, the low-cardinality text fields of every element share the
+ * instances kept in it.
+ */
+public class JsonProductReader extends AbstractItemCountingItemStreamItemReader<Product> {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int MAX_ELEMENT_TEXT = 1 << 20;
+
+    private final Resource resource;
+    private final StringBuilder tags = new StringBuilder();
+
+    private JsonParser parser;
+    private int elementLine;
+    private long elementStart;
+    private ProductDictionary dictionary;
+
+    public JsonProductReader(Resource resource) {
+        this.resource = resource;
+        setName(ClassUtils.getShortName(JsonProductReader.class));
+    }
+
+    /** See {@link ProductFieldSetMapper#setDictionary}. */
+    public void setDictionary(ProductDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        parser = JSON_FACTORY.createParser(resource.getInputStream());
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new ParseException("Expected a JSON array of products in " + resource.getDescription());
+        }
+    }
+
+    @Override
+    protected Product doRead() throws Exception {
+        if (!nextElement()) {
+            return null;
+        }
+        try {
+            return ProductValidator.validate(readProduct());
+        } catch (RuntimeException | IOException e) {
+            skipRestOfElement();
+            throw new FlatFileParseException("Cannot map element " + (getCurrentItemCount() - 1) + " at line: "
+                    + elementLine + " of " + resource.getDescription() + ": " + e.getMessage(), e, elementText(), elementLine);
+        }
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        for (int i = 0; i < itemIndex; i++) {
+            if (!nextElement()) {
+                return;
+            }
+            parser.skipChildren();
+        }
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
+    }
+
+    /** Moves to the start of the next array element; false at the end of the array. */
+    private boolean nextElement() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY || token == null) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new ParseException("Expected a product object at " + parser.currentLocation() + " but found " + token);
+        }
+        elementLine = parser.currentTokenLocation().getLineNr();
+        elementStart = parser.currentTokenLocation().getByteOffset();
+        return true;
+    }
+
+    /**
+     * The text of the element just consumed, read again from the resource; empty if the parser cannot
+     * tell where it ends. Only called for a rejected element.
+     */
+    private String elementText() {
+        long end = parser.currentLocation().getByteOffset();
+        if (elementStart < 0 || end <= elementStart) {
+            return "";
+        }
+        try (InputStream input = resource.getInputStream()) {
+            input.skipNBytes(elementStart);
+            return new String(input.readNBytes((int) Math.min(end - elementStart, MAX_ELEMENT_TEXT)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /** Consumes tokens up to the end of the current element, which sits at nesting depth 2 inside the array. */
+    private void skipRestOfElement() {
+        try {
+            while (parser.getParsingContext().getNestingDepth() > 1 && parser.nextToken() != null) {
+                // skip
+            }
+        } catch (IOException e) {
+            // The document is broken; the next read reports it
+        }
+    }
+
+    private Product readProduct() throws IOException {
+        Product product = new Product();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "uuid" -> {
+                    String uuid = text();
+                    product.setUuid(uuid == null ? null : UUID.fromString(uuid));
+                }
+                case "name" -> product.setName(text());
+                case "brand" -> product.setBrand(interned());
+                case "category" -> product.setCategory(interned());
+                case "subcategory" -> product.setSubcategory(interned());
+                case "description" -> product.setDescription(text());
+                case "price" -> product.setPrice(number());
+                case "currency" -> product.setCurrency(interned());
+                case "discount_percent" -> product.setDiscountPercent(number());
+                case "final_price" -> product.setFinalPrice(number());
+                case "rating" -> product.setRating(number());
+                case "review_count" -> product.setReviewCount(integer());
+                case "stock_quantity" -> product.setStockQuantity(integer());
+                case "in_stock" -> product.setInStock(bool());
+                case "sku" -> product.setSku(text());
+                case "barcode" -> product.setBarcode(text());
+                case "weight_kg" -> product.setWeightKg(number());
+                case "tags" -> product.setTags(tags());
+                case "image_url" -> product.setImageUrl(text());
+                case "thumbnail_url" -> product.setThumbnailUrl(text());
+                case "created_at" -> product.setCreatedAt(timestamp());
+                case "updated_at" -> product.setUpdatedAt(timestamp());
+                case "status" -> product.setStatus(interned());
+                case "featured" -> product.setFeatured(bool());
+                case "dimensions" -> readDimensions(product);
+                case "shipping" -> readShipping(product);
+                default -> parser.skipChildren(); // id and unknown fields
+            }
+        }
+        return product;
+    }
+
+    private void readDimensions(Product product) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "length_cm" -> product.setLengthCm(number());
+                case "width_cm" -> product.setWidthCm(number());
+                case "height_cm" -> product.setHeightCm(number());
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readShipping(Product product) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "free_shipping" -> product.setFreeShipping(bool());
+                case "shipping_cost" -> product.setShippingCost(number());
+                case "estimated_days" -> product.setEstimatedDays(integer());
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /** Joins the tags array with commas, as in the CSV feed. */
+    private String tags() throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return text();
+        }
+        tags.setLength(0);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (!tags.isEmpty()) {
+                tags.append(',');
+            }
+            tags.append(parser.getText());
+        }
+        return tags.toString();
+    }
+
+    private String text() throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private String interned() throws IOException {
+        String value = text();
+        return dictionary == null ? value : dictionary.intern(value);
+    }
+
+    // The getValueAs methods would turn a value of the wrong type into 0 or false, so the token type is checked first
+
+    private Double number() throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            default -> throw unexpected("a number");
+        };
+    }
+
+    private Integer integer() throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            default -> throw unexpected("an integer");
+        };
+    }
+
+    private Boolean bool() throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NULL -> null;
+            case VALUE_TRUE, VALUE_FALSE -> parser.getBooleanValue();
+            default -> throw unexpected("true or false");
+        };
+    }
+
+    private IllegalArgumentException unexpected(String expected) throws IOException {
+        return new IllegalArgumentException("Expected " + expected + " for " + parser.currentName()
+                + " but found " + parser.getText());
+    }
+
+    private LocalDateTime timestamp() throws IOException {
+        String value = text();
+        return value == null ? null : LocalDateTime.parse(value);
+    }
+}
@@ -0,0 +1,577 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Reads the product feed from a memory-mapped file without building a {@code FieldSet}.
+ *
+ * Records are tokenized in place on the mapped buffer: only the text columns become Strings,
+ * while numbers, booleans, UUIDs and ISO timestamps are parsed straight from the bytes. Large
+ * files are mapped in windows that are moved forward as the reader advances. The byte offset of
+ * the next record is saved in the {@link ExecutionContext}, so a restart resumes without
+ * re-reading the items already processed.
+ *
+ * Booleans are matched against {@code true} ignoring case, so the {@code True}/{@code False}
+ * written by {@code generate_products.py} are read as intended. Records rejected by a reader filter
+ * are returned as stubs, as {@link ProductFieldSetMapper} does. With a {@link ProductDictionary}, the
+ * low-cardinality text columns are looked up by their bytes and decoded only the first time a value is seen.
+ * Not thread-safe.
+ */
+public class MappedProductCsvReader extends ItemStreamSupport implements ItemStreamReader<Product> {
+
+    static final int COLUMN_COUNT = ProductFieldSetMapper.NAMES.length;
+
+    private static final long WINDOW_SIZE = 256L << 20;
+
+    private static final String POSITION_KEY = "position";
+    private static final String READ_COUNT_KEY = "read.count";
+    private static final String LINE_KEY = "line";
+
+    private static final int UUID_COLUMN = 1;
+    private static final int NAME = 2;
+    private static final int BRAND = 3;
+    private static final int CATEGORY = 4;
+    private static final int SUBCATEGORY = 5;
+    private static final int DESCRIPTION = 6;
+    private static final int PRICE = 7;
+    private static final int CURRENCY = 8;
+    private static final int DISCOUNT_PERCENT = 9;
+    private static final int FINAL_PRICE = 10;
+    private static final int RATING = 11;
+    private static final int REVIEW_COUNT = 12;
+    private static final int STOCK_QUANTITY = 13;
+    private static final int IN_STOCK = 14;
+    private static final int SKU = 15;
+    private static final int BARCODE = 16;
+    private static final int WEIGHT_KG = 17;
+    private static final int TAGS = 18;
+    private static final int IMAGE_URL = 19;
+    private static final int THUMBNAIL_URL = 20;
+    private static final int CREATED_AT = 21;
+    private static final int UPDATED_AT = 22;
+    private static final int STATUS = 23;
+    private static final int FEATURED = 24;
+    private static final int LENGTH_CM = 25;
+    private static final int WIDTH_CM = 26;
+    private static final int HEIGHT_CM = 27;
+    private static final int FREE_SHIPPING = 28;
+    private static final int SHIPPING_COST = 29;
+    private static final int ESTIMATED_DAYS = 30;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Resource resource;
+    private final long rangeStart;
+    private final long rangeEnd;
+    private final boolean skipHeader;
+
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long fileSize;
+    private long end;
+
+    private long position;
+    private long readCount;
+    private long lineNumber;
+
+    private final int[] fieldStart = new int[COLUMN_COUNT];
+    private final int[] fieldEnd = new int[COLUMN_COUNT];
+    private final boolean[] fieldQuoted = new boolean[COLUMN_COUNT];
+    private int recordStartIndex;
+    private long nextPosition;
+    private int recordNewlines;
+    private byte[] scratch = new byte[256];
+
+    private Predicate<Product> readerFilter;
+    private ProductDictionary dictionary;
+
+    /** Reads the whole file, skipping the header line. */
+    public MappedProductCsvReader(Resource resource) {
+        this(resource, 0, -1, true);
+    }
+
+    /** Reads the records starting in {@code [rangeStart, rangeEnd)}; the range must not contain the header. */
+    public MappedProductCsvReader(Resource resource, long rangeStart, long rangeEnd) {
+        this(resource, rangeStart, rangeEnd, false);
+    }
+
+    private MappedProductCsvReader(Resource resource, long rangeStart, long rangeEnd, boolean skipHeader) {
+        this.resource = resource;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.skipHeader = skipHeader;
+        setName(ClassUtils.getShortName(MappedProductCsvReader.class));
+    }
+
+    /** See {@link ProductFieldSetMapper#setReaderFilter}. */
+    public void setReaderFilter(Predicate<Product> readerFilter) {
+        this.readerFilter = readerFilter;
+    }
+
+    /** See {@link ProductFieldSetMapper#setDictionary}. */
+    public void setDictionary(ProductDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+        try {
+            channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ);
+            fileSize = channel.size();
+            end = rangeEnd < 0 ? fileSize : Math.min(rangeEnd, fileSize);
+            position = rangeStart;
+            readCount = 0;
+            lineNumber = 0;
+            if (executionContext.containsKey(getExecutionContextKey(POSITION_KEY))) {
+                position = executionContext.getLong(getExecutionContextKey(POSITION_KEY));
+                readCount = executionContext.getLong(getExecutionContextKey(READ_COUNT_KEY));
+                lineNumber = executionContext.getLong(getExecutionContextKey(LINE_KEY));
+                map(position);
+            } else {
+                map(position);
+                if (skipHeader && position < end) {
+                    tokenize();
+                    position = nextPosition;
+                    lineNumber += recordNewlines;
+                }
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + resource.getDescription(), e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        executionContext.putLong(getExecutionContextKey(POSITION_KEY), position);
+        executionContext.putLong(getExecutionContextKey(READ_COUNT_KEY), readCount);
+        executionContext.putLong(getExecutionContextKey(LINE_KEY), lineNumber);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + resource.getDescription(), e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    public Product read() throws IOException {
+        while (position < end) {
+            int fields = tokenize();
+            long line = lineNumber + 1;
+            position = nextPosition;
+            lineNumber += recordNewlines;
+            if (fields == 1 && fieldStart[0] == fieldEnd[0]) {
+                continue; // blank line
+            }
+            readCount++;
+            if (fields != COLUMN_COUNT) {
+                String input = recordInput();
+                throw new FlatFileParseException("Incorrect number of tokens found in record: expected "
+                        + COLUMN_COUNT + " actual " + fields + " at line: " + line + " in resource=["
+                        + resource.getDescription() + "], input=[" + input + "]", input, (int) line);
+            }
+            try {
+                if (readerFilter != null) {
+                    Product stub = ProductFieldSetMapper.stub(interned(CATEGORY), bool(IN_STOCK));
+                    if (!readerFilter.test(stub)) {
+                        return stub;
+                    }
+                }
+                return ProductValidator.validate(mapProduct());
+            } catch (RuntimeException e) {
+                String input = recordInput();
+                throw new FlatFileParseException("Parsing error at line: " + line + " in resource=["
+                        + resource.getDescription() + "], input=[" + input + "]", e, input, (int) line);
+            }
+        }
+        return null;
+    }
+
+    private Product mapProduct() {
+        return Product.builder()
+                .uuid(uuid(UUID_COLUMN))
+                .name(string(NAME))
+                .brand(interned(BRAND))
+                .category(interned(CATEGORY))
+                .subcategory(interned(SUBCATEGORY))
+                .description(string(DESCRIPTION))
+                .price(decimal(PRICE))
+                .currency(interned(CURRENCY))
+                .discountPercent(decimal(DISCOUNT_PERCENT))
+                .finalPrice(decimal(FINAL_PRICE))
+                .rating(decimal(RATING))
+                .reviewCount(integer(REVIEW_COUNT))
+                .stockQuantity(integer(STOCK_QUANTITY))
+                .inStock(bool(IN_STOCK))
+                .sku(string(SKU))
+                .barcode(string(BARCODE))
+                .weightKg(decimal(WEIGHT_KG))
+                .tags(string(TAGS))
+                .imageUrl(string(IMAGE_URL))
+                .thumbnailUrl(string(THUMBNAIL_URL))
+                .createdAt(timestamp(CREATED_AT))
+                .updatedAt(timestamp(UPDATED_AT))
+                .status(interned(STATUS))
+                .featured(bool(FEATURED))
+                .lengthCm(decimal(LENGTH_CM))
+                .widthCm(decimal(WIDTH_CM))
+                .heightCm(decimal(HEIGHT_CM))
+                .freeShipping(bool(FREE_SHIPPING))
+                .shippingCost(decimal(SHIPPING_COST))
+                .estimatedDays(integer(ESTIMATED_DAYS))
+                .build();
+    }
+
+    private void map(long offset) throws IOException {
+        windowStart = offset;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, fileSize - offset));
+    }
+
+    /** Tokenizes the record at {@link #position}, moving the window forward if the record crosses its end. */
+    private int tokenize() throws IOException {
+        while (true) {
+            int fields = tryTokenize();
+            if (fields >= 0) {
+                return fields;
+            }
+            if (windowStart == position) {
+                throw new ItemStreamException("Record at offset " + position + " is larger than the mapping window");
+            }
+            map(position);
+        }
+    }
+
+    /** Returns the number of fields, or -1 when the record continues past the mapped window. */
+    private int tryTokenize() {
+        int limit = window.limit();
+        boolean windowReachesEof = windowStart + limit >= fileSize;
+        int i = (int) (position - windowStart);
+        recordStartIndex = i;
+        int fields = 0;
+        int start = i;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int newlines = 0;
+        while (true) {
+            if (i >= limit) {
+                if (!windowReachesEof) {
+                    return -1;
+                }
+                fields = addField(fields, start, i, quoted);
+                nextPosition = windowStart + i;
+                recordNewlines = newlines + 1;
+                return fields;
+            }
+            byte b = window.get(i);
+            if (inQuotes) {
+                if (b == '"') {
+                    if (i + 1 >= limit && !windowReachesEof) {
+                        return -1;
+                    }
+                    if (i + 1 < limit && window.get(i + 1) == '"') {
+                        i += 2;
+                        continue;
+                    }
+                    inQuotes = false;
+                } else if (b == '\n') {
+                    newlines++;
+                }
+                i++;
+            } else if (b == '"' && i == start) {
+                inQuotes = true;
+                quoted = true;
+                i++;
+            } else if (b == ',') {
+                fields = addField(fields, start, i, quoted);
+                start = i + 1;
+                quoted = false;
+                i++;
+            } else if (b == '\n') {
+                int fieldEndIndex = i > start && window.get(i - 1) == '\r' ? i - 1 : i;
+                fields = addField(fields, start, fieldEndIndex, quoted);
+                nextPosition = windowStart + i + 1;
+                recordNewlines = newlines + 1;
+                return fields;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private int addField(int fields, int start, int end, boolean quoted) {
+        if (fields < COLUMN_COUNT) {
+            fieldStart[fields] = start;
+            fieldEnd[fields] = end;
+            fieldQuoted[fields] = quoted;
+        }
+        return fields + 1;
+    }
+
+    private String recordInput() {
+        int length = (int) (nextPosition - windowStart) - recordStartIndex;
+        byte[] bytes = new byte[length];
+        window.get(recordStartIndex, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8).stripTrailing();
+    }
+
+    // --- field parsing; [contentStart, contentEnd) excludes surrounding quotes and whitespace ---
+
+    private int contentStart;
+    private int contentEnd;
+
+    private void bounds(int field) {
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        if (fieldQuoted[field]) {
+            s++;
+            int closingQuote = e;
+            while (closingQuote > s && window.get(closingQuote - 1) != '"') {
+                closingQuote--;
+            }
+            if (closingQuote > s) {
+                e = closingQuote - 1;
+            }
+        }
+        while (s < e && window.get(s) <= ' ') {
+            s++;
+        }
+        while (e > s && window.get(e - 1) <= ' ') {
+            e--;
+        }
+        contentStart = s;
+        contentEnd = e;
+    }
+
+    private String string(int field) {
+        bounds(field);
+        int length = contentEnd - contentStart;
+        if (length == 0) {
+            return "";
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        if (!fieldQuoted[field]) {
+            window.get(contentStart, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        int n = 0;
+        for (int i = contentStart; i < contentEnd; i++) {
+            byte b = window.get(i);
+            scratch[n++] = b;
+            if (b == '"' && i + 1 < contentEnd && window.get(i + 1) == '"') {
+                i++;
+            }
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /** A low-cardinality text column, taken from the dictionary without decoding it if the value was seen before. */
+    private String interned(int field) {
+        if (dictionary == null) {
+            return string(field);
+        }
+        if (fieldQuoted[field]) {
+            return dictionary.intern(string(field));
+        }
+        bounds(field);
+        return dictionary.intern(window, contentStart, contentEnd);
+    }
+
+    private String content() {
+        int length = contentEnd - contentStart;
+        byte[] bytes = new byte[length];
+        window.get(contentStart, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Exact for up to 15 significant digits and 22 decimals; anything else goes through {@link Double#parseDouble}. */
+    private double decimal(int field) {
+        bounds(field);
+        int i = contentStart;
+        boolean negative = false;
+        if (i < contentEnd && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < contentEnd; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0 && ++significantDigits > 15) {
+                    break;
+                }
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (i != contentEnd || !seenDigit || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(content());
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private int integer(int field) {
+        bounds(field);
+        int i = contentStart;
+        boolean negative = false;
+        if (i < contentEnd && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+        if (i == contentEnd || contentEnd - i > 10) {
+            throw new NumberFormatException("Unparseable number: [" + content() + "]");
+        }
+        long value = 0;
+        for (; i < contentEnd; i++) {
+            byte b = window.get(i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("Unparseable number: [" + content() + "]");
+            }
+            value = value * 10 + (b - '0');
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range: [" + content() + "]");
+        }
+        return (int) value;
+    }
+
+    private boolean bool(int field) {
+        bounds(field);
+        if (contentEnd - contentStart != 4) {
+            return false;
+        }
+        return (window.get(contentStart) | 0x20) == 't'
+                && (window.get(contentStart + 1) | 0x20) == 'r'
+                && (window.get(contentStart + 2) | 0x20) == 'u'
+                && (window.get(contentStart + 3) | 0x20) == 'e';
+    }
+
+    private UUID uuid(int field) {
+        bounds(field);
+        int s = contentStart;
+        if (contentEnd - s != 36 || window.get(s + 8) != '-' || window.get(s + 13) != '-'
+                || window.get(s + 18) != '-' || window.get(s + 23) != '-') {
+            return UUID.fromString(content());
+        }
+        long msb = hex(s, 8) << 32 | hex(s + 9, 4) << 16 | hex(s + 14, 4);
+        long lsb = hex(s + 19, 4) << 48 | hex(s + 24, 12);
+        return new UUID(msb, lsb);
+    }
+
+    private long hex(int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int b = window.get(i);
+            int digit;
+            if (b >= '0' && b <= '9') {
+                digit = b - '0';
+            } else if (b >= 'a' && b <= 'f') {
+                digit = b - 'a' + 10;
+            } else if (b >= 'A' && b <= 'F') {
+                digit = b - 'A' + 10;
+            } else {
+                throw new IllegalArgumentException("Invalid UUID string: " + content());
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /** Parses {@code yyyy-MM-ddTHH:mm[:ss[.fraction]]}; other ISO forms go through {@link LocalDateTime#parse}. */
+    private LocalDateTime timestamp(int field) {
+        bounds(field);
+        int s = contentStart;
+        int length = contentEnd - s;
+        if (length < 16 || window.get(s + 4) != '-' || window.get(s + 7) != '-'
+                || window.get(s + 10) != 'T' || window.get(s + 13) != ':') {
+            return LocalDateTime.parse(content());
+        }
+        int year = digits(s, 4);
+        int month = digits(s + 5, 2);
+        int day = digits(s + 8, 2);
+        int hour = digits(s + 11, 2);
+        int minute = digits(s + 14, 2);
+        int second = 0;
+        int nanos = 0;
+        int i = s + 16;
+        if (i < contentEnd) {
+            if (window.get(i) != ':' || i + 3 > contentEnd) {
+                return LocalDateTime.parse(content());
+            }
+            second = digits(i + 1, 2);
+            i += 3;
+            if (i < contentEnd) {
+                if (window.get(i) != '.' || contentEnd - i - 1 < 1 || contentEnd - i - 1 > 9) {
+                    return LocalDateTime.parse(content());
+                }
+                int fractionDigits = contentEnd - i - 1;
+                nanos = digits(i + 1, fractionDigits);
+                for (int d = fractionDigits; d < 9; d++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nanos) < 0) {
+            return LocalDateTime.parse(content());
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+    }
+
+    /** Returns the decimal value of {@code length} digits, or -1 if any byte is not a digit. */
+    private int digits(int offset, int length) {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = window.get(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,112 @@
+package com.longineers.batcher.reader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out one {@code String} instance per distinct value of the low-cardinality text columns of the
+ * feed: {@code brand}, {@code category}, {@code subcategory}, {@code currency} and {@code status}. Each
+ * has a few dozen values at most, so the products of a chunk share their strings instead of holding a
+ * copy each, and a value's hash code is computed once per step instead of once per row.
+ *
+ * {@link MappedProductCsvReader} looks values up by their bytes in the mapped file, so a value seen
+ * before is not decoded at all. The other readers already hold a {@code String} and swap it for the
+ * one kept here.
+ *
+ * The dictionary holds at most {@code capacity} values. Once it is full, further values are returned
+ * as they are and not kept, so a column with unexpectedly many values costs no more memory than without
+ * the dictionary. Not thread-safe; a step and its reader share one.
+ */
+public final class ProductDictionary {
+
+    /** Values kept unless {@code batch.reader.dictionary-capacity} says otherwise. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final Map<String, String> values = new HashMap<>();
+
+    // Open-addressing table over the UTF-8 bytes of the values kept, at most half full.
+    private byte[][] keys;
+    private int[] hashes;
+    private String[] strings;
+    private int entries;
+
+    public ProductDictionary(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /** Returns the instance kept for {@code value}, keeping {@code value} itself if it is new and there is room. */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String kept = values.get(value);
+        if (kept != null) {
+            return kept;
+        }
+        if (values.size() < capacity) {
+            values.put(value, value);
+        }
+        return value;
+    }
+
+    /** The number of values kept. */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Returns the value of the UTF-8 bytes in {@code [start, end)} of {@code buffer}, which are decoded
+     * only if the dictionary does not hold them yet.
+     */
+    String intern(ByteBuffer buffer, int start, int end) {
+        if (start == end) {
+            return "";
+        }
+        if (keys == null) {
+            int size = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+            keys = new byte[size][];
+            hashes = new int[size];
+            strings = new String[size];
+        }
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int mask = keys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matches(keys[slot], buffer, start, end)) {
+                return strings[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        String value = intern(new String(bytes, StandardCharsets.UTF_8));
+        if (entries < capacity && values.get(value) == value) {
+            entries++;
+            keys[slot] = bytes;
+            hashes[slot] = hash;
+            strings[slot] = value;
+        }
+        return value;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.file.mapping.FieldSetMapper;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Maps one tokenized line of the product feed to a {@link Product}.
+ *
+ * With a reader filter, the category and {@code inStock} columns are mapped first into a stub and
+ * tested. A line the filter rejects is returned as that stub, skipping the parsing of every other
+ * field. The stub is then dropped by {@code filterProcessor} like the full product would have been,
+ * so the filter count of the step stays the same.
+ *
+ * With a {@link ProductDictionary}, the low-cardinality text columns of every line share the
+ * instances kept in it.
+ *
+ * A fully mapped line is checked with {@link ProductValidator}; the reader reports a line that fails
+ * with its line number.
+ */
+public class ProductFieldSetMapper implements FieldSetMapper<Product> {
+
+    /** Column names of the product feed, in file order. */
+    public static final String[] NAMES = {
+            "id", "uuid", "name", "brand", "category", "subcategory", "description",
+            "price", "currency", "discountPercent", "finalPrice", "rating", "reviewCount",
+            "stockQuantity", "inStock", "sku", "barcode", "weightKg", "tags", "imageUrl",
+            "thumbnailUrl", "createdAt", "updatedAt", "status", "featured", "lengthCm",
+            "widthCm", "heightCm", "freeShipping", "shippingCost", "estimatedDays"
+    };
+
+    private Predicate<Product> readerFilter;
+    private ProductDictionary dictionary;
+
+    /**
+     * Sets a filter that reads only {@code category} and {@code inStock}, see
+     * {@link com.longineers.batcher.filter.ProductFilter#readerPredicate()}; {@code null} maps every line fully.
+     */
+    public void setReaderFilter(Predicate<Product> readerFilter) {
+        this.readerFilter = readerFilter;
+    }
+
+    /**
+     * Sets the dictionary that {@code brand}, {@code category}, {@code subcategory}, {@code currency} and
+     * {@code status} are interned in; {@code null} keeps the strings of each line.
+     */
+    public void setDictionary(ProductDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public Product mapFieldSet(FieldSet fieldSet) {
+        if (readerFilter != null) {
+            Product stub = stub(interned(fieldSet, "category"), bool(fieldSet, "inStock"));
+            if (!readerFilter.test(stub)) {
+                return stub;
+            }
+        }
+        return ProductValidator.validate(Product.builder()
+                // .id(fieldSet.readLong("id"))
+                .uuid(UUID.fromString(fieldSet.readString("uuid")))
+                .name(fieldSet.readString("name"))
+                .brand(interned(fieldSet, "brand"))
+                .category(interned(fieldSet, "category"))
+                .subcategory(interned(fieldSet, "subcategory"))
+                .description(fieldSet.readString("description"))
+                .price(fieldSet.readDouble("price"))
+                .currency(interned(fieldSet, "currency"))
+                .discountPercent(fieldSet.readDouble("discountPercent"))
+                .finalPrice(fieldSet.readDouble("finalPrice"))
+                .rating(fieldSet.readDouble("rating"))
+                .reviewCount(fieldSet.readInt("reviewCount"))
+                .stockQuantity(fieldSet.readInt("stockQuantity"))
+                .inStock(bool(fieldSet, "inStock"))
+                .sku(fieldSet.readString("sku"))
+                .barcode(fieldSet.readString("barcode"))
+                .weightKg(fieldSet.readDouble("weightKg"))
+                .tags(fieldSet.readString("tags"))
+                .imageUrl(fieldSet.readString("imageUrl"))
+                .thumbnailUrl(fieldSet.readString("thumbnailUrl"))
+                .createdAt(LocalDateTime.parse(fieldSet.readString("createdAt")))
+                .updatedAt(LocalDateTime.parse(fieldSet.readString("updatedAt")))
+                .status(interned(fieldSet, "status"))
+                .featured(bool(fieldSet, "featured"))
+                .lengthCm(fieldSet.readDouble("lengthCm"))
+                .widthCm(fieldSet.readDouble("widthCm"))
+                .heightCm(fieldSet.readDouble("heightCm"))
+                .freeShipping(bool(fieldSet, "freeShipping"))
+                .shippingCost(fieldSet.readDouble("shippingCost"))
+                .estimatedDays(fieldSet.readInt("estimatedDays"))
+                .build());
+    }
+
+    private String interned(FieldSet fieldSet, String name) {
+        String value = fieldSet.readString(name);
+        return dictionary == null ? value : dictionary.intern(value);
+    }
+
+    /**
+     * {@link FieldSet#readBoolean(String)} accepts only lowercase {@code true}; like
+     * {@link MappedProductCsvReader}, this also reads the {@code True} written by {@code generate_products.py}.
+     */
+    private static boolean bool(FieldSet fieldSet, String name) {
+        return "true".equalsIgnoreCase(fieldSet.readString(name));
+    }
+
+    /** The product a reader filter is tested on, and returned for a line that it rejects. */
+    static Product stub(String category, boolean inStock) {
+        return Product.builder().category(category).inStock(inStock).build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.ResourceAwareItemReaderItemStream;
+import org.springframework.core.io.Resource;
+
+import java.util.function.Function;
+
+/**
+ * Lets {@link org.springframework.batch.item.file.MultiResourceItemReader} use any of the product readers:
+ * each time it moves to the next file, a reader for that file is created with {@code readerFactory},
+ * so that every file gets the reader its format and compression need.
+ */
+public class ProductFileReader implements ResourceAwareItemReaderItemStream<Product> {
+
+    private final Function<Resource, ItemStreamReader<Product>> readerFactory;
+    private ItemStreamReader<Product> delegate;
+
+    public ProductFileReader(Function<Resource, ItemStreamReader<Product>> readerFactory) {
+        this.readerFactory = readerFactory;
+    }
+
+    @Override
+    public void setResource(Resource resource) {
+        this.delegate = readerFactory.apply(resource);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.open(executionContext);
+    }
+
+    @Override
+    public Product read() throws Exception {
+        return delegate.read();
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        delegate.update(executionContext);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate != null) {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+
+/**
+ * Checks a mapped {@link Product} against the constraints of the {@code products} table: the
+ * {@code NOT NULL} columns, the length of the {@code VARCHAR} columns and the range of the
+ * {@code DECIMAL} columns.
+ *
+ * The readers call it on every fully mapped row, so a row the table cannot store fails while it is
+ * read, with its line number, instead of failing the write of the whole chunk. A fault-tolerant step
+ * skips such a row without rolling the chunk back.
+ */
+final class ProductValidator {
+
+    private ProductValidator() {
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the first field the table cannot store
+     */
+    static Product validate(Product product) {
+        required(product.getUuid(), "uuid");
+        text(product.getName(), "name", 255, true);
+        text(product.getBrand(), "brand", 255, false);
+        text(product.getCategory(), "category", 255, true);
+        text(product.getSubcategory(), "subcategory", 255, false);
+        decimal(product.getPrice(), "price", 10, 2, true);
+        text(product.getCurrency(), "currency", 10, true);
+        decimal(product.getDiscountPercent(), "discountPercent", 5, 2, false);
+        decimal(product.getFinalPrice(), "finalPrice", 10, 2, true);
+        decimal(product.getRating(), "rating", 3, 2, false);
+        text(product.getSku(), "sku", 100, false);
+        text(product.getBarcode(), "barcode", 100, false);
+        decimal(product.getWeightKg(), "weightKg", 10, 2, false);
+        text(product.getTags(), "tags", 255, false);
+        text(product.getStatus(), "status", 50, false);
+        decimal(product.getLengthCm(), "lengthCm", 10, 2, false);
+        decimal(product.getWidthCm(), "widthCm", 10, 2, false);
+        decimal(product.getHeightCm(), "heightCm", 10, 2, false);
+        decimal(product.getShippingCost(), "shippingCost", 10, 2, false);
+        return product;
+    }
+
+    private static void required(Object value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+    }
+
+    private static void text(String value, String field, int maxLength, boolean required) {
+        if (required) {
+            required(value, field);
+        }
+        if (value != null && value.length() > maxLength) {
+            throw new IllegalArgumentException(field + " is longer than " + maxLength + " characters");
+        }
+    }
+
+    /** A value of {@code DECIMAL(precision, scale)} is rounded to {@code scale} digits and must stay below 10^(precision - scale). */
+    private static void decimal(Double value, String field, int precision, int scale, boolean required) {
+        if (required) {
+            required(value, field);
+        }
+        if (value == null) {
+            return;
+        }
+        double limit = Math.pow(10, precision - scale) - 0.5 * Math.pow(10, -scale);
+        if (!(Math.abs(value) < limit)) {
+            throw new IllegalArgumentException(field + " " + value + " does not fit DECIMAL(" + precision + ", " + scale + ")");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.longineers.batcher.reader;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Decompresses a zstd file through the streaming API of {@link ZstdDecompressCtx}, which reports
+ * the end of every frame, so that the compressed offset of the next frame is known.
+ */
+class ZstdFrameInputStream extends CheckpointingInputStream {
+
+    private final ZstdDecompressCtx context = new ZstdDecompressCtx();
+    private final byte[] readBuffer = new byte[BUFFER_SIZE];
+    private final ByteBuffer source = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    private final ByteBuffer output = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+    private long produced;
+    private boolean frameStart = true;
+    private boolean finished;
+
+    ZstdFrameInputStream(InputStream compressed, Checkpoint start, Consumer<Checkpoint> onCheckpoint) {
+        super(compressed, start, onCheckpoint);
+        this.produced = start.decompressedOffset();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (!output.hasRemaining()) {
+            if (finished || !decompress()) {
+                finished = true;
+                return -1;
+            }
+        }
+        int n = Math.min(len, output.remaining());
+        output.get(b, off, n);
+        decompressedOffset += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        super.close();
+    }
+
+    /** Decompresses the next piece of output; false at the end of the file. */
+    private boolean decompress() throws IOException {
+        boolean input = source.hasRemaining() || fill();
+        if (!input && frameStart) {
+            return false;
+        }
+        if (frameStart) {
+            onCheckpoint.accept(new Checkpoint(compressedOffset, produced));
+            frameStart = false;
+        }
+        output.clear();
+        int before = source.position();
+        boolean frameDone = context.decompressDirectByteBufferStream(output, source);
+        compressedOffset += source.position() - before;
+        output.flip();
+        produced += output.remaining();
+        frameStart = frameDone;
+        if (!input && !frameDone && !output.hasRemaining()) {
+            throw new EOFException("Unexpected end of zstd frame");
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        int n = compressed.read(readBuffer, 0, readBuffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        source.clear();
+        source.put(readBuffer, 0, n);
+        source.flip();
+        return true;
+    }
+}
@@ -0,0 +1,10 @@
+package com.longineers.batcher.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.longineers.batcher.model.UserAccount;
+
+import java.util.Optional;
+
+public interface UserAccountRepository extends JpaRepository<UserAccount, Long> {
+    Optional<UserAccount> findByUsername(String username);
+}
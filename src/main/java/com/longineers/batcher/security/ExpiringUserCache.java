@@ -0,0 +1,78 @@
+package com.longineers.batcher.security;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded {@link UserCache} whose entries expire {@code timeToLive} after they were stored. When full,
+ * expired entries are dropped first, then the entry that would expire soonest.
+ *
+ * Users are copied on the way in and out: the {@code ProviderManager} erases the credentials of the
+ * principal it authenticates, which would otherwise blank the cached password hash.
+ */
+public class ExpiringUserCache implements UserCache {
+
+    private record Entry(UserDetails user, Instant expiresAt) { }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    public ExpiringUserCache(int maxSize, Duration timeToLive) {
+        this(maxSize, timeToLive, Clock.systemUTC());
+    }
+
+    ExpiringUserCache(int maxSize, Duration timeToLive, Clock clock) {
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.expiresAt().isAfter(clock.instant())) {
+            entries.remove(username, entry);
+            return null;
+        }
+        return copy(entry.user());
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (maxSize < 1) {
+            return;
+        }
+        Instant now = clock.instant();
+        if (entries.size() >= maxSize && !entries.containsKey(user.getUsername())) {
+            entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+            while (entries.size() >= maxSize) {
+                entries.entrySet().stream()
+                        .min(Comparator.comparing(e -> e.getValue().expiresAt()))
+                        .ifPresent(e -> entries.remove(e.getKey(), e.getValue()));
+            }
+        }
+        entries.put(user.getUsername(), new Entry(copy(user), now.plus(timeToLive)));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        entries.remove(username);
+    }
+
+    private static UserDetails copy(UserDetails user) {
+        return User.withUserDetails(user).build();
+    }
+}
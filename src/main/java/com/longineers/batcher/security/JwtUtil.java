@@ -5,6 +5,9 @@ import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -12,30 +15,53 @@ import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret}")
     private String secret;
 
     @Value("${jwt.expiry-time}")
     private long expiryTime;
 
+    // Verified tokens are kept until their exp passes; when full, new tokens are verified but not cached.
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize = 10_000;
+
+    // Built on first use rather than in the constructor, once the @Value fields are set.
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+
     private int getMinKeyLength() {
         // Minimum key length for HS256 is 256 bits (32 bytes).
         return 32;
     }
 
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        Key key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            signingKey = key;
+        }
+        return key;
     }
 
     private JwtParser getParser() {
-        // Create a reusable parser instance with the signing key.
-        return Jwts.parser().setSigningKey(getSigningKey()).build();
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parser().setSigningKey(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 
     public String extractUsername(String token) {
@@ -47,23 +73,69 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = extractVerifiedClaims(token);
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Returns the claims of a token whose signature and expiry have been checked, verifying the token
+     * only if it is not in the cache of verified tokens yet.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, badly signed or expired
+     */
+    public Claims extractVerifiedClaims(String token) {
+        Claims claims = verifiedTokens.get(token);
+        if (claims != null) {
+            if (!isExpired(claims)) {
+                return claims;
+            }
+            verifiedTokens.remove(token);
+        }
+        claims = extractAllClaims(token);
+        cache(token, claims);
+        return claims;
+    }
+
     private Claims extractAllClaims(String token) {
         return getParser().parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private void cache(String token, Claims claims) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(this::isExpired);
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                return;
+            }
+        }
+        verifiedTokens.put(token, claims);
+    }
+
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
         return createToken(claims, userDetails.getUsername());
     }
 
+    /**
+     * Builds the principal of a request from verified claims: the subject and the authorities granted
+     * at login. No user lookup and no password work.
+     */
+    public UserDetails extractUserDetails(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(roles == null ? List.of() : roles.stream()
+                        .map(role -> new SimpleGrantedAuthority(role.toString()))
+                        .toList())
+                .build();
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -75,7 +147,12 @@ public class JwtUtil {
     }
 
     public boolean isAuthenticated(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isAuthenticated(extractVerifiedClaims(token), userDetails);
+    }
+
+    /** Checks claims obtained from {@link #extractVerifiedClaims(String)} without parsing the token again. */
+    public boolean isAuthenticated(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return username.equals(userDetails.getUsername()) && !isExpired(claims);
     }
 }
@@ -1,43 +1,52 @@
 package com.longineers.batcher.security;
 
+import com.longineers.batcher.model.UserAccount;
+import com.longineers.batcher.repository.UserAccountRepository;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import lombok.RequiredArgsConstructor;
-import java.util.ArrayList;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+
+/**
+ * Loads users and their stored BCrypt hashes from the {@code users} table, through a {@link UserCache}.
+ * Only {@code /authenticate} needs this lookup; requests with a JWT get their principal from the token.
+ */
 @Service
 @RequiredArgsConstructor
 public class LoginUserDetailService implements UserDetailsService {
 
-    private final PasswordEncoder passwordEncoder;
-
+    private final UserAccountRepository userAccountRepository;
+    private final UserCache userCache;
 
-    /**
-     * 
-     * @todo
-     * 
-     * 1. Implement a Database-Backed User Store:
-       * The Issue: The biggest remaining security risk is the in-memory user service. It uses a single, 
-         hardcoded user, which is not suitable for any real-world application.
-       * The Fix: We need to create a User entity in the database to store user credentials securely. 
-         This would involve creating a users table, a User entity, a UserRepository, and updating the 
-         UserDetailsService to load users from the database.
-     * @param username
-     * @return
-     * @throws UsernameNotFoundException
-     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        if ("user".equals(username)) {
-            return new User("user", 
-                passwordEncoder.encode("password"), new ArrayList<>()
-            );
+        UserDetails cached = userCache.getUserFromCache(username);
+        if (cached != null) {
+            return cached;
         }
 
-        throw new UsernameNotFoundException("User not found with username: " + username);
+        UserDetails userDetails = userAccountRepository.findByUsername(username)
+                .map(this::toUserDetails)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        userCache.putUserInCache(userDetails);
+        return userDetails;
+    }
+
+    private UserDetails toUserDetails(UserAccount account) {
+        return User.withUsername(account.getUsername())
+                .password(account.getPasswordHash())
+                .disabled(!account.isEnabled())
+                .authorities(Arrays.stream(account.getRoles().split(","))
+                        .map(String::trim)
+                        .filter(role -> !role.isEmpty())
+                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                        .toList())
+                .build();
     }
 }
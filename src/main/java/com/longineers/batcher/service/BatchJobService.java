@@ -0,0 +1,162 @@
+package com.longineers.batcher.service;
+
+import com.longineers.batcher.listener.InputSizeEstimationListener;
+import com.longineers.batcher.model.JobProgress;
+import com.longineers.batcher.writer.ProductUpsertWriter;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.partition.support.SimpleStepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Launches {@code batchJob} on the bounded {@code jobLaunchTaskExecutor} so requests return as soon
+ * as the execution is recorded, and reports progress from the job repository.
+ */
+@Service
+public class BatchJobService {
+
+    // The partition handler records the grid size in the manager step's context; its counts are
+    // an aggregate of the worker steps and would otherwise be counted twice once it completes.
+    private static final String PARTITION_MANAGER_KEY = SimpleStepExecutionSplitter.class.getSimpleName() + ".GRID_SIZE";
+
+    private final TaskExecutorJobLauncher jobLauncher;
+    private final JobExplorer jobExplorer;
+    private final JobOperator jobOperator;
+    private final Job batchJob;
+
+    public BatchJobService(JobRepository jobRepository,
+                           JobExplorer jobExplorer,
+                           JobOperator jobOperator,
+                           Job batchJob,
+                           @Qualifier("jobLaunchTaskExecutor") TaskExecutor jobLaunchTaskExecutor) throws Exception {
+        this.jobExplorer = jobExplorer;
+        this.jobOperator = jobOperator;
+        this.batchJob = batchJob;
+        this.jobLauncher = new TaskExecutorJobLauncher();
+        this.jobLauncher.setJobRepository(jobRepository);
+        this.jobLauncher.setTaskExecutor(jobLaunchTaskExecutor);
+        this.jobLauncher.afterPropertiesSet();
+    }
+
+    /**
+     * Records a new execution and hands it to the launch executor.
+     *
+     * @throws TaskRejectedException if every launch thread is busy and the queue is full
+     */
+    public JobExecution launch(JobParameters jobParameters) throws Exception {
+        JobExecution jobExecution = jobLauncher.run(batchJob, jobParameters);
+        // TaskExecutorJobLauncher marks a rejected execution FAILED instead of rethrowing
+        if (jobExecution.getStatus() == BatchStatus.FAILED && jobExecution.getStartTime() == null) {
+            throw new TaskRejectedException(jobExecution.getExitStatus().getExitDescription());
+        }
+        return jobExecution;
+    }
+
+    /**
+     * Restarts a failed or stopped execution with its original parameters.
+     */
+    public JobExecution restart(long executionId) throws Exception {
+        JobExecution jobExecution = jobExplorer.getJobExecution(executionId);
+        if (jobExecution == null) {
+            throw new NoSuchJobExecutionException("No job execution found with id: " + executionId);
+        }
+        return launch(jobExecution.getJobParameters());
+    }
+
+    /**
+     * Asks a running execution to stop; steps finish their current chunk and end as STOPPED.
+     */
+    public void stop(long executionId) throws NoSuchJobExecutionException, JobExecutionNotRunningException {
+        jobOperator.stop(executionId);
+    }
+
+    /**
+     * Marks a stopped or failed execution ABANDONED, so it can no longer be restarted. The staging table of
+     * an abandoned staging load is dropped when the next staging load starts.
+     */
+    public void abandon(long executionId) throws NoSuchJobExecutionException, JobExecutionAlreadyRunningException {
+        jobOperator.abandon(executionId);
+    }
+
+    public Optional<JobProgress> getProgress(long executionId) {
+        JobExecution jobExecution = jobExplorer.getJobExecution(executionId);
+        if (jobExecution == null) {
+            return Optional.empty();
+        }
+
+        long read = 0, write = 0, filter = 0, skip = 0;
+        Long inserted = null, updated = null, unchanged = null;
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (stepExecution.getExecutionContext().containsKey(PARTITION_MANAGER_KEY)) {
+                continue;
+            }
+            read += stepExecution.getReadCount();
+            write += stepExecution.getWriteCount();
+            filter += stepExecution.getFilterCount();
+            skip += stepExecution.getSkipCount();
+            ExecutionContext stepContext = stepExecution.getExecutionContext();
+            if (stepContext.containsKey(ProductUpsertWriter.INSERTED_KEY)) {
+                inserted = (inserted == null ? 0 : inserted) + stepContext.getLong(ProductUpsertWriter.INSERTED_KEY);
+                updated = (updated == null ? 0 : updated) + stepContext.getLong(ProductUpsertWriter.UPDATED_KEY);
+                unchanged = (unchanged == null ? 0 : unchanged) + stepContext.getLong(ProductUpsertWriter.UNCHANGED_KEY);
+            }
+        }
+
+        LocalDateTime startTime = jobExecution.getStartTime();
+        LocalDateTime endTime = jobExecution.getEndTime();
+        double rowsPerSecond = 0;
+        if (startTime != null) {
+            long elapsedMillis = Duration.between(startTime, endTime != null ? endTime : LocalDateTime.now()).toMillis();
+            if (elapsedMillis > 0) {
+                rowsPerSecond = read * 1000.0 / elapsedMillis;
+            }
+        }
+
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+        Long estimatedTotal = jobContext.containsKey(InputSizeEstimationListener.ESTIMATED_TOTAL_ITEMS_KEY)
+                ? jobContext.getLong(InputSizeEstimationListener.ESTIMATED_TOTAL_ITEMS_KEY)
+                : null;
+        Long etaSeconds = null;
+        if (jobExecution.isRunning() && estimatedTotal != null && rowsPerSecond > 0) {
+            long remaining = Math.max(0, estimatedTotal - read - skip);
+            etaSeconds = Math.round(remaining / rowsPerSecond);
+        }
+
+        return Optional.of(JobProgress.builder()
+                .jobExecutionId(jobExecution.getId())
+                .jobName(jobExecution.getJobInstance().getJobName())
+                .status(jobExecution.getStatus().name())
+                .exitCode(jobExecution.getExitStatus().getExitCode())
+                .startTime(startTime)
+                .endTime(endTime)
+                .readCount(read)
+                .writeCount(write)
+                .filterCount(filter)
+                .skipCount(skip)
+                .rowsPerSecond(rowsPerSecond)
+                .estimatedTotalItems(estimatedTotal)
+                .etaSeconds(etaSeconds)
+                .insertedCount(inserted)
+                .updatedCount(updated)
+                .unchangedCount(unchanged)
+                .build());
+    }
+}
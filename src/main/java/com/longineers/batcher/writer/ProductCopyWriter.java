@@ -0,0 +1,398 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.model.Product;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Streams each chunk into the {@code products} table with {@code COPY ... FROM STDIN}
+ * through the PgJDBC {@link org.postgresql.copy.CopyManager}.
+ *
+ * The connection is obtained through {@link DataSourceUtils}, so the copy runs on the
+ * connection bound to the step's transaction and is rolled back together with the chunk.
+ * Ids are reserved in blocks from the pooled sequence through {@link ProductIdAllocator}.
+ * Rows copied into {@code products} itself also have their keys recorded by {@link ProductKeyWriter}.
+ */
+public class ProductCopyWriter implements ItemWriter<Product> {
+
+    public enum Format { TEXT, BINARY }
+
+    static final String[] COLUMNS = {
+            "uuid", "name", "brand", "category", "subcategory", "description",
+            "price", "currency", "discount_percent", "final_price", "rating", "review_count",
+            "stock_quantity", "in_stock", "sku", "barcode", "weight_kg", "tags", "image_url",
+            "thumbnail_url", "created_at", "updated_at", "status", "featured", "length_cm",
+            "width_cm", "height_cm", "free_shipping", "shipping_cost", "estimated_days", "customise_link"
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final DataSource dataSource;
+    private final Format format;
+    private final ProductIdAllocator idAllocator;
+    private final boolean recordKeys;
+    private final String copySql;
+
+    public ProductCopyWriter(DataSource dataSource, Format format) {
+        this(dataSource, format, "products");
+    }
+
+    /** Copies into {@code table}, which has the columns of {@code products}, such as a staging table. */
+    public ProductCopyWriter(DataSource dataSource, Format format, String table) {
+        this(dataSource, format, table, new ProductIdAllocator(dataSource), table.equals("products"));
+    }
+
+    /** Copies into one partition for {@link ProductPartitionWriter}, which records the keys itself where needed. */
+    ProductCopyWriter(DataSource dataSource, Format format, String table, ProductIdAllocator idAllocator) {
+        this(dataSource, format, table, idAllocator, false);
+    }
+
+    private ProductCopyWriter(DataSource dataSource, Format format, String table, ProductIdAllocator idAllocator,
+                              boolean recordKeys) {
+        this.dataSource = dataSource;
+        this.format = format;
+        this.idAllocator = idAllocator;
+        this.recordKeys = recordKeys;
+        this.copySql = "COPY " + table + " (id, " + String.join(", ", COLUMNS) + ") FROM STDIN"
+                + (format == Format.BINARY ? " (FORMAT binary)" : "");
+    }
+
+    @Override
+    public void write(Chunk<? extends Product> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (recordKeys) {
+                ProductKeyWriter.insert(connection, chunk.getItems());
+            }
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            PGCopyOutputStream copy = new PGCopyOutputStream(pgConnection, copySql, BUFFER_SIZE);
+            try {
+                RowEncoder encoder = format == Format.BINARY ? new BinaryRowEncoder(copy) : new TextRowEncoder(copy);
+                for (Product product : chunk) {
+                    if (product.getId() == null) {
+                        product.setId(idAllocator.nextId());
+                    }
+                    encodeRow(product, encoder);
+                }
+                encoder.finish();
+                copy.endCopy();
+            } catch (Exception e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e;
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /** Emits the id followed by the fields of one product in {@link #COLUMNS} order. */
+    static void encodeRow(Product product, RowEncoder encoder) throws IOException {
+        encoder.startRow();
+        encoder.bigint(product.getId());
+        encoder.uuid(product.getUuid());
+        encoder.text(product.getName());
+        encoder.text(product.getBrand());
+        encoder.text(product.getCategory());
+        encoder.text(product.getSubcategory());
+        encoder.text(product.getDescription());
+        encoder.number(product.getPrice());
+        encoder.text(product.getCurrency());
+        encoder.number(product.getDiscountPercent());
+        encoder.number(product.getFinalPrice());
+        encoder.number(product.getRating());
+        encoder.integer(product.getReviewCount());
+        encoder.integer(product.getStockQuantity());
+        encoder.bool(product.getInStock());
+        encoder.text(product.getSku());
+        encoder.text(product.getBarcode());
+        encoder.number(product.getWeightKg());
+        encoder.text(product.getTags());
+        encoder.text(product.getImageUrl());
+        encoder.text(product.getThumbnailUrl());
+        encoder.timestamp(product.getCreatedAt());
+        encoder.timestamp(product.getUpdatedAt());
+        encoder.text(product.getStatus());
+        encoder.bool(product.getFeatured());
+        encoder.number(product.getLengthCm());
+        encoder.number(product.getWidthCm());
+        encoder.number(product.getHeightCm());
+        encoder.bool(product.getFreeShipping());
+        encoder.number(product.getShippingCost());
+        encoder.integer(product.getEstimatedDays());
+        encoder.text(product.getCustomiseLink());
+        encoder.endRow();
+    }
+
+    interface RowEncoder {
+        void startRow() throws IOException;
+        void bigint(Long value) throws IOException;
+        void uuid(UUID value) throws IOException;
+        void text(String value) throws IOException;
+        void number(Double value) throws IOException;
+        void integer(Integer value) throws IOException;
+        void bool(Boolean value) throws IOException;
+        void timestamp(LocalDateTime value) throws IOException;
+        void endRow() throws IOException;
+        void finish() throws IOException;
+    }
+
+    /** Tab-separated COPY text format with {@code \N} for nulls. */
+    static class TextRowEncoder implements RowEncoder {
+
+        private final OutputStream out;
+        private final StringBuilder row = new StringBuilder(512);
+        private int column;
+
+        TextRowEncoder(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void startRow() {
+            row.setLength(0);
+            column = 0;
+        }
+
+        private void separator() {
+            if (column++ > 0) {
+                row.append('\t');
+            }
+        }
+
+        private void raw(Object value) {
+            separator();
+            if (value == null) {
+                row.append("\\N");
+            } else {
+                row.append(value);
+            }
+        }
+
+        @Override
+        public void bigint(Long value) {
+            raw(value);
+        }
+
+        @Override
+        public void uuid(UUID value) {
+            raw(value);
+        }
+
+        @Override
+        public void text(String value) {
+            separator();
+            if (value == null) {
+                row.append("\\N");
+                return;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '\\' -> row.append("\\\\");
+                    case '\t' -> row.append("\\t");
+                    case '\n' -> row.append("\\n");
+                    case '\r' -> row.append("\\r");
+                    default -> row.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void number(Double value) {
+            raw(value == null ? null : BigDecimal.valueOf(value).toPlainString());
+        }
+
+        @Override
+        public void integer(Integer value) {
+            raw(value);
+        }
+
+        @Override
+        public void bool(Boolean value) {
+            raw(value);
+        }
+
+        @Override
+        public void timestamp(LocalDateTime value) {
+            raw(value);
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            row.append('\n');
+            out.write(row.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+
+    /** PostgreSQL binary COPY format: signature, per-tuple field count and length-prefixed values. */
+    static class BinaryRowEncoder implements RowEncoder {
+
+        private final DataOutputStream out;
+
+        BinaryRowEncoder(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(out);
+            this.out.write(BINARY_SIGNATURE);
+            this.out.writeInt(0); // flags
+            this.out.writeInt(0); // header extension length
+        }
+
+        @Override
+        public void startRow() throws IOException {
+            out.writeShort(COLUMNS.length + 1);
+        }
+
+        @Override
+        public void bigint(Long value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(8);
+            out.writeLong(value);
+        }
+
+        @Override
+        public void uuid(UUID value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(16);
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+
+        @Override
+        public void text(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public void number(Double value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            writeNumeric(BigDecimal.valueOf(value));
+        }
+
+        @Override
+        public void integer(Integer value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(4);
+            out.writeInt(value);
+        }
+
+        @Override
+        public void bool(Boolean value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(1);
+            out.writeByte(value ? 1 : 0);
+        }
+
+        @Override
+        public void timestamp(LocalDateTime value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(8);
+            out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, value));
+        }
+
+        @Override
+        public void endRow() {
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.writeShort(-1);
+            out.flush();
+        }
+
+        /**
+         * Writes a NUMERIC as base-10000 digit groups with weight, sign and display scale;
+         * the server applies the column's precision and scale on receive.
+         */
+        private void writeNumeric(BigDecimal value) throws IOException {
+            BigDecimal abs = value.abs();
+            if (abs.scale() < 0) {
+                abs = abs.setScale(0);
+            }
+            int dscale = abs.scale();
+            String plain = abs.toPlainString();
+            int point = plain.indexOf('.');
+            String integerPart = point < 0 ? plain : plain.substring(0, point);
+            String fractionPart = point < 0 ? "" : plain.substring(point + 1);
+
+            int integerGroups = (integerPart.length() + 3) / 4;
+            int fractionGroups = (fractionPart.length() + 3) / 4;
+            String digits = "0".repeat(integerGroups * 4 - integerPart.length()) + integerPart
+                    + fractionPart + "0".repeat(fractionGroups * 4 - fractionPart.length());
+
+            short[] groups = new short[integerGroups + fractionGroups];
+            for (int i = 0; i < groups.length; i++) {
+                groups[i] = Short.parseShort(digits.substring(i * 4, i * 4 + 4));
+            }
+            int first = 0;
+            while (first < groups.length && groups[first] == 0) {
+                first++;
+            }
+            int last = groups.length - 1;
+            while (last >= first && groups[last] == 0) {
+                last--;
+            }
+            int ndigits = last - first + 1;
+            int weight = ndigits == 0 ? 0 : integerGroups - 1 - first;
+            int sign = ndigits == 0 || value.signum() >= 0 ? 0x0000 : 0x4000;
+
+            out.writeInt(8 + 2 * ndigits);
+            out.writeShort(ndigits);
+            out.writeShort(weight);
+            out.writeShort(sign);
+            out.writeShort(dscale);
+            for (int i = first; i <= last; i++) {
+                out.writeShort(groups[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out product ids from {@code products_id_pooled_seq} with the same semantics as
+ * Hibernate's pooled optimizer: each {@code nextval} returns the upper end of a block of
+ * {@link Product#ID_ALLOCATION_SIZE} ids, so JDBC writers and JPA never overlap.
+ *
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}: the {@code nextval} round trip
+ * happens while it is held, and a virtual thread blocked in a {@code synchronized} block would pin its
+ * carrier thread for that long.
+ */
+public class ProductIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next = 1;
+    private long hi = 0;
+
+    public ProductIdAllocator(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next > hi) {
+                hi = jdbcTemplate.queryForObject("SELECT nextval('products_id_pooled_seq')", Long.class);
+                next = hi - Product.ID_ALLOCATION_SIZE + 1;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
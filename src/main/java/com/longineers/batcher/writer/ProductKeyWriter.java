@@ -0,0 +1,72 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * Records the {@code uuid} and {@code category} of each product of a chunk in {@link #TABLE}, which is
+ * not partitioned and has {@code uuid} as its primary key. {@code products} is partitioned by category, and
+ * its unique indexes must include it, so this table is what keeps a {@code uuid} from being stored under
+ * two categories: a chunk with a {@code uuid} that is already stored, under any category, or that occurs
+ * twice in it fails with a unique violation.
+ *
+ * Every writer of {@code products} keeps the table in step, on the connection of the step's transaction,
+ * so that the keys are rolled back together with the chunk. The COPY writers and {@link ProductUpsertWriter}
+ * do so themselves; this writer runs before {@code JpaItemWriter}.
+ */
+public class ProductKeyWriter implements ItemWriter<Product> {
+
+    public static final String TABLE = "product_keys";
+
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + " (uuid, category) "
+            + "SELECT * FROM unnest(?::uuid[], ?::text[])";
+
+    private static final String UPSERT_SQL = INSERT_SQL + " ON CONFLICT (uuid) DO UPDATE SET category = EXCLUDED.category "
+            + "WHERE " + TABLE + ".category <> EXCLUDED.category";
+
+    private final DataSource dataSource;
+
+    public ProductKeyWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void write(Chunk<? extends Product> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            insert(connection, chunk.getItems());
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /** Records the keys of products new to {@code products}; fails on a {@code uuid} stored or given before. */
+    static void insert(Connection connection, Collection<? extends Product> products) throws SQLException {
+        execute(connection, INSERT_SQL, products);
+    }
+
+    /** Records the keys of new products and moves those of stored ones to the category given; each uuid once. */
+    static void upsert(Connection connection, Collection<? extends Product> products) throws SQLException {
+        execute(connection, UPSERT_SQL, products);
+    }
+
+    private static void execute(Connection connection, String sql, Collection<? extends Product> products)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("uuid", products.stream().map(Product::getUuid).toArray()));
+            statement.setArray(2, connection.createArrayOf("text", products.stream().map(Product::getCategory).toArray()));
+            statement.executeUpdate();
+        }
+    }
+}
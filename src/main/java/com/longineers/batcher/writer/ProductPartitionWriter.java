@@ -0,0 +1,71 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups each chunk by the partition of {@code table} that stores each product's category and streams
+ * every group with {@code COPY} straight into its partition, so the server does not route the rows one
+ * by one and each {@code COPY} only touches the indexes of one partition.
+ *
+ * The partitions are read from the catalog on the first write; see {@link ProductPartitions}. All groups
+ * are written on the connection of the step's transaction and take their ids from one
+ * {@link ProductIdAllocator}. Writing to the partitions of {@code products} directly, it records the keys of
+ * the chunk with {@link ProductKeyWriter} itself.
+ */
+public class ProductPartitionWriter implements ItemWriter<Product> {
+
+    private final DataSource dataSource;
+    private final ProductCopyWriter.Format format;
+    private final String table;
+    private final ProductIdAllocator idAllocator;
+    private final Map<String, ProductCopyWriter> writers = new HashMap<>();
+
+    private ProductPartitions partitions;
+
+    public ProductPartitionWriter(DataSource dataSource, ProductCopyWriter.Format format, String table) {
+        this.dataSource = dataSource;
+        this.format = format;
+        this.table = table;
+        this.idAllocator = new ProductIdAllocator(dataSource);
+    }
+
+    @Override
+    public void write(Chunk<? extends Product> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        if (partitions == null) {
+            partitions = ProductPartitions.load(new JdbcTemplate(dataSource), table);
+        }
+        if (table.equals("products")) {
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            try {
+                ProductKeyWriter.insert(connection, chunk.getItems());
+            } finally {
+                DataSourceUtils.releaseConnection(connection, dataSource);
+            }
+        }
+        Map<String, List<Product>> groups = new LinkedHashMap<>();
+        for (Product product : chunk) {
+            groups.computeIfAbsent(partitions.partitionFor(product.getCategory()), partition -> new ArrayList<>())
+                    .add(product);
+        }
+        for (Map.Entry<String, List<Product>> group : groups.entrySet()) {
+            writers.computeIfAbsent(group.getKey(),
+                            partition -> new ProductCopyWriter(dataSource, format, partition, idAllocator))
+                    .write(new Chunk<>(group.getValue()));
+        }
+    }
+}
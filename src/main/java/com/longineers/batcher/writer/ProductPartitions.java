@@ -0,0 +1,76 @@
+package com.longineers.batcher.writer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The partitions of a table partitioned with {@code PARTITION BY LIST (category)}, such as {@code products}
+ * since V8, read from the catalog: which partition stores a category, and which partitions store
+ * nothing but one category. A table partitioned otherwise, or not at all, is treated as one partition.
+ */
+public final class ProductPartitions {
+
+    private static final String PARTITIONS_SQL = """
+            SELECT quote_ident(c.relname) AS name, pg_get_expr(c.relpartbound, c.oid) AS bound
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+            ORDER BY c.relname""";
+
+    private static final Pattern VALUE = Pattern.compile("'((?:[^']|'')*)'|NULL");
+
+    private final String table;
+    private final Map<String, String> partitionByCategory = new HashMap<>();
+    private final Map<String, Integer> categoriesByPartition = new HashMap<>();
+    private String defaultPartition;
+
+    private ProductPartitions(String table) {
+        this.table = table;
+    }
+
+    public static ProductPartitions load(JdbcTemplate jdbcTemplate, String table) {
+        ProductPartitions partitions = new ProductPartitions(table);
+        String partitionKey = jdbcTemplate.queryForObject("SELECT pg_get_partkeydef(to_regclass(?))", String.class, table);
+        if (!"LIST (category)".equals(partitionKey)) {
+            return partitions;
+        }
+        for (Map<String, Object> row : jdbcTemplate.queryForList(PARTITIONS_SQL, table)) {
+            String name = (String) row.get("name");
+            String bound = (String) row.get("bound");
+            if (bound.equals("DEFAULT")) {
+                partitions.defaultPartition = name;
+                continue;
+            }
+            List<String> categories = new ArrayList<>();
+            Matcher value = VALUE.matcher(bound.substring(bound.indexOf('(')));
+            while (value.find()) {
+                categories.add(value.group(1) != null ? value.group(1).replace("''", "'") : null);
+            }
+            categories.forEach(category -> partitions.partitionByCategory.put(category, name));
+            partitions.categoriesByPartition.put(name, categories.size());
+        }
+        return partitions;
+    }
+
+    /** The partition a product of {@code category} is stored in; the table itself if it is not partitioned. */
+    public String partitionFor(String category) {
+        String partition = partitionByCategory.get(category);
+        if (partition != null) {
+            return partition;
+        }
+        return Objects.requireNonNullElse(defaultPartition, table);
+    }
+
+    /** The partition that stores {@code category} and nothing else, or {@code null} if there is none. */
+    public String exclusivePartition(String category) {
+        String partition = partitionByCategory.get(category);
+        return partition != null && categoriesByPartition.get(partition) == 1 ? partition : null;
+    }
+}
@@ -0,0 +1,283 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.model.Product;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts new products and updates existing ones, keyed on {@code uuid}, with one
+ * {@code INSERT ... SELECT FROM unnest(...) ON CONFLICT (uuid, category) DO UPDATE} statement per chunk.
+ *
+ * {@code products} is partitioned by category, so its unique index on {@code uuid} includes it. A
+ * product whose category changed is first moved to its new category with an {@code UPDATE}, which
+ * moves the row to the new partition; the upsert then updates it like any other changed row. The keys
+ * in {@link ProductKeyWriter#TABLE} are inserted or moved along with them.
+ *
+ * Each row carries a hash of its imported fields in {@code content_hash}; the update only applies
+ * where the stored hash differs, so rows that did not change are not written at all. Of several
+ * rows with the same uuid in one chunk only the last is written, the others count as unchanged.
+ * Ids are only taken from the pooled sequence for uuids that are not stored yet, so re-importing
+ * unchanged rows uses up no ids.
+ *
+ * Inserted, updated and unchanged counts are added to the step execution context under
+ * {@link #INSERTED_KEY}, {@link #UPDATED_KEY} and {@link #UNCHANGED_KEY} once the chunk commits.
+ */
+public class ProductUpsertWriter implements ItemWriter<Product> {
+
+    public static final String INSERTED_KEY = "upsert.inserted";
+    public static final String UPDATED_KEY = "upsert.updated";
+    public static final String UNCHANGED_KEY = "upsert.unchanged";
+
+    private static final String MOVE_SQL = "UPDATE products SET category = moved.category "
+            + "FROM unnest(?::uuid[], ?::text[]) AS moved(uuid, category) "
+            + "WHERE products.uuid = moved.uuid AND products.category <> moved.category";
+
+    private static final String EXISTING_IDS_SQL = "SELECT uuid, id FROM products WHERE uuid = ANY(?)";
+
+    private final DataSource dataSource;
+    private final ProductIdAllocator idAllocator;
+    private final List<String> columnTypes;
+    private final String upsertSql;
+
+    public ProductUpsertWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.idAllocator = new ProductIdAllocator(dataSource);
+
+        // The column types follow from the encoder calls made by encodeRow
+        ColumnarRowEncoder probe = new ColumnarRowEncoder();
+        encode(new Product(), probe);
+        this.columnTypes = probe.types;
+
+        String updates = Arrays.stream(ProductCopyWriter.COLUMNS)
+                .filter(column -> !column.equals("uuid"))
+                .map(column -> column + " = EXCLUDED." + column)
+                .collect(Collectors.joining(", "));
+        String arrays = columnTypes.stream()
+                .map(type -> "?::" + type + "[]")
+                .collect(Collectors.joining(", "));
+        this.upsertSql = "INSERT INTO products (id, " + String.join(", ", ProductCopyWriter.COLUMNS) + ", content_hash) "
+                + "SELECT * FROM unnest(" + arrays + ") "
+                + "ON CONFLICT (uuid, category) DO UPDATE SET " + updates + ", content_hash = EXCLUDED.content_hash "
+                + "WHERE products.content_hash IS DISTINCT FROM EXCLUDED.content_hash "
+                + "RETURNING (xmax = 0) AS inserted";
+    }
+
+    @Override
+    public void write(Chunk<? extends Product> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Map<UUID, Product> latest = new LinkedHashMap<>();
+        for (Product product : chunk) {
+            latest.put(product.getUuid(), product);
+        }
+
+        long inserted = 0;
+        long updated = 0;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement move = connection.prepareStatement(MOVE_SQL);
+             PreparedStatement statement = connection.prepareStatement(upsertSql)) {
+            // Existing rows keep their id; only new ones take the next one from the pooled sequence
+            Map<UUID, Long> existingIds = existingIds(connection, latest.keySet());
+            ColumnarRowEncoder encoder = new ColumnarRowEncoder();
+            for (Product product : latest.values()) {
+                encode(product, encoder);
+                Long id = existingIds.get(product.getUuid());
+                encoder.replaceLast(0, id != null ? id : idAllocator.nextId());
+            }
+            // Products whose category changed move to the partition of the new one first
+            ProductKeyWriter.upsert(connection, latest.values());
+            move.setArray(1, connection.createArrayOf("uuid", latest.keySet().toArray()));
+            move.setArray(2, connection.createArrayOf("text",
+                    latest.values().stream().map(Product::getCategory).toArray()));
+            move.executeUpdate();
+            for (int i = 0; i < columnTypes.size(); i++) {
+                statement.setArray(i + 1, connection.createArrayOf(columnTypes.get(i), encoder.columns.get(i).toArray()));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (resultSet.getBoolean(1)) {
+                        inserted++;
+                    } else {
+                        updated++;
+                    }
+                }
+            }
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        record(inserted, updated, chunk.size() - inserted - updated);
+    }
+
+    private static Map<UUID, Long> existingIds(Connection connection, Set<UUID> uuids) throws SQLException {
+        Map<UUID, Long> ids = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(EXISTING_IDS_SQL)) {
+            select.setArray(1, connection.createArrayOf("uuid", uuids.toArray()));
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    ids.put(resultSet.getObject(1, UUID.class), resultSet.getLong(2));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void encode(Product product, ColumnarRowEncoder encoder) {
+        try {
+            ProductCopyWriter.encodeRow(product, encoder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void record(long inserted, long updated, long unchanged) {
+        StepContext stepContext = StepSynchronizationManager.getContext();
+        if (stepContext == null) {
+            return;
+        }
+        ExecutionContext executionContext = stepContext.getStepExecution().getExecutionContext();
+        Runnable add = () -> {
+            executionContext.putLong(INSERTED_KEY, executionContext.getLong(INSERTED_KEY, 0) + inserted);
+            executionContext.putLong(UPDATED_KEY, executionContext.getLong(UPDATED_KEY, 0) + updated);
+            executionContext.putLong(UNCHANGED_KEY, executionContext.getLong(UNCHANGED_KEY, 0) + unchanged);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add.run();
+                }
+            });
+        } else {
+            add.run();
+        }
+    }
+
+    /**
+     * Collects the rows of a chunk column by column for {@code unnest}, and appends the content hash
+     * of each row, computed over every field except the id, as the last column.
+     */
+    static class ColumnarRowEncoder implements ProductCopyWriter.RowEncoder {
+
+        private final List<String> types = new ArrayList<>();
+        private final List<List<Object>> columns = new ArrayList<>();
+        private final MessageDigest digest;
+        private int column;
+
+        ColumnarRowEncoder() {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void add(String type, Object value, byte[] hashed) {
+            if (columns.size() == column) {
+                types.add(type);
+                columns.add(new ArrayList<>());
+            }
+            columns.get(column).add(value);
+            if (column > 0) {
+                if (hashed == null) {
+                    digest.update((byte) 0);
+                } else {
+                    digest.update((byte) 1);
+                    digest.update(ByteBuffer.allocate(4).putInt(hashed.length).array());
+                    digest.update(hashed);
+                }
+            }
+            column++;
+        }
+
+        void replaceLast(int columnIndex, Object value) {
+            List<Object> values = columns.get(columnIndex);
+            values.set(values.size() - 1, value);
+        }
+
+        @Override
+        public void startRow() {
+            column = 0;
+            digest.reset();
+        }
+
+        @Override
+        public void bigint(Long value) {
+            add("int8", value, value == null ? null : ByteBuffer.allocate(8).putLong(value).array());
+        }
+
+        @Override
+        public void uuid(UUID value) {
+            add("uuid", value, value == null ? null : ByteBuffer.allocate(16)
+                    .putLong(value.getMostSignificantBits())
+                    .putLong(value.getLeastSignificantBits())
+                    .array());
+        }
+
+        @Override
+        public void text(String value) {
+            add("text", value, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void number(Double value) {
+            String plain = value == null ? null : BigDecimal.valueOf(value).toPlainString();
+            add("numeric", plain, plain == null ? null : plain.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public void integer(Integer value) {
+            add("int4", value, value == null ? null : ByteBuffer.allocate(4).putInt(value).array());
+        }
+
+        @Override
+        public void bool(Boolean value) {
+            add("bool", value, value == null ? null : new byte[] {(byte) (value ? 1 : 0)});
+        }
+
+        @Override
+        public void timestamp(LocalDateTime value) {
+            add("timestamp", value == null ? null : Timestamp.valueOf(value),
+                    value == null ? null : value.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public void endRow() {
+            bigint(ByteBuffer.wrap(digest.digest()).getLong());
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.longineers.batcher.writer;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.persistence.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Set;
+
+/**
+ * Recognises database errors that may succeed when the chunk is written again: serialization failures,
+ * deadlocks, lock and statement timeouts. The writers report them differently, the JPA writer as
+ * JPA or Spring exceptions and the JDBC writers as the driver's {@link SQLException}, sometimes wrapped in
+ * an {@link java.io.IOException} by {@code COPY}, so the whole cause chain is inspected.
+ */
+public final class TransientDatabaseErrors {
+
+    /** serialization_failure, deadlock_detected, lock_not_available, query_canceled (statement timeout). */
+    private static final Set<String> TRANSIENT_SQL_STATES = Set.of("40001", "40P01", "55P03", "57014");
+
+    private TransientDatabaseErrors() {
+    }
+
+    public static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof TransientDataAccessException
+                    || t instanceof SQLTransientException
+                    || t instanceof PessimisticLockException
+                    || t instanceof LockTimeoutException
+                    || t instanceof QueryTimeoutException) {
+                return true;
+            }
+            if (t instanceof SQLException e && e.getSQLState() != null && TRANSIENT_SQL_STATES.contains(e.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
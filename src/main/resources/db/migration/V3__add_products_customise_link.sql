@@ -0,0 +1,2 @@
+-- Adds the column populated by customiseLinkProcessor and mapped by Product.customiseLink
+ALTER TABLE products ADD COLUMN customise_link TEXT;
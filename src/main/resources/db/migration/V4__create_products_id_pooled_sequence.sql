@@ -0,0 +1,7 @@
+-- Replaces the BIGSERIAL sequence with a pooled one so Hibernate can batch inserts.
+-- Each nextval reserves a block of 1000 ids (see Product.ID_ALLOCATION_SIZE).
+CREATE SEQUENCE products_id_pooled_seq START WITH 1000 INCREMENT BY 1000;
+SELECT setval('products_id_pooled_seq', COALESCE((SELECT MAX(id) FROM products), 0) + 1000, false);
+ALTER TABLE products ALTER COLUMN id SET DEFAULT nextval('products_id_pooled_seq');
+ALTER SEQUENCE products_id_pooled_seq OWNED BY products.id;
+DROP SEQUENCE products_id_seq;
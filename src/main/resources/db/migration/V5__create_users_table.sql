@@ -0,0 +1,12 @@
+-- Creates the users table; passwords are stored as BCrypt hashes, roles as a comma-separated list
+CREATE TABLE users (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(100) NOT NULL,
+    roles VARCHAR(255) NOT NULL DEFAULT 'USER',
+    enabled BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+-- The default user that was hardcoded in LoginUserDetailService (password: "password"); change it after the first login
+INSERT INTO users (username, password_hash, roles)
+VALUES ('user', '$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG', 'USER');
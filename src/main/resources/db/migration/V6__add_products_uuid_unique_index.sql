@@ -0,0 +1,17 @@
+-- Makes uuid the natural key of products so that imports can upsert on it.
+-- Earlier re-imports may have duplicated rows. Which copy to keep is the operator's decision, so the
+-- migration stops instead of deleting any; the hint keeps the newest copy of each uuid.
+DO $$
+DECLARE
+    duplicated BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO duplicated FROM (SELECT uuid FROM products GROUP BY uuid HAVING COUNT(*) > 1) d;
+    IF duplicated > 0 THEN
+        RAISE EXCEPTION '% uuids occur more than once in products; remove the duplicates before migrating', duplicated
+            USING HINT = 'DELETE FROM products a USING products b WHERE a.uuid = b.uuid AND a.id < b.id';
+    END IF;
+END $$;
+CREATE UNIQUE INDEX products_uuid_key ON products (uuid);
+
+-- Hash of the imported fields, written by the upsert writer to skip rows that did not change
+ALTER TABLE products ADD COLUMN content_hash BIGINT;
@@ -0,0 +1,5 @@
+-- Indexes for looking products up by sku, barcode and category.
+-- Bulk loads drop and rebuild them around the import, see DropSecondaryIndexesTasklet.
+CREATE INDEX products_sku_idx ON products (sku);
+CREATE INDEX products_barcode_idx ON products (barcode);
+CREATE INDEX products_category_idx ON products (category);
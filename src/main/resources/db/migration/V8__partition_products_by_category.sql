@@ -0,0 +1,58 @@
+-- Partitions products by category: one partition per category of the generated feed, and a default
+-- partition for any other category.
+-- A primary key or unique index on a partitioned table must include the partition key, so the primary
+-- key becomes (id, category) and category NOT NULL. uuid stays unique across categories through
+-- product_keys, which is not partitioned and which the writers keep in step with products.
+-- Needs PostgreSQL 12 or later, for pg_partition_tree in the staging swap.
+DO $$
+DECLARE
+    uncategorized BIGINT;
+BEGIN
+    IF current_setting('server_version_num')::int < 120000 THEN
+        RAISE EXCEPTION 'Partitioning products needs PostgreSQL 12 or later, found %', current_setting('server_version');
+    END IF;
+    SELECT COUNT(*) INTO uncategorized FROM products WHERE category IS NULL;
+    IF uncategorized > 0 THEN
+        RAISE EXCEPTION '% products have no category, which partitions them; give them one before migrating', uncategorized
+            USING HINT = 'UPDATE products SET category = ''Uncategorized'' WHERE category IS NULL';
+    END IF;
+END $$;
+
+ALTER TABLE products RENAME TO products_unpartitioned;
+ALTER INDEX products_pkey RENAME TO products_unpartitioned_pkey;
+ALTER INDEX products_uuid_key RENAME TO products_unpartitioned_uuid_key;
+DROP INDEX products_sku_idx, products_barcode_idx, products_category_idx;
+
+CREATE TABLE products (LIKE products_unpartitioned INCLUDING DEFAULTS) PARTITION BY LIST (category);
+ALTER TABLE products ALTER COLUMN category SET NOT NULL;
+
+CREATE TABLE products_electronics PARTITION OF products FOR VALUES IN ('Electronics');
+CREATE TABLE products_clothing PARTITION OF products FOR VALUES IN ('Clothing');
+CREATE TABLE products_home_garden PARTITION OF products FOR VALUES IN ('Home & Garden');
+CREATE TABLE products_sports PARTITION OF products FOR VALUES IN ('Sports');
+CREATE TABLE products_books PARTITION OF products FOR VALUES IN ('Books');
+CREATE TABLE products_beauty PARTITION OF products FOR VALUES IN ('Beauty');
+CREATE TABLE products_toys PARTITION OF products FOR VALUES IN ('Toys');
+CREATE TABLE products_automotive PARTITION OF products FOR VALUES IN ('Automotive');
+CREATE TABLE products_health PARTITION OF products FOR VALUES IN ('Health');
+CREATE TABLE products_food PARTITION OF products FOR VALUES IN ('Food');
+CREATE TABLE products_tools PARTITION OF products FOR VALUES IN ('Tools');
+CREATE TABLE products_music PARTITION OF products FOR VALUES IN ('Music');
+CREATE TABLE products_default PARTITION OF products DEFAULT;
+
+INSERT INTO products SELECT * FROM products_unpartitioned;
+
+ALTER SEQUENCE products_id_pooled_seq OWNED BY products.id;
+DROP TABLE products_unpartitioned;
+
+-- Partition pruning on category makes an index on it unnecessary
+ALTER TABLE products ADD PRIMARY KEY (id, category);
+CREATE UNIQUE INDEX products_uuid_key ON products (uuid, category);
+CREATE INDEX products_sku_idx ON products (sku);
+CREATE INDEX products_barcode_idx ON products (barcode);
+
+CREATE TABLE product_keys (
+    uuid UUID PRIMARY KEY,
+    category VARCHAR(255) NOT NULL
+);
+INSERT INTO product_keys (uuid, category) SELECT uuid, category FROM products;
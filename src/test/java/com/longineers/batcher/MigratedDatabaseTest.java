@@ -0,0 +1,34 @@
+package com.longineers.batcher;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base of the tests that run against a real PostgreSQL: each test class gets a container of its own,
+ * migrated by Flyway with the application's migrations before its first test. Skipped without Docker.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class MigratedDatabaseTest {
+
+    @Container
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    protected static DriverManagerDataSource dataSource;
+    protected static TransactionTemplate transactionTemplate;
+    protected static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrateDatabase() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+}
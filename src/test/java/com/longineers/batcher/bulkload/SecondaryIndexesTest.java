@@ -0,0 +1,209 @@
+package com.longineers.batcher.bulkload;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.JdbcTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Drops and rebuilds the secondary indexes of the Flyway-migrated {@code products} table as a bulk load
+ * does, each tasklet in a transaction of its own as in its step, and after a bulk load that is stopped
+ * before its rebuild step.
+ */
+class SecondaryIndexesTest extends MigratedDatabaseTest {
+
+    private static final List<String> SECONDARY_INDEXES =
+            List.of("products_barcode_idx", "products_sku_idx");
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    @AfterEach
+    void restoreIndexes() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS products_sku_idx ON products (sku)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS products_barcode_idx ON products (barcode)");
+    }
+
+    @Test
+    void dropsSecondaryIndexesAndKeepsTheUniqueOne() {
+        JobExecution jobExecution = jobExecution(true);
+
+        run(new DropSecondaryIndexesTasklet(dataSource, jobRepository), jobExecution);
+
+        assertThat(indexes()).containsExactly("products_pkey", "products_uuid_key");
+        assertThat(BulkLoad.droppedIndexes(jobExecution.getExecutionContext()))
+                .containsOnlyKeys("public.products_barcode_idx", "public.products_sku_idx")
+                .containsEntry("public.products_sku_idx", "CREATE INDEX products_sku_idx ON ONLY public.products USING btree (sku)");
+        verify(jobRepository).updateExecutionContext(jobExecution);
+    }
+
+    @Test
+    void rebuildRestoresTheDroppedIndexesAndForgetsThem() {
+        JobExecution jobExecution = jobExecution(true);
+        run(new DropSecondaryIndexesTasklet(dataSource, jobRepository), jobExecution);
+
+        run(new RebuildSecondaryIndexesTasklet(dataSource, 2), jobExecution);
+
+        assertThat(indexes()).containsAll(SECONDARY_INDEXES);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'products_books' AND indexname LIKE '%sku%'", Integer.class))
+                .isEqualTo(1);
+        assertThat(jobExecution.getExecutionContext().containsKey(BulkLoad.DROPPED_INDEXES_KEY)).isFalse();
+    }
+
+    @Test
+    void restartKeepsTheDefinitionsRecordedByTheFirstAttempt() {
+        JobExecution first = jobExecution(true);
+        run(new DropSecondaryIndexesTasklet(dataSource, jobRepository), first);
+
+        JobExecution restart = jobExecution(true);
+        restart.getExecutionContext().put(BulkLoad.DROPPED_INDEXES_KEY,
+                first.getExecutionContext().get(BulkLoad.DROPPED_INDEXES_KEY));
+        run(new DropSecondaryIndexesTasklet(dataSource, jobRepository), restart);
+        run(new RebuildSecondaryIndexesTasklet(dataSource, 2), restart);
+
+        assertThat(indexes()).containsAll(SECONDARY_INDEXES);
+    }
+
+    @Test
+    void indexesStayWhenTheDefinitionsCannotBeSaved() {
+        JobExecution jobExecution = jobExecution(true);
+        doThrow(new IllegalStateException("repository unavailable")).when(jobRepository).updateExecutionContext(any(JobExecution.class));
+
+        assertThatThrownBy(() -> run(new DropSecondaryIndexesTasklet(dataSource, jobRepository), jobExecution))
+                .hasMessage("repository unavailable");
+        assertThat(indexes()).containsAll(SECONDARY_INDEXES);
+    }
+
+    @Test
+    void doesNothingWithoutBulkLoad() {
+        JobExecution jobExecution = jobExecution(false);
+
+        run(new DropSecondaryIndexesTasklet(dataSource, jobRepository), jobExecution);
+
+        assertThat(indexes()).containsAll(SECONDARY_INDEXES);
+        verify(jobRepository, never()).updateExecutionContext(any(JobExecution.class));
+    }
+
+    @Test
+    void addsIfNotExistsToIndexDefinitionsAndBuildsThemOnEveryPartition() {
+        assertThat(RebuildSecondaryIndexesTasklet.ifNotExists("CREATE INDEX products_sku_idx ON public.products USING btree (sku)"))
+                .isEqualTo("CREATE INDEX IF NOT EXISTS products_sku_idx ON public.products USING btree (sku)");
+        assertThat(RebuildSecondaryIndexesTasklet.ifNotExists("CREATE INDEX products_sku_idx ON ONLY public.products USING btree (sku)"))
+                .isEqualTo("CREATE INDEX IF NOT EXISTS products_sku_idx ON public.products USING btree (sku)");
+    }
+
+    @Test
+    void stoppedBulkLoadRebuildsTheDroppedIndexesAfterTheJob() throws Exception {
+        EmbeddedDatabase batchDatabase = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+        try {
+            JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+            factory.setDataSource(batchDatabase);
+            factory.setTransactionManager(new JdbcTransactionManager(batchDatabase));
+            factory.afterPropertiesSet();
+            JobRepository batchRepository = factory.getObject();
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            List<String> indexesDuringImport = new ArrayList<>();
+            TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+            launcher.setJobRepository(batchRepository);
+            launcher.afterPropertiesSet();
+
+            // The import step stops the job as JobOperator.stop does, so rebuildIndexesStep never runs.
+            JobExecution jobExecution = launcher.run(new JobBuilder("csvImportJob", batchRepository)
+                    .listener(new RebuildIndexesListener(dataSource, batchRepository, 2))
+                    .start(new StepBuilder("dropIndexesStep", batchRepository)
+                            .tasklet(new DropSecondaryIndexesTasklet(dataSource, batchRepository), transactionManager)
+                            .build())
+                    .next(new StepBuilder("csvImportStep", batchRepository)
+                            .tasklet((contribution, chunkContext) -> {
+                                indexesDuringImport.addAll(indexes());
+                                chunkContext.getStepContext().getStepExecution().setTerminateOnly();
+                                return RepeatStatus.FINISHED;
+                            }, transactionManager)
+                            .build())
+                    .next(new StepBuilder("rebuildIndexesStep", batchRepository)
+                            .tasklet(new RebuildSecondaryIndexesTasklet(dataSource, 2), transactionManager)
+                            .build())
+                    .build(), jobExecution(true).getJobParameters());
+
+            assertThat(jobExecution.getStatus()).isEqualTo(BatchStatus.STOPPED);
+            assertThat(jobExecution.getStepExecutions()).extracting(StepExecution::getStepName)
+                    .doesNotContain("rebuildIndexesStep");
+            assertThat(indexesDuringImport).doesNotContainAnyElementsOf(SECONDARY_INDEXES);
+            assertThat(indexes()).containsAll(SECONDARY_INDEXES);
+            assertThat(batchRepository.getLastJobExecution("csvImportJob", jobExecution.getJobParameters())
+                    .getExecutionContext().containsKey(BulkLoad.DROPPED_INDEXES_KEY)).isFalse();
+        } finally {
+            batchDatabase.shutdown();
+        }
+    }
+
+    @Test
+    void listenerDoesNothingOnceTheIndexesAreRebuilt() {
+        JobExecution jobExecution = jobExecution(true);
+
+        new RebuildIndexesListener(dataSource, jobRepository, 2).afterJob(jobExecution);
+
+        assertThat(indexes()).containsAll(SECONDARY_INDEXES);
+        verify(jobRepository, never()).updateExecutionContext(any(JobExecution.class));
+    }
+
+    private static JobExecution jobExecution(boolean bulkLoad) {
+        JobParameters parameters = bulkLoad
+                ? new JobParametersBuilder().addString(BulkLoad.PARAMETER, "true").toJobParameters()
+                : new JobParameters();
+        return new JobExecution(new JobInstance(1L, "csvImportJob"), 1L, parameters);
+    }
+
+    private static void run(Tasklet tasklet, JobExecution jobExecution) {
+        StepExecution stepExecution = jobExecution.createStepExecution("indexStep");
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                tasklet.execute(new StepContribution(stepExecution), new ChunkContext(new StepContext(stepExecution)));
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static List<String> indexes() {
+        return jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'products' ORDER BY indexname", String.class);
+    }
+}
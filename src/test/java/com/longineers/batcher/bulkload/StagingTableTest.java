@@ -0,0 +1,267 @@
+package com.longineers.batcher.bulkload;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.writer.ProductCopyWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.Chunk;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs a staging load against the Flyway-migrated schema, each tasklet and chunk in a transaction of its
+ * own as in its step, and checks the table that ends up as {@code products}.
+ */
+class StagingTableTest extends MigratedDatabaseTest {
+
+    private static long jobInstanceId;
+
+    private final JobExplorer jobExplorer = mock(JobExplorer.class);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE products, product_keys");
+        jobInstanceId++;
+    }
+
+    @Test
+    void stagedRowsReplaceProductsWithTheSameIndexes() {
+        List<String> indexesBefore = indexes("products");
+        List<String> partitionIndexesBefore = indexes("products_books");
+        Set<String> partitionsBefore = StagingLoad.partitions(jdbcTemplate, "products").keySet();
+        insert(product("Old Product"));
+        JobExecution jobExecution = jobExecution();
+
+        run(createTasklet(), jobExecution);
+        assertThat(persistence(StagingLoad.partitionName("products_default", jobInstanceId))).isEqualTo("u");
+        write(jobExecution, product("New Product"), product("Other New Product"));
+        assertThat(names()).containsExactly("Old Product");
+
+        run(swapTasklet(), jobExecution);
+
+        assertThat(names()).containsExactlyInAnyOrder("New Product", "Other New Product");
+        assertThat(persistence("products_default")).isEqualTo("p");
+        assertThat(StagingLoad.partitions(jdbcTemplate, "products").keySet()).isEqualTo(partitionsBefore);
+        assertThat(indexes("products")).isEqualTo(indexesBefore);
+        assertThat(indexes("products_books")).isEqualTo(partitionIndexesBefore);
+        assertThat(jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('products', 'id')", String.class))
+                .isEqualTo("public.products_id_pooled_seq");
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NULL", Boolean.class,
+                StagingLoad.tableName(jobInstanceId))).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_keys", Integer.class)).isEqualTo(2);
+        assertThat(indexes("product_keys")).containsExactly(
+                "CREATE UNIQUE INDEX product_keys_pkey ON public.product_keys USING btree (uuid)");
+    }
+
+    @Test
+    void restartKeepsTheRowsStagedSoFar() {
+        JobExecution first = jobExecution();
+        run(createTasklet(), first);
+        write(first, product("Staged Before Failure"));
+
+        JobExecution restart = jobExecution();
+        run(createTasklet(), restart);
+        write(restart, product("Staged After Restart"));
+        run(swapTasklet(), restart);
+
+        assertThat(names()).containsExactlyInAnyOrder("Staged Before Failure", "Staged After Restart");
+    }
+
+    @Test
+    void restartAfterACompletedImportSwapsInTheRowsAlreadyStaged() {
+        JobExecution first = jobExecution();
+        run(createTasklet(), first);
+        write(first, product("Imported Once"));
+
+        // The completed import is not run again, so the restart goes on to the swap with the kept table.
+        JobExecution restart = jobExecution();
+        run(createTasklet(), restart);
+        run(swapTasklet(), restart);
+
+        assertThat(names()).containsExactly("Imported Once");
+    }
+
+    @Test
+    void restartFailsWhenTheServerMayHaveEmptiedTheTable() {
+        JobExecution first = jobExecution();
+        run(createTasklet(), first);
+        String table = StagingLoad.tableName(jobInstanceId);
+        jdbcTemplate.execute("COMMENT ON TABLE " + table + " IS '0'");
+
+        assertThatThrownBy(() -> run(createTasklet(), jobExecution()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(table);
+        assertThatThrownBy(() -> run(swapTasklet(), jobExecution()))
+                .isInstanceOf(IllegalStateException.class);
+        jdbcTemplate.execute("DROP TABLE " + table);
+    }
+
+    @Test
+    void swapFailsOnAUuidStagedUnderTwoCategories() {
+        insert(product("Old Product"));
+        JobExecution jobExecution = jobExecution();
+        run(createTasklet(), jobExecution);
+        Product book = product("Twice Staged");
+        book.setCategory("Books");
+        Product record = product("Twice Staged");
+        record.setCategory("Music");
+        write(jobExecution, book, record);
+
+        assertThatThrownBy(() -> run(swapTasklet(), jobExecution))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(book.getUuid().toString());
+        assertThat(names()).containsExactly("Old Product");
+        jdbcTemplate.execute("DROP TABLE " + StagingLoad.tableName(jobInstanceId));
+    }
+
+    @Test
+    void swapOfAnAlreadySwappedTableDoesNothing() {
+        JobExecution jobExecution = jobExecution();
+        run(createTasklet(), jobExecution);
+        write(jobExecution, product("New Product"));
+        run(swapTasklet(), jobExecution);
+
+        run(swapTasklet(), jobExecution);
+
+        assertThat(names()).containsExactly("New Product");
+    }
+
+    @Test
+    void stagingLoadOfSomeCategoriesOrFilteredRowsFails() {
+        JobExecution categories = new JobExecution(new JobInstance(jobInstanceId, "csvImportJob"), jobInstanceId,
+                new JobParametersBuilder().addString(StagingLoad.PARAMETER, "true").addString("categories", "Books").toJobParameters());
+        JobExecution filter = new JobExecution(new JobInstance(jobInstanceId, "csvImportJob"), jobInstanceId,
+                new JobParametersBuilder().addString(StagingLoad.PARAMETER, "true").addString("filter", "inStock = true").toJobParameters());
+
+        assertThatThrownBy(() -> run(createTasklet(), categories))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("categories or filter");
+        assertThatThrownBy(() -> run(createTasklet(), filter))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(StagingLoad.exists(jdbcTemplate, StagingLoad.tableName(jobInstanceId))).isFalse();
+
+        run(createTasklet(), jobExecution());
+        assertThatThrownBy(() -> run(swapTasklet(), filter))
+                .isInstanceOf(IllegalStateException.class);
+        jdbcTemplate.execute("DROP TABLE " + StagingLoad.tableName(jobInstanceId));
+    }
+
+    @Test
+    void dropsTheStagingTablesOfAbandonedButNotOfFailedInstances() {
+        long abandoned = jobInstanceId;
+        long failed = abandoned + 1;
+        givenLastExecution(abandoned, BatchStatus.STARTED);
+        givenLastExecution(failed, BatchStatus.FAILED);
+        run(createTasklet(), jobExecution());
+        jobInstanceId = failed;
+        run(createTasklet(), jobExecution());
+        givenLastExecution(abandoned, BatchStatus.ABANDONED);
+
+        jobInstanceId++;
+        run(createTasklet(), jobExecution());
+
+        assertThat(StagingLoad.exists(jdbcTemplate, StagingLoad.tableName(abandoned))).isFalse();
+        assertThat(StagingLoad.exists(jdbcTemplate, StagingLoad.partitionName("products_books", abandoned))).isFalse();
+        assertThat(StagingLoad.exists(jdbcTemplate, StagingLoad.tableName(failed))).isTrue();
+        assertThat(StagingLoad.exists(jdbcTemplate, StagingLoad.tableName(jobInstanceId))).isTrue();
+        jdbcTemplate.execute("DROP TABLE " + StagingLoad.tableName(failed) + ", " + StagingLoad.tableName(jobInstanceId));
+    }
+
+    private void givenLastExecution(long id, BatchStatus status) {
+        JobInstance jobInstance = new JobInstance(id, "csvImportJob");
+        JobExecution last = new JobExecution(jobInstance, id, new JobParametersBuilder().toJobParameters());
+        last.setStatus(status);
+        when(jobExplorer.getJobInstance(id)).thenReturn(jobInstance);
+        when(jobExplorer.getLastJobExecution(jobInstance)).thenReturn(last);
+    }
+
+    private CreateStagingTableTasklet createTasklet() {
+        return new CreateStagingTableTasklet(dataSource, jobExplorer);
+    }
+
+    private static SwapStagingTableTasklet swapTasklet() {
+        return new SwapStagingTableTasklet(dataSource, 2, Duration.ofSeconds(5));
+    }
+
+    private JobExecution jobExecution() {
+        return new JobExecution(new JobInstance(jobInstanceId, "csvImportJob"), jobInstanceId,
+                new JobParametersBuilder().addString(StagingLoad.PARAMETER, "true").toJobParameters());
+    }
+
+    private static void run(Tasklet tasklet, JobExecution jobExecution) {
+        StepExecution stepExecution = jobExecution.createStepExecution("stagingStep");
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                tasklet.execute(new StepContribution(stepExecution), new ChunkContext(new StepContext(stepExecution)));
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private void write(JobExecution jobExecution, Product... products) {
+        ProductCopyWriter writer = new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY,
+                StagingLoad.tableName(jobExecution.getJobInstance().getInstanceId()));
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(new Chunk<>(List.of(products)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static void insert(Product product) {
+        try {
+            new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY).write(new Chunk<>(List.of(product)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> names() {
+        return jdbcTemplate.queryForList("SELECT name FROM products", String.class);
+    }
+
+    private static List<String> indexes(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT indexdef FROM pg_indexes WHERE tablename = ? ORDER BY indexname", String.class, table);
+    }
+
+    private static String persistence(String table) {
+        return jdbcTemplate.queryForObject(
+                "SELECT relpersistence::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+    }
+
+    private static Product product(String name) {
+        return Product.builder()
+                .uuid(UUID.nameUUIDFromBytes(name.getBytes()))
+                .name(name)
+                .category("Electronics")
+                .price(999.99)
+                .currency("USD")
+                .finalPrice(899.99)
+                .build();
+    }
+}
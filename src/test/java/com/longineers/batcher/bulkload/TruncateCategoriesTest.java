@@ -0,0 +1,62 @@
+package com.longineers.batcher.bulkload;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Empties reloaded categories of the Flyway-migrated, partitioned {@code products} table and checks that
+ * the other categories keep their rows.
+ */
+class TruncateCategoriesTest extends MigratedDatabaseTest {
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE products, product_keys");
+        for (String category : new String[] {"Books", "Music", "Garden Gnomes", "Bird Houses"}) {
+            UUID uuid = UUID.randomUUID();
+            jdbcTemplate.update("INSERT INTO products (uuid, name, category, price, currency, final_price) "
+                    + "VALUES (?, ?, ?, 1, 'USD', 1)", uuid, category + " product", category);
+            jdbcTemplate.update("INSERT INTO product_keys (uuid, category) VALUES (?, ?)", uuid, category);
+        }
+    }
+
+    @Test
+    void emptiesOnlyTheReloadedCategories() {
+        run("true", "Books, Garden Gnomes");
+
+        assertThat(jdbcTemplate.queryForList("SELECT category FROM products ORDER BY category", String.class))
+                .containsExactly("Bird Houses", "Music");
+        assertThat(jdbcTemplate.queryForList("SELECT category FROM product_keys ORDER BY category", String.class))
+                .containsExactly("Bird Houses", "Music");
+    }
+
+    @Test
+    void doesNothingWithoutReload() {
+        run(null, "Books");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class)).isEqualTo(4);
+    }
+
+    private static void run(String reload, String categories) {
+        JobParametersBuilder parameters = new JobParametersBuilder().addString("categories", categories);
+        if (reload != null) {
+            parameters.addString(TruncateCategoriesTasklet.PARAMETER, reload);
+        }
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "csvImportJob"), 1L, parameters.toJobParameters());
+        StepExecution stepExecution = jobExecution.createStepExecution("truncateCategoriesStep");
+        transactionTemplate.executeWithoutResult(status -> new TruncateCategoriesTasklet(dataSource)
+                .execute(new StepContribution(stepExecution), new ChunkContext(new StepContext(stepExecution))));
+    }
+}
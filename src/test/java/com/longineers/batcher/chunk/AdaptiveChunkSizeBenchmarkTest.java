@@ -0,0 +1,116 @@
+package com.longineers.batcher.chunk;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a step with the {@link AdaptiveChunkSizePolicy} against a writer that simulates a database whose
+ * per-row cost rises fivefold for a while and then recovers, and prints for each phase the chunk size
+ * and latency it settled on against the size that meets the target exactly. Run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class AdaptiveChunkSizeBenchmarkTest {
+
+    private static final Duration TARGET = Duration.ofMillis(50);
+    private static final long OVERHEAD_NANOS = Duration.ofMillis(5).toNanos();
+    private static final Phase[] PHASES = {
+            new Phase("normal", 20_000), new Phase("slowdown", 100_000), new Phase("recovered", 20_000)};
+    private static final int CHUNKS_PER_PHASE = 40;
+    private static final int SETTLED_CHUNKS = 15;
+
+    @Test
+    void chunkSizeFollowsSimulatedDatabaseSlowdowns() throws Exception {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                .build();
+        try {
+            JdbcTransactionManager transactionManager = new JdbcTransactionManager(database);
+            JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+            factory.setDataSource(database);
+            factory.setTransactionManager(transactionManager);
+            factory.afterPropertiesSet();
+            JobRepository jobRepository = factory.getObject();
+
+            AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(1000, 50, 20_000, TARGET);
+            SimulatedDatabaseWriter writer = new SimulatedDatabaseWriter();
+            var step = new StepBuilder("simulatedImport", jobRepository)
+                    .<Integer, Integer>chunk(policy, transactionManager)
+                    .reader(() -> writer.chunks.size() < PHASES.length * CHUNKS_PER_PHASE ? 1 : null)
+                    .writer(writer)
+                    .listener((ItemWriteListener<Object>) policy)
+                    .listener((ChunkListener) policy)
+                    .listener((StepExecutionListener) policy)
+                    .build();
+            TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+            launcher.setJobRepository(jobRepository);
+            launcher.afterPropertiesSet();
+
+            JobExecution execution = launcher.run(new JobBuilder("adaptiveChunkBenchmark", jobRepository)
+                    .start(step)
+                    .build(), new JobParameters());
+
+            assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+            StepExecution stepExecution = execution.getStepExecutions().iterator().next();
+            System.out.printf("%d adjustments recorded in the step execution context%n",
+                    stepExecution.getExecutionContext().getLong(AdaptiveChunkSizePolicy.ADJUSTMENT_COUNT_KEY));
+            for (int phase = 0; phase < PHASES.length; phase++) {
+                List<long[]> settled = writer.chunks.subList(
+                        (phase + 1) * CHUNKS_PER_PHASE - SETTLED_CHUNKS, (phase + 1) * CHUNKS_PER_PHASE);
+                double size = settled.stream().mapToLong(chunk -> chunk[0]).average().orElseThrow();
+                double latencyMillis = settled.stream().mapToLong(chunk -> chunk[1]).average().orElseThrow() / 1e6;
+                long ideal = (TARGET.toNanos() - OVERHEAD_NANOS) / PHASES[phase].nanosPerRow();
+                System.out.printf("%-10s settled at %7.0f rows per chunk (ideal %5d), %5.1f ms per chunk (target %d ms)%n",
+                        PHASES[phase].name(), size, ideal, latencyMillis, TARGET.toMillis());
+
+                assertThat(latencyMillis).isBetween(TARGET.toMillis() * 0.7, TARGET.toMillis() * 1.3);
+            }
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private record Phase(String name, long nanosPerRow) {
+    }
+
+    /** Takes a fixed overhead plus a per-row cost set by the current phase for each chunk. */
+    private static class SimulatedDatabaseWriter implements ItemWriter<Integer> {
+
+        /** Size and measured write time of each chunk. */
+        private final List<long[]> chunks = new ArrayList<>();
+
+        @Override
+        public void write(Chunk<? extends Integer> chunk) throws Exception {
+            Phase phase = PHASES[Math.min(chunks.size() / CHUNKS_PER_PHASE, PHASES.length - 1)];
+            long start = System.nanoTime();
+            Thread.sleep(Duration.ofNanos(OVERHEAD_NANOS + phase.nanosPerRow() * chunk.size()));
+            chunks.add(new long[]{chunk.size(), System.nanoTime() - start});
+        }
+    }
+}
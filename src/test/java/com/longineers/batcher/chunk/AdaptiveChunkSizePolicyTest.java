@@ -0,0 +1,120 @@
+package com.longineers.batcher.chunk;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveChunkSizePolicyTest {
+
+    private static final Duration TARGET = Duration.ofMillis(500);
+
+    private final AtomicLong clock = new AtomicLong();
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    void setUp() {
+        stepExecution = new StepExecution("csvImportStep", new JobExecution(1L));
+    }
+
+    @Test
+    void shrinksSlowChunksByAtMostHalfAtATime() {
+        AdaptiveChunkSizePolicy policy = policy(1000, 100, 10_000);
+
+        chunk(policy, 1000, 1000);
+        assertThat(policy.getChunkSize()).isEqualTo(500);
+
+        chunk(policy, 500, 4000);
+        assertThat(policy.getChunkSize()).isEqualTo(250);
+    }
+
+    @Test
+    void growsFastChunksUpToTheMaximum() {
+        AdaptiveChunkSizePolicy policy = policy(1000, 100, 1500);
+
+        chunk(policy, 1000, 100);
+
+        assertThat(policy.getChunkSize()).isEqualTo(1500);
+    }
+
+    @Test
+    void ignoresChangesOfLessThanATenth() {
+        AdaptiveChunkSizePolicy policy = policy(1000, 100, 10_000);
+
+        chunk(policy, 1000, 480);
+
+        assertThat(policy.getChunkSize()).isEqualTo(1000);
+        assertThat(stepExecution.getExecutionContext().containsKey(AdaptiveChunkSizePolicy.SIZE_KEY)).isFalse();
+    }
+
+    @Test
+    void sizesAShortLastChunkByTheItemsItRead() {
+        AdaptiveChunkSizePolicy policy = policy(1000, 100, 10_000);
+
+        chunk(policy, 100, 50);
+
+        assertThat(policy.getChunkSize()).isEqualTo(200);
+    }
+
+    @Test
+    void convergesOnTheSizeThatMeetsTheTarget() {
+        AdaptiveChunkSizePolicy policy = policy(1000, 100, 10_000);
+
+        // 50 ms per chunk plus 0.2 ms per item meets the target at 2250 items
+        for (int i = 0; i < 30; i++) {
+            int size = policy.getChunkSize();
+            chunk(policy, size, 50 + size / 5);
+        }
+
+        assertThat(policy.getChunkSize()).isBetween(2025, 2475);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsEachAdjustmentAndRestartsFromTheLastSize() {
+        AdaptiveChunkSizePolicy policy = policy(1000, 100, 10_000);
+        chunk(policy, 1000, 1000);
+        chunk(policy, 500, 1000);
+
+        ExecutionContext context = stepExecution.getExecutionContext();
+        assertThat(context.getInt(AdaptiveChunkSizePolicy.SIZE_KEY)).isEqualTo(250);
+        assertThat(context.getLong(AdaptiveChunkSizePolicy.ADJUSTMENT_COUNT_KEY)).isEqualTo(2);
+        assertThat((List<String>) context.get(AdaptiveChunkSizePolicy.ADJUSTMENTS_KEY)).containsExactly(
+                "after 1000 items: 1000 -> 500 (write and commit took 1000 ms)",
+                "after 1500 items: 500 -> 250 (write and commit took 1000 ms)");
+
+        AdaptiveChunkSizePolicy restarted = policy(1000, 100, 10_000);
+        assertThat(restarted.getChunkSize()).isEqualTo(250);
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThatThrownBy(() -> new AdaptiveChunkSizePolicy(1000, 500, 100, TARGET))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveChunkSizePolicy(1000, 100, 500, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private AdaptiveChunkSizePolicy policy(int initialSize, int minSize, int maxSize) {
+        AdaptiveChunkSizePolicy policy = new AdaptiveChunkSizePolicy(initialSize, minSize, maxSize, TARGET, clock::get);
+        policy.beforeStep(stepExecution);
+        return policy;
+    }
+
+    /** Reads {@code items}, then writes and commits them in {@code millis}. */
+    private void chunk(AdaptiveChunkSizePolicy policy, int items, long millis) {
+        stepExecution.setReadCount(stepExecution.getReadCount() + items);
+        policy.beforeWrite(new Chunk<>());
+        clock.addAndGet(Duration.ofMillis(millis).toNanos());
+        policy.afterChunk(null);
+    }
+}
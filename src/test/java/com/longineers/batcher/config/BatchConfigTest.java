@@ -4,13 +4,16 @@ import com.longineers.batcher.BatcherApplication;
 import org.junit.jupiter.api.Test;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.Step;
 import org.springframework.batch.test.JobLauncherTestUtils;
 import org.springframework.batch.test.context.SpringBatchTest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ContextConfiguration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import org.springframework.test.context.ActiveProfiles;
 
@@ -33,6 +36,10 @@ public class BatchConfigTest {
     @Autowired
     private Job job;
 
+    @Autowired
+    @Qualifier("csvImportStep")
+    private Step csvImportStep;
+
     @Test
     public void testJob() throws Exception {
         jobLauncherTestUtils.setJob(job);
@@ -40,6 +47,11 @@ public class BatchConfigTest {
         assertEquals("FAILED", jobExecution.getExitStatus().getExitCode());
     }
 
+    @Test
+    public void completedImportIsNotRunAgainOnRestart() {
+        assertFalse(csvImportStep.isAllowStartIfComplete());
+    }
+
     public static class BatchConfigTestConfig {
         @Bean
         public DataSource dataSource() {
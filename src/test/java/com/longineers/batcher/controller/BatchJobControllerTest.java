@@ -1,17 +1,37 @@
 package com.longineers.batcher.controller;
 
+import com.longineers.batcher.model.JobProgress;
+import com.longineers.batcher.service.BatchJobService;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
-import org.springframework.batch.core.launch.JobLauncher;
 
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -24,12 +44,263 @@ public class BatchJobControllerTest {
     private MockMvc mockMvc;
 
     @MockBean
-    private JobLauncher jobLauncher;
+    private BatchJobService batchJobService;
 
     @Test
     @WithMockUser
     public void shouldRunJob() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
         mockMvc.perform(post("/run"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobExecutionId").value(42))
+                .andExpect(jsonPath("$.status").value("STARTING"));
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectLessThanOnePartition() throws Exception {
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"partitions\": 0}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldPassIncrementalOptionsAsJobParameters() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"incremental\": true, \"sortedNewestFirst\": true}"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(batchJobService).launch(parameters.capture());
+        assertThat(parameters.getValue().getString("incremental")).isEqualTo("true");
+        assertThat(parameters.getValue().getString("sortedNewestFirst")).isEqualTo("true");
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectUnknownFormatAndPartitionedJson() throws Exception {
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"format\": \"xml\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"format\": \"json\", \"partitions\": 4}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldPassPerFileAsJobParameterUnlessPartitioned() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"perFile\": true, \"partitions\": 4}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"perFile\": true}"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(batchJobService).launch(parameters.capture());
+        assertThat(parameters.getValue().getString("perFile")).isEqualTo("true");
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldPassBulkLoadAsJobParameter() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"bulkLoad\": true}"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(batchJobService).launch(parameters.capture());
+        assertThat(parameters.getValue().getString("bulkLoad")).isEqualTo("true");
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldPassStagingAsJobParameterAndRejectIncrementalStagingLoads() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"staging\": true, \"incremental\": true}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"staging\": true}"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(batchJobService).launch(parameters.capture());
+        assertThat(parameters.getValue().getString("staging")).isEqualTo("true");
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectStagingLoadsOfSomeCategoriesOrFilteredRows() throws Exception {
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"staging\": true, \"categories\": [\"Books\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("categories or filter")));
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"staging\": true, \"filter\": \"inStock = true\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(batchJobService, never()).launch(any());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldPassReloadAsJobParameterOnlyWithCategories() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"reload\": true}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"reload\": true, \"categories\": [\"Books\"]}"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(batchJobService).launch(parameters.capture());
+        assertThat(parameters.getValue().getString("reload")).isEqualTo("true");
+        assertThat(parameters.getValue().getString("categories")).isEqualTo("Books");
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldPassFilterAsJobParameterAndRejectInvalidOnes() throws Exception {
+        when(batchJobService.launch(any())).thenReturn(new JobExecution(42L));
+
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"filter\": \"price >\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"filter\": \"inStock and price > 100\"}"))
+                .andExpect(status().isAccepted());
+
+        ArgumentCaptor<JobParameters> parameters = ArgumentCaptor.forClass(JobParameters.class);
+        verify(batchJobService).launch(parameters.capture());
+        assertThat(parameters.getValue().getString("filter")).isEqualTo("inStock and price > 100");
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectMissingInput() throws Exception {
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"input\": \"/no/such/feeds/*.csv\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectInputOutsideTheInputRoot() throws Exception {
+        mockMvc.perform(post("/run")
+                        .contentType("application/json")
+                        .content("{\"input\": \"/etc/passwd\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("outside the input root")));
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldReturnServiceUnavailableWhenLaunchQueueIsFull() throws Exception {
+        when(batchJobService.launch(any())).thenThrow(new TaskRejectedException("queue full"));
+
+        mockMvc.perform(post("/run"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldReturnJobStatus() throws Exception {
+        when(batchJobService.getProgress(42L)).thenReturn(Optional.of(JobProgress.builder()
+                .jobExecutionId(42L)
+                .status("STARTED")
+                .readCount(1000)
+                .writeCount(900)
+                .filterCount(100)
+                .rowsPerSecond(500)
+                .estimatedTotalItems(3000L)
+                .etaSeconds(4L)
+                .build()));
+
+        mockMvc.perform(get("/status/42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.readCount").value(1000))
+                .andExpect(jsonPath("$.filterCount").value(100))
+                .andExpect(jsonPath("$.etaSeconds").value(4));
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldReturnNotFoundForUnknownExecution() throws Exception {
+        when(batchJobService.getProgress(7L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/status/7"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldStopRunningJob() throws Exception {
+        mockMvc.perform(post("/stop/42"))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectStoppingFinishedJob() throws Exception {
+        doThrow(new JobExecutionNotRunningException("finished")).when(batchJobService).stop(42L);
+
+        mockMvc.perform(post("/stop/42"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldReturnNotFoundWhenStoppingUnknownExecution() throws Exception {
+        doThrow(new NoSuchJobExecutionException("missing")).when(batchJobService).stop(7L);
+
+        mockMvc.perform(post("/stop/7"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldAbandonFinishedJob() throws Exception {
+        mockMvc.perform(post("/abandon/42"))
                 .andExpect(status().isOk());
+
+        verify(batchJobService).abandon(42L);
+    }
+
+    @Test
+    @WithMockUser
+    public void shouldRejectAbandoningRunningJob() throws Exception {
+        doThrow(new JobExecutionAlreadyRunningException("running")).when(batchJobService).abandon(42L);
+
+        mockMvc.perform(post("/abandon/42"))
+                .andExpect(status().isConflict());
     }
 }
@@ -0,0 +1,79 @@
+package com.longineers.batcher.filter;
+
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductFilterTest {
+
+    private final Product laptop = Product.builder()
+            .name("Laptop")
+            .brand("TechCorp")
+            .category("Electronics")
+            .price(1299.99)
+            .reviewCount(42)
+            .inStock(true)
+            .featured(false)
+            .updatedAt(LocalDateTime.of(2024, 6, 1, 12, 0))
+            .build();
+
+    @Test
+    void evaluatesComparisonsOfEveryFieldType() {
+        assertThat(matches("inStock and price > 100 and brand in ('TechCorp', 'HomeMax')")).isTrue();
+        assertThat(matches("price <= 1299.99 and reviewCount = 42 and name != 'Phone'")).isTrue();
+        assertThat(matches("updatedAt >= '2024-06-01' and updatedAt < '2024-06-01T12:00:01'")).isTrue();
+        assertThat(matches("featured")).isFalse();
+        assertThat(matches("NOT featured AND (category = 'Books' OR price > 1000)")).isTrue();
+        assertThat(matches("brand = 'Tech''Corp'")).isFalse();
+    }
+
+    @Test
+    void comparisonsWithAMissingValueAreFalse() {
+        assertThat(matches("rating > 0")).isFalse();
+        assertThat(matches("rating != 0")).isFalse();
+        assertThat(matches("not (rating > 0)")).isTrue();
+    }
+
+    @Test
+    void readerPredicateKeepsOnlyTopLevelConditionsOnCategoryAndInStock() {
+        ProductFilter filter = ProductFilter.parse("price > 100 and (inStock and category != 'Books') and (brand = 'X' or inStock)")
+                .and(ProductFilter.categoryIn(List.of("Electronics", "Toys")));
+        Predicate<Product> readerPredicate = filter.readerPredicate();
+
+        Product books = Product.builder().category("Books").inStock(true).build();
+        Product outOfStock = Product.builder().category("Electronics").inStock(false).build();
+        Product toy = Product.builder().category("Toys").inStock(true).build();
+
+        assertThat(readerPredicate.test(books)).isFalse();
+        assertThat(readerPredicate.test(outOfStock)).isFalse();
+        assertThat(readerPredicate.test(toy)).isTrue();
+        assertThat(filter.predicate().test(books)).isFalse();
+        assertThat(filter.predicate().test(outOfStock)).isFalse();
+        assertThat(ProductFilter.parse("category = 'Books' or price > 100").readerPredicate()).isNull();
+    }
+
+    @Test
+    void reportsWhereAnExpressionIsInvalid() {
+        assertThatThrownBy(() -> ProductFilter.parse("price > 'cheap'"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid filter at position 9: Expected a number for price");
+        assertThatThrownBy(() -> ProductFilter.parse("colour = 'red'"))
+                .hasMessageContaining("Unknown field 'colour'");
+        assertThatThrownBy(() -> ProductFilter.parse("inStock > true"))
+                .hasMessageContaining("Operator > cannot be applied to inStock");
+        assertThatThrownBy(() -> ProductFilter.parse("(price > 1"))
+                .hasMessageContaining("Expected ')'");
+        assertThatThrownBy(() -> ProductFilter.parse("brand = 'open"))
+                .hasMessageContaining("Unterminated text");
+    }
+
+    private boolean matches(String expression) {
+        return ProductFilter.parse(expression).predicate().test(laptop);
+    }
+}
@@ -0,0 +1,61 @@
+package com.longineers.batcher.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.item.Chunk;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkMetricsListenerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChunkMetricsListener listener = new ChunkMetricsListener(meterRegistry);
+
+    @Test
+    void recordsStageTimersAndFilteredItemsPerChunk() {
+        ChunkContext chunkContext = chunkContext("csvImportWorkerStep:partition3");
+
+        listener.beforeChunk(chunkContext);
+        for (int i = 0; i < 3; i++) {
+            listener.beforeRead();
+            listener.afterRead("item" + i);
+            listener.beforeProcess("item" + i);
+            listener.afterProcess("item" + i, i == 1 ? null : "item" + i);
+        }
+        listener.beforeWrite(new Chunk<>(List.of("item0", "item2")));
+        listener.afterWrite(new Chunk<>(List.of("item0", "item2")));
+        listener.afterChunk(chunkContext);
+
+        assertThat(meterRegistry.get("batcher.chunk.read").tag("step", "csvImportWorkerStep").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("batcher.chunk.process").tag("step", "csvImportWorkerStep").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("batcher.chunk.write").tag("step", "csvImportWorkerStep").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("batcher.items.filtered").tag("step", "csvImportWorkerStep").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("batcher.jvm.allocation.rate").gauge().value()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void startsEachChunkFromZero() {
+        ChunkContext chunkContext = chunkContext("csvImportStep");
+
+        listener.beforeChunk(chunkContext);
+        listener.beforeProcess("item");
+        listener.afterProcess("item", null);
+        listener.afterChunk(chunkContext);
+        listener.beforeChunk(chunkContext);
+        listener.afterChunk(chunkContext);
+
+        assertThat(meterRegistry.get("batcher.items.filtered").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("batcher.chunk.read").timer().count()).isEqualTo(2);
+    }
+
+    private static ChunkContext chunkContext(String stepName) {
+        StepExecution stepExecution = new StepExecution(stepName, new JobExecution(1L));
+        return new ChunkContext(new StepContext(stepExecution));
+    }
+}
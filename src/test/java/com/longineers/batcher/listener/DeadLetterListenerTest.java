@@ -0,0 +1,52 @@
+package com.longineers.batcher.listener;
+
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadLetterListenerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesLineReasonAndInputOfEachSkippedRow() throws Exception {
+        StepExecution stepExecution = new StepExecution("csvImportWorkerStep:partition0", new JobExecution(7L));
+        DeadLetterListener listener = new DeadLetterListener(tempDir, stepExecution);
+
+        listener.onSkipInRead(new FlatFileParseException("Parsing error at line: 3",
+                new IllegalArgumentException("name is longer than 255 characters"), "1,\"a, \"\"b\"\"\",c", 3));
+        listener.onSkipInRead(new ParseException("Expected a product object"));
+        listener.onSkipInWrite(Product.builder().uuid(new UUID(0, 1)).build(), new IllegalStateException("rejected"));
+        listener.afterStep(stepExecution);
+
+        Path file = tempDir.resolve("job-7-csvImportWorkerStep_partition0.csv");
+        assertThat(Files.readAllLines(file)).containsExactly(
+                "line,reason,input",
+                "3,\"name is longer than 255 characters\",\"1,\"\"a, \"\"\"\"b\"\"\"\"\"\",c\"",
+                ",\"Expected a product object\",\"\"",
+                ",\"rejected\",\"00000000-0000-0000-0000-000000000001\"");
+        assertThat(stepExecution.getExecutionContext().getString(DeadLetterListener.FILE_KEY)).isEqualTo(file.toString());
+    }
+
+    @Test
+    void createsNoFileWithoutSkips() throws Exception {
+        StepExecution stepExecution = new StepExecution("csvImportStep", new JobExecution(8L));
+        DeadLetterListener listener = new DeadLetterListener(tempDir, stepExecution);
+
+        listener.afterStep(stepExecution);
+
+        assertThat(Files.exists(listener.getFile())).isFalse();
+        assertThat(stepExecution.getExecutionContext().containsKey(DeadLetterListener.FILE_KEY)).isFalse();
+    }
+}
@@ -0,0 +1,101 @@
+package com.longineers.batcher.listener;
+
+import com.longineers.batcher.reader.IncrementalItemReader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HighWaterMarkListenerTest {
+
+    private JobExplorer jobExplorer;
+    private HighWaterMarkListener listener;
+
+    @BeforeEach
+    void setUp() {
+        jobExplorer = mock(JobExplorer.class);
+        listener = new HighWaterMarkListener(jobExplorer, mock(JobRepository.class));
+    }
+
+    @Test
+    void incrementalRunStartsFromTheLastCompletedMark() {
+        JobInstance newest = new JobInstance(3L, "csvImportJob");
+        JobInstance failed = new JobInstance(2L, "csvImportJob");
+        JobInstance completed = new JobInstance(1L, "csvImportJob");
+        JobExecution current = execution(newest, 3L, BatchStatus.STARTED, incremental());
+        JobExecution failedExecution = execution(failed, 2L, BatchStatus.FAILED, new JobParameters());
+        failedExecution.getExecutionContext().putString(HighWaterMarkListener.HIGH_WATER_MARK_KEY, "2024-03-01T00:00");
+        JobExecution completedExecution = execution(completed, 1L, BatchStatus.COMPLETED, new JobParameters());
+        completedExecution.getExecutionContext().putString(HighWaterMarkListener.HIGH_WATER_MARK_KEY, "2024-02-01T00:00");
+        when(jobExplorer.getJobInstances("csvImportJob", 0, 50)).thenReturn(List.of(newest, failed, completed));
+        when(jobExplorer.getJobExecutions(newest)).thenReturn(List.of(current));
+        when(jobExplorer.getJobExecutions(failed)).thenReturn(List.of(failedExecution));
+        when(jobExplorer.getJobExecutions(completed)).thenReturn(List.of(completedExecution));
+
+        listener.beforeJob(current);
+
+        assertThat(current.getExecutionContext().getString(HighWaterMarkListener.SINCE_KEY)).isEqualTo("2024-02-01T00:00");
+    }
+
+    @Test
+    void fullRunDoesNotLookUpAMark() {
+        JobExecution current = execution(new JobInstance(1L, "csvImportJob"), 1L, BatchStatus.STARTED, new JobParameters());
+
+        listener.beforeJob(current);
+
+        assertThat(current.getExecutionContext().containsKey(HighWaterMarkListener.SINCE_KEY)).isFalse();
+    }
+
+    @Test
+    void completedRunRecordsTheLatestUpdateOfItsSteps() {
+        JobExecution execution = execution(new JobInstance(1L, "csvImportJob"), 1L, BatchStatus.COMPLETED, incremental());
+        execution.getExecutionContext().putString(HighWaterMarkListener.SINCE_KEY, "2024-01-01T00:00");
+        execution.createStepExecution("csvImportWorkerStep:partition0").getExecutionContext()
+                .putString(IncrementalItemReader.MAX_UPDATED_AT_KEY, "2024-01-05T10:00");
+        execution.createStepExecution("csvImportWorkerStep:partition1").getExecutionContext()
+                .putString(IncrementalItemReader.MAX_UPDATED_AT_KEY, "2024-01-07T08:30");
+
+        listener.afterJob(execution);
+
+        assertThat(execution.getExecutionContext().getString(HighWaterMarkListener.HIGH_WATER_MARK_KEY))
+                .isEqualTo("2024-01-07T08:30");
+    }
+
+    @Test
+    void filteredOrFailedRunsRecordNoMark() {
+        JobExecution filtered = execution(new JobInstance(1L, "csvImportJob"), 1L, BatchStatus.COMPLETED,
+                new JobParametersBuilder().addString("categories", "Electronics").toJobParameters());
+        filtered.createStepExecution("csvImportStep").getExecutionContext()
+                .putString(IncrementalItemReader.MAX_UPDATED_AT_KEY, "2024-01-05T10:00");
+        JobExecution failed = execution(new JobInstance(2L, "csvImportJob"), 2L, BatchStatus.FAILED, new JobParameters());
+        failed.createStepExecution("csvImportStep").getExecutionContext()
+                .putString(IncrementalItemReader.MAX_UPDATED_AT_KEY, "2024-01-05T10:00");
+
+        listener.afterJob(filtered);
+        listener.afterJob(failed);
+
+        assertThat(filtered.getExecutionContext().containsKey(HighWaterMarkListener.HIGH_WATER_MARK_KEY)).isFalse();
+        assertThat(failed.getExecutionContext().containsKey(HighWaterMarkListener.HIGH_WATER_MARK_KEY)).isFalse();
+    }
+
+    private JobParameters incremental() {
+        return new JobParametersBuilder().addString("incremental", "true").toJobParameters();
+    }
+
+    private JobExecution execution(JobInstance instance, long id, BatchStatus status, JobParameters parameters) {
+        JobExecution execution = new JobExecution(instance, id, parameters);
+        execution.setStatus(status);
+        return execution;
+    }
+}
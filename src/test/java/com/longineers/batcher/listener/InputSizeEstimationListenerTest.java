@@ -0,0 +1,40 @@
+package com.longineers.batcher.listener;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InputSizeEstimationListenerTest {
+
+    private static final String HEADER = "id,uuid,name\n";
+
+    @Test
+    void countsLinesWhenTheWholeFileFitsInTheSample() throws Exception {
+        String csv = HEADER + "1,a,x\n2,b,y\n3,c,z";
+
+        assertThat(InputSizeEstimationListener.estimateRecords(resource(csv))).isEqualTo(3);
+    }
+
+    @Test
+    void extrapolatesFromTheSampleForLargeFiles() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 200_000; i++) {
+            csv.append(String.format("%07d,uuid,name\n", i));
+        }
+
+        assertThat(InputSizeEstimationListener.estimateRecords(resource(csv.toString())))
+                .isBetween(199_000L, 201_000L);
+    }
+
+    @Test
+    void headerOnlyFileHasNoRecords() throws Exception {
+        assertThat(InputSizeEstimationListener.estimateRecords(resource(HEADER))).isZero();
+    }
+
+    private ByteArrayResource resource(String content) {
+        return new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
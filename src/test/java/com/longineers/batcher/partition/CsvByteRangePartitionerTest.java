@@ -0,0 +1,111 @@
+package com.longineers.batcher.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.mapping.PassThroughLineMapper;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvByteRangePartitionerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rangesCoverEveryRecordExactlyOnceAndSkipTheHeader() throws Exception {
+        StringBuilder csv = new StringBuilder("id,name,description\n");
+        for (int i = 1; i <= 100; i++) {
+            csv.append(i).append(",name").append(i).append(",\"first line\nsecond line, \"\"still\"\" quoted\"\n");
+        }
+        Resource resource = write(csv.toString());
+
+        Map<String, ExecutionContext> partitions = new CsvByteRangePartitioner(resource, 4).partition(1);
+
+        assertThat(partitions).hasSize(4).containsKeys("partition0", "partition1", "partition2", "partition3");
+        List<String> records = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            List<String> partitionRecords = readRecords(new ByteRangeResource(resource,
+                    context.getLong(CsvByteRangePartitioner.START_OFFSET_KEY),
+                    context.getLong(CsvByteRangePartitioner.END_OFFSET_KEY)));
+            assertThat(partitionRecords).isNotEmpty();
+            records.addAll(partitionRecords);
+        }
+        assertThat(records).hasSize(100);
+        assertThat(records.get(0)).startsWith("1,name1,");
+        assertThat(records.get(99)).startsWith("100,name100,");
+        assertThat(records).allMatch(record -> record.endsWith("quoted\""));
+    }
+
+    @Test
+    void createsNoEmptyRangesWhenThereAreFewerRecordsThanPartitions() throws Exception {
+        Resource resource = write("id,name\n1,a\n2,b\n");
+
+        Map<String, ExecutionContext> partitions = new CsvByteRangePartitioner(resource, 8).partition(1);
+
+        assertThat(partitions).hasSize(2);
+        assertThat(readRecords(rangeOf(resource, partitions.get("partition0")))).containsExactly("1,a");
+        assertThat(readRecords(rangeOf(resource, partitions.get("partition1")))).containsExactly("2,b");
+    }
+
+    @Test
+    void headerOnlyFileYieldsOneEmptyRange() throws Exception {
+        Resource resource = write("id,name\n");
+
+        Map<String, ExecutionContext> partitions = new CsvByteRangePartitioner(resource, 4).partition(1);
+
+        assertThat(partitions).hasSize(1);
+        assertThat(readRecords(rangeOf(resource, partitions.get("partition0")))).isEmpty();
+    }
+
+    @Test
+    void rejectsLessThanOnePartition() {
+        assertThatThrownBy(() -> new CsvByteRangePartitioner(new FileSystemResource(tempDir.resolve("any.csv")), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Resource write(String content) throws Exception {
+        Path file = tempDir.resolve("products.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return new FileSystemResource(file);
+    }
+
+    private ByteRangeResource rangeOf(Resource resource, ExecutionContext context) {
+        return new ByteRangeResource(resource,
+                context.getLong(CsvByteRangePartitioner.START_OFFSET_KEY),
+                context.getLong(CsvByteRangePartitioner.END_OFFSET_KEY));
+    }
+
+    private List<String> readRecords(Resource range) throws Exception {
+        FlatFileItemReader<String> reader = new FlatFileItemReaderBuilder<String>()
+                .name("rangeReader")
+                .resource(range)
+                .recordSeparatorPolicy(new DefaultRecordSeparatorPolicy())
+                .lineMapper(new PassThroughLineMapper())
+                .build();
+        List<String> records = new ArrayList<>();
+        reader.open(new ExecutionContext());
+        try {
+            String record;
+            while ((record = reader.read()) != null) {
+                records.add(record);
+            }
+        } finally {
+            reader.close();
+        }
+        return records;
+    }
+}
@@ -0,0 +1,47 @@
+package com.longineers.batcher.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FilePartitionerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void createsOnePartitionPerFileThatResolvesBackToIt() throws Exception {
+        Resource[] resources = {write("supplier-a.csv", "a"), write("supplier b.csv", "b"), write("supplier-c.csv", "c")};
+
+        Map<String, ExecutionContext> partitions = new FilePartitioner(resources).partition(1);
+
+        assertThat(partitions).containsOnlyKeys("file0", "file1", "file2");
+        for (int i = 0; i < resources.length; i++) {
+            Resource resource = FilePartitioner.resource(partitions.get("file" + i).getString(FilePartitioner.FILE_KEY));
+            assertThat(resource.getFile()).isEqualTo(resources[i].getFile());
+            assertThat(resource.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(String.valueOf((char) ('a' + i)));
+        }
+    }
+
+    @Test
+    void rejectsNoFiles() {
+        assertThatThrownBy(() -> new FilePartitioner(new Resource[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Resource write(String name, String content) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        return new FileSystemResource(file);
+    }
+}
@@ -0,0 +1,133 @@
+package com.longineers.batcher.pipeline;
+
+import com.longineers.batcher.pipeline.PipelinedItemReader.ProcessedItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelinedItemReaderTest {
+
+    private final StepExecution stepExecution = new StepExecution("csvImportStep", new JobExecution(1L));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PipelinedItemReader<Integer, String> reader;
+
+    @AfterEach
+    void close() {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    @Test
+    void processesAllItemsInOrderAndKeepsFilteredOnes() throws Exception {
+        reader = pipeline(new CountingReader(25), item -> item % 5 == 0 ? null : "item-" + item, 4);
+        reader.open(new ExecutionContext());
+
+        List<ProcessedItem<String>> items = readAll(reader);
+
+        assertThat(items).hasSize(25);
+        assertThat(items.get(0).item()).isEqualTo("item-1");
+        assertThat(items.get(4).item()).isNull();
+        assertThat(items.get(24).item()).isNull();
+        assertThat(reader.read()).isNull();
+    }
+
+    @Test
+    void restartResumesAfterTheLastUpdate() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        reader = pipeline(new CountingReader(25), item -> "item-" + item, 4);
+        reader.open(executionContext);
+        for (int i = 0; i < 13; i++) {
+            reader.read();
+        }
+        reader.update(executionContext);
+        reader.close();
+
+        reader = pipeline(new CountingReader(25), item -> "item-" + item, 4);
+        reader.open(executionContext);
+
+        List<ProcessedItem<String>> items = readAll(reader);
+        assertThat(items).hasSize(12);
+        assertThat(items.get(0).item()).isEqualTo("item-14");
+    }
+
+    @Test
+    void rethrowsProcessorFailureOnTheStepThread() {
+        reader = pipeline(new CountingReader(25), item -> {
+            if (item == 17) {
+                throw new IllegalArgumentException("bad item " + item);
+            }
+            return "item-" + item;
+        }, 4);
+        reader.open(new ExecutionContext());
+
+        assertThatThrownBy(() -> readAll(reader))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("bad item 17");
+    }
+
+    @Test
+    void readerStopsWhenTheQueuesAreFull() throws Exception {
+        CountingReader delegate = new CountingReader(10_000);
+        reader = pipeline(delegate, item -> "item-" + item, 2);
+        reader.open(new ExecutionContext());
+
+        Thread.sleep(200);
+
+        // two queues of two batches, one batch held by the processor and one being read
+        assertThat(delegate.reads.get()).isLessThanOrEqualTo(6 * 10);
+        assertThat(meterRegistry.get("batcher.pipeline.stall").tag("stage", "read").timer().count()).isPositive();
+        assertThat(meterRegistry.get("batcher.pipeline.queue.depth").tag("queue", "read").gauge().value()).isEqualTo(2);
+    }
+
+    private PipelinedItemReader<Integer, String> pipeline(CountingReader delegate,
+                                                          ItemProcessor<Integer, String> processor,
+                                                          int queueCapacity) {
+        return new PipelinedItemReader<>(delegate, processor, 10, queueCapacity, stepExecution, meterRegistry);
+    }
+
+    private static List<ProcessedItem<String>> readAll(PipelinedItemReader<Integer, String> reader) throws Exception {
+        List<ProcessedItem<String>> items = new ArrayList<>();
+        for (ProcessedItem<String> item = reader.read(); item != null; item = reader.read()) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static class CountingReader extends AbstractItemCountingItemStreamItemReader<Integer> {
+
+        private final int size;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        CountingReader(int size) {
+            this.size = size;
+            setName("countingReader");
+        }
+
+        @Override
+        protected Integer doRead() {
+            int next = reads.incrementAndGet();
+            return next <= size ? next : null;
+        }
+
+        @Override
+        protected void doOpen() {
+        }
+
+        @Override
+        protected void doClose() {
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.longineers.batcher.reader;
+
+import com.github.luben.zstd.Zstd;
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.reader.CheckpointingInputStream.Codec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedProductCsvReaderTest {
+
+    private static final String HEADER = String.join(",", ProductFieldSetMapper.NAMES) + "\n";
+    private static final int ROWS = 30;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void detectsCodecFromMagicBytes() throws Exception {
+        byte[] csv = csv().getBytes(StandardCharsets.UTF_8);
+
+        assertThat(Codec.detect(new ByteArrayResource(gzip(csv)))).isEqualTo(Codec.GZIP);
+        assertThat(Codec.detect(new ByteArrayResource(Zstd.compress(csv)))).isEqualTo(Codec.ZSTD);
+        assertThat(Codec.detect(new ByteArrayResource(csv))).isEqualTo(Codec.NONE);
+    }
+
+    @Test
+    void readsGzipAndZstdLikeThePlainFeed() throws Exception {
+        byte[] csv = csv().getBytes(StandardCharsets.UTF_8);
+
+        assertThat(names(readAll(new CompressedProductCsvReader(write(gzip(csv)), Codec.GZIP), new ExecutionContext())))
+                .containsExactlyElementsOf(expectedNames(0));
+        assertThat(names(readAll(new CompressedProductCsvReader(write(Zstd.compress(csv)), Codec.ZSTD), new ExecutionContext())))
+                .containsExactlyElementsOf(expectedNames(0));
+    }
+
+    @Test
+    void restartsMultiMemberGzipFromTheLastMemberBeforeThePosition() throws Exception {
+        List<byte[]> pieces = pieces();
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (byte[] piece : pieces) {
+            file.write(gzip(piece));
+        }
+        assertRestartFromCheckpoint(write(file.toByteArray()), Codec.GZIP);
+    }
+
+    @Test
+    void restartsMultiFrameZstdFromTheLastFrameBeforeThePosition() throws Exception {
+        List<byte[]> pieces = pieces();
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        for (byte[] piece : pieces) {
+            file.write(Zstd.compress(piece));
+        }
+        assertRestartFromCheckpoint(write(file.toByteArray()), Codec.ZSTD);
+    }
+
+    @Test
+    void restartsSingleMemberGzipFromTheStart() throws Exception {
+        Resource resource = write(gzip(csv().getBytes(StandardCharsets.UTF_8)));
+        ExecutionContext context = readSome(resource, Codec.GZIP, 12);
+
+        assertThat(context.getLong("CompressedProductCsvReader.checkpoint.compressed")).isZero();
+        assertThat(names(readAll(new CompressedProductCsvReader(resource, Codec.GZIP), context)))
+                .containsExactlyElementsOf(expectedNames(12));
+    }
+
+    private void assertRestartFromCheckpoint(Resource resource, Codec codec) throws Exception {
+        ExecutionContext context = readSome(resource, codec, 22);
+
+        assertThat(context.getLong("CompressedProductCsvReader.checkpoint.compressed")).isPositive();
+        assertThat(context.getLong("CompressedProductCsvReader.checkpoint.decompressed"))
+                .isPositive()
+                .isLessThanOrEqualTo(context.getLong("CompressedProductCsvReader.position"));
+        assertThat(names(readAll(new CompressedProductCsvReader(resource, codec), context)))
+                .containsExactlyElementsOf(expectedNames(22));
+    }
+
+    private ExecutionContext readSome(Resource resource, Codec codec, int items) throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        CompressedProductCsvReader reader = new CompressedProductCsvReader(resource, codec);
+        reader.open(context);
+        for (int i = 0; i < items; i++) {
+            reader.read();
+        }
+        reader.update(context);
+        reader.close();
+        return context;
+    }
+
+    /** The feed cut at record boundaries into pieces of ten rows, each compressed on its own. */
+    private List<byte[]> pieces() {
+        String csv = csv();
+        List<byte[]> pieces = new ArrayList<>();
+        int start = 0;
+        int newlines = 0;
+        for (int i = 0; i < csv.length(); i++) {
+            if (csv.charAt(i) == '\n' && ++newlines % 10 == 0) {
+                pieces.add(csv.substring(start, i + 1).getBytes(StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        pieces.add(csv.substring(start).getBytes(StandardCharsets.UTF_8));
+        return pieces;
+    }
+
+    private String csv() {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < ROWS; i++) {
+            csv.append(row("Product " + i)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private List<String> expectedNames(int from) {
+        List<String> names = new ArrayList<>();
+        for (int i = from; i < ROWS; i++) {
+            names.add("Product " + i);
+        }
+        return names;
+    }
+
+    private String row(String name) {
+        return String.join(",",
+                "1", "550e8400-e29b-41d4-a716-446655440000", name, "TechCorp", "Electronics", "Electronics > Laptop",
+                "A laptop", "1299.99", "USD", "0", "1299.99", "4.5", "42", "10", "true", "TEC-123456",
+                "1234567890123", "2.5", "\"electronics,laptop,techcorp\"", "https://picsum.photos/400/400?random=1",
+                "https://picsum.photos/200/200?random=1", "2024-01-01T00:00:00", "2024-01-01T00:00:00", "active",
+                "false", "35.0", "24.0", "2.0", "true", "0", "7");
+    }
+
+    private byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private Resource write(byte[] content) throws IOException {
+        Path file = Files.createTempFile(tempDir, "products", ".csv");
+        Files.write(file, content);
+        return new FileSystemResource(file);
+    }
+
+    private List<String> names(List<Product> products) {
+        return products.stream().map(Product::getName).toList();
+    }
+
+    private List<Product> readAll(CompressedProductCsvReader reader, ExecutionContext context) throws Exception {
+        List<Product> products = new ArrayList<>();
+        reader.open(context);
+        try {
+            Product product;
+            while ((product = reader.read()) != null) {
+                products.add(product);
+            }
+        } finally {
+            reader.close();
+        }
+        return products;
+    }
+}
@@ -0,0 +1,116 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalItemReaderTest {
+
+    private static final LocalDateTime SINCE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void skipsRowsNotUpdatedSinceTheMark() throws Exception {
+        IncrementalItemReader reader = new IncrementalItemReader(
+                products(SINCE.plusDays(1), SINCE, null, SINCE.minusDays(1), SINCE.plusHours(1)), SINCE, false);
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+
+        List<Product> read = readAll(reader);
+        reader.update(context);
+
+        assertThat(read).extracting(Product::getName).containsExactly("0", "2", "4");
+        assertThat(context.getLong(IncrementalItemReader.SKIPPED_KEY)).isEqualTo(2);
+        assertThat(context.getString(IncrementalItemReader.MAX_UPDATED_AT_KEY)).isEqualTo(SINCE.plusDays(1).toString());
+    }
+
+    @Test
+    void stopsAtTheFirstOlderRowOfSortedInput() throws Exception {
+        ListReader delegate = products(SINCE.plusDays(2), SINCE.plusDays(1), SINCE, SINCE.minusDays(1));
+        IncrementalItemReader reader = new IncrementalItemReader(delegate, SINCE, true);
+        reader.open(new ExecutionContext());
+
+        assertThat(readAll(reader)).extracting(Product::getName).containsExactly("0", "1");
+        assertThat(delegate.getCurrentItemCount()).isEqualTo(3);
+    }
+
+    @Test
+    void passesEverythingWithoutAMarkAndStillTracksTheLatestUpdate() throws Exception {
+        IncrementalItemReader reader = new IncrementalItemReader(products(SINCE, SINCE.plusDays(3), SINCE), null, true);
+        ExecutionContext context = new ExecutionContext();
+        reader.open(context);
+
+        assertThat(readAll(reader)).hasSize(3);
+        reader.update(context);
+        assertThat(context.getString(IncrementalItemReader.MAX_UPDATED_AT_KEY)).isEqualTo(SINCE.plusDays(3).toString());
+    }
+
+    @Test
+    void restoresTheLatestUpdateOnRestart() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        IncrementalItemReader first = new IncrementalItemReader(products(SINCE.plusDays(5), SINCE.plusDays(1)), null, false);
+        first.open(context);
+        first.read();
+        first.update(context);
+
+        IncrementalItemReader restarted = new IncrementalItemReader(products(SINCE.plusDays(5), SINCE.plusDays(1)), null, false);
+        restarted.open(context);
+
+        assertThat(readAll(restarted)).extracting(Product::getName).containsExactly("1");
+        restarted.update(context);
+        assertThat(context.getString(IncrementalItemReader.MAX_UPDATED_AT_KEY)).isEqualTo(SINCE.plusDays(5).toString());
+    }
+
+    private List<Product> readAll(IncrementalItemReader reader) throws Exception {
+        List<Product> products = new ArrayList<>();
+        Product product;
+        while ((product = reader.read()) != null) {
+            products.add(product);
+        }
+        return products;
+    }
+
+    private ListReader products(LocalDateTime... updatedAt) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < updatedAt.length; i++) {
+            products.add(Product.builder().name(String.valueOf(i)).updatedAt(updatedAt[i]).build());
+        }
+        return new ListReader(products);
+    }
+
+    /** Restartable in-memory reader, as a flat file reader would be. */
+    private static class ListReader extends AbstractItemCountingItemStreamItemReader<Product> {
+
+        private final List<Product> products;
+
+        ListReader(List<Product> products) {
+            this.products = products;
+            setName("list");
+        }
+
+        @Override
+        protected Product doRead() {
+            int index = getCurrentItemCount() - 1;
+            return index < products.size() ? products.get(index) : null;
+        }
+
+        @Override
+        protected void doOpen() {
+        }
+
+        @Override
+        protected void doClose() {
+        }
+
+        @Override
+        public int getCurrentItemCount() {
+            return super.getCurrentItemCount();
+        }
+    }
+}
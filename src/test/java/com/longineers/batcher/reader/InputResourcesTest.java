@@ -0,0 +1,109 @@
+package com.longineers.batcher.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InputResourcesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void usesTheDefaultWithoutALocation() throws Exception {
+        Resource defaultResource = new ByteArrayResource(new byte[0]);
+
+        assertThat(inputs().resolve(null, defaultResource)).containsExactly(defaultResource);
+        assertThat(inputs().resolve(" ", defaultResource)).containsExactly(defaultResource);
+    }
+
+    @Test
+    void resolvesASingleFile() throws Exception {
+        Path file = touch("products.csv");
+
+        assertThat(names(inputs().resolve(file.toString(), null))).containsExactly("products.csv");
+    }
+
+    @Test
+    void resolvesEveryFileOfADirectoryInOrder() throws Exception {
+        touch("b.csv");
+        touch("a.csv.gz");
+        Files.createDirectory(tempDir.resolve("nested"));
+
+        assertThat(names(inputs().resolve(tempDir.toString(), null))).containsExactly("a.csv.gz", "b.csv");
+    }
+
+    @Test
+    void resolvesPatterns() throws Exception {
+        touch("shard-2.csv");
+        touch("shard-1.csv");
+        touch("notes.txt");
+        Files.createDirectory(tempDir.resolve("nested"));
+        Files.createFile(tempDir.resolve("nested/shard-3.csv"));
+
+        assertThat(names(inputs().resolve(tempDir + "/shard-*.csv", null)))
+                .containsExactly("shard-1.csv", "shard-2.csv");
+        assertThat(names(inputs().resolve(tempDir + "/**/*.csv", null)))
+                .containsExactlyInAnyOrder("shard-1.csv", "shard-2.csv", "shard-3.csv");
+    }
+
+    @Test
+    void rejectsMissingInput() {
+        assertThatThrownBy(() -> inputs().resolve(tempDir.resolve("missing.csv").toString(), null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> inputs().resolve(tempDir + "/*.json", null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No input files match");
+    }
+
+    @Test
+    void resolvesRelativeLocationsAgainstTheRoot() throws Exception {
+        touch("products.csv");
+
+        assertThat(names(inputs().resolve("products.csv", null))).containsExactly("products.csv");
+    }
+
+    @Test
+    void rejectsLocationsOutsideTheRoot() throws Exception {
+        Path root = Files.createDirectory(tempDir.resolve("feeds"));
+        Path outside = touch("secret.csv");
+        Files.createSymbolicLink(root.resolve("link.csv"), outside);
+        InputResources inputs = new InputResources(root);
+
+        assertThatThrownBy(() -> inputs.resolve(outside.toString(), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("outside the input root");
+        assertThatThrownBy(() -> inputs.resolve("../secret.csv", null))
+                .hasMessageContaining("outside the input root");
+        assertThatThrownBy(() -> inputs.resolve(tempDir + "/*.csv", null))
+                .hasMessageContaining("outside the input root");
+        assertThatThrownBy(() -> inputs.resolve("link.csv", null))
+                .hasMessageContaining("outside the input root");
+        assertThatThrownBy(() -> inputs.resolve("*.csv", null))
+                .hasMessageContaining("outside the input root");
+        assertThatThrownBy(() -> inputs.resolve("classpath*:db/data/*.csv", null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private InputResources inputs() {
+        return new InputResources(tempDir);
+    }
+
+    private Path touch(String name) throws IOException {
+        return Files.writeString(tempDir.resolve(name), "");
+    }
+
+    private List<String> names(Resource[] resources) {
+        return Arrays.stream(resources).map(Resource::getFilename).toList();
+    }
+}
@@ -0,0 +1,184 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonProductReaderTest {
+
+    private static final String PRODUCT = """
+            {
+              "id": %d,
+              "uuid": "550e8400-e29b-41d4-a716-44665544000%d",
+              "name": "TechCorp Premium Laptop %d",
+              "brand": "TechCorp",
+              "category": "Electronics",
+              "subcategory": "Electronics > Laptop",
+              "description": "Premium laptop designed for performance and durability.",
+              "price": 1299.99,
+              "currency": "USD",
+              "discount_percent": 10,
+              "final_price": 1169.99,
+              "rating": 4.2,
+              "review_count": 87,
+              "stock_quantity": 0,
+              "in_stock": false,
+              "sku": "TEC-123456",
+              "barcode": "1234567890123",
+              "weight_kg": 2.4,
+              "dimensions": {"length_cm": 35.5, "width_cm": 24.0, "height_cm": 2.1},
+              "tags": ["electronics", "laptop", "techcorp"],
+              "image_url": "https://picsum.photos/400/400?random=1",
+              "thumbnail_url": "https://picsum.photos/200/200?random=1",
+              "created_at": "2024-01-15T10:30:00.123456",
+              "updated_at": "2024-02-01T08:00:00",
+              "status": "active",
+              "featured": true,
+              "shipping": {"free_shipping": false, "shipping_cost": 12.5, "estimated_days": 4}
+            }""";
+
+    @Test
+    void mapsNestedSnakeCaseFields() throws Exception {
+        JsonProductReader reader = reader(json(1));
+        reader.open(new ExecutionContext());
+
+        Product product = reader.read();
+
+        assertThat(product.getUuid()).isEqualTo(UUID.fromString("550e8400-e29b-41d4-a716-446655440001"));
+        assertThat(product.getName()).isEqualTo("TechCorp Premium Laptop 1");
+        assertThat(product.getDiscountPercent()).isEqualTo(10.0);
+        assertThat(product.getReviewCount()).isEqualTo(87);
+        assertThat(product.getInStock()).isFalse();
+        assertThat(product.getTags()).isEqualTo("electronics,laptop,techcorp");
+        assertThat(product.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000));
+        assertThat(product.getFeatured()).isTrue();
+        assertThat(product.getLengthCm()).isEqualTo(35.5);
+        assertThat(product.getWidthCm()).isEqualTo(24.0);
+        assertThat(product.getHeightCm()).isEqualTo(2.1);
+        assertThat(product.getFreeShipping()).isFalse();
+        assertThat(product.getShippingCost()).isEqualTo(12.5);
+        assertThat(product.getEstimatedDays()).isEqualTo(4);
+        assertThat(product.getId()).isNull();
+        assertThat(reader.read()).isNull();
+        reader.close();
+    }
+
+    @Test
+    void restartsFromTheSavedElement() throws Exception {
+        ExecutionContext context = new ExecutionContext();
+        JsonProductReader first = reader(json(1, 2, 3, 4));
+        first.open(context);
+        first.read();
+        first.read();
+        first.update(context);
+        first.close();
+
+        JsonProductReader restarted = reader(json(1, 2, 3, 4));
+        restarted.open(context);
+
+        assertThat(readAll(restarted)).extracting(Product::getName)
+                .containsExactly("TechCorp Premium Laptop 3", "TechCorp Premium Laptop 4");
+        restarted.close();
+    }
+
+    @Test
+    void readsAnEmptyArray() throws Exception {
+        JsonProductReader reader = reader("[]");
+        reader.open(new ExecutionContext());
+
+        assertThat(reader.read()).isNull();
+        reader.close();
+    }
+
+    @Test
+    void rejectsADocumentThatIsNotAnArray() {
+        JsonProductReader reader = reader("{\"products\": []}");
+
+        assertThatThrownBy(() -> reader.open(new ExecutionContext())).hasRootCauseInstanceOf(ParseException.class);
+    }
+
+    @Test
+    void reportsTheLineOfAnElementThatCannotBeMappedAndReadsOn() throws Exception {
+        String broken = String.format(PRODUCT, 2, 2, 2).replace("\"price\": 1299.99", "\"price\": null");
+        JsonProductReader reader = reader("[\n" + String.format(PRODUCT, 1, 1, 1) + ",\n" + broken + ",\n"
+                + String.format(PRODUCT, 3, 3, 3) + "\n]");
+        reader.open(new ExecutionContext());
+
+        assertThat(reader.read().getName()).isEqualTo("TechCorp Premium Laptop 1");
+        assertThatThrownBy(reader::read)
+                .isInstanceOfSatisfying(FlatFileParseException.class, e -> {
+                    assertThat(e.getLineNumber()).isEqualTo(31);
+                    assertThat(e.getInput()).isEqualTo(broken);
+                })
+                .hasRootCauseMessage("price is required");
+        assertThat(reader.read().getName()).isEqualTo("TechCorp Premium Laptop 3");
+        assertThat(reader.read()).isNull();
+        reader.close();
+    }
+
+    @Test
+    void rejectsAProductWithoutCategory() throws Exception {
+        String uncategorized = String.format(PRODUCT, 1, 1, 1).replace("\"category\": \"Electronics\"", "\"category\": null");
+        JsonProductReader reader = reader("[\n" + uncategorized + "\n]");
+        reader.open(new ExecutionContext());
+
+        assertThatThrownBy(reader::read).hasRootCauseMessage("category is required");
+        reader.close();
+    }
+
+    @Test
+    void rejectsValuesOfTheWrongTypeInsteadOfDefaultingThem() throws Exception {
+        String priceAsText = String.format(PRODUCT, 1, 1, 1).replace("\"price\": 1299.99", "\"price\": \"N/A\"");
+        String fractionalCount = String.format(PRODUCT, 2, 2, 2).replace("\"review_count\": 87", "\"review_count\": 4.7");
+        String stockAsText = String.format(PRODUCT, 3, 3, 3).replace("\"in_stock\": false", "\"in_stock\": \"yes\"");
+        JsonProductReader reader = reader("[\n" + priceAsText + ",\n" + fractionalCount + ",\n" + stockAsText + ",\n"
+                + String.format(PRODUCT, 4, 4, 4) + "\n]");
+        reader.open(new ExecutionContext());
+
+        assertThatThrownBy(reader::read)
+                .isInstanceOfSatisfying(FlatFileParseException.class, e -> assertThat(e.getInput()).isEqualTo(priceAsText))
+                .hasRootCauseMessage("Expected a number for price but found N/A");
+        assertThatThrownBy(reader::read)
+                .isInstanceOf(FlatFileParseException.class)
+                .hasRootCauseMessage("Expected an integer for review_count but found 4.7");
+        assertThatThrownBy(reader::read)
+                .isInstanceOf(FlatFileParseException.class)
+                .hasRootCauseMessage("Expected true or false for in_stock but found yes");
+        assertThat(reader.read().getName()).isEqualTo("TechCorp Premium Laptop 4");
+        assertThat(reader.read()).isNull();
+        reader.close();
+    }
+
+    private List<Product> readAll(JsonProductReader reader) throws Exception {
+        List<Product> products = new ArrayList<>();
+        Product product;
+        while ((product = reader.read()) != null) {
+            products.add(product);
+        }
+        return products;
+    }
+
+    private String json(int... ids) {
+        List<String> elements = new ArrayList<>();
+        for (int id : ids) {
+            elements.add(String.format(PRODUCT, id, id, id));
+        }
+        return "[\n" + String.join(",\n", elements) + "\n]";
+    }
+
+    private JsonProductReader reader(String json) {
+        return new JsonProductReader(new ByteArrayResource(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,251 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.filter.ProductFilter;
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.separator.DefaultRecordSeparatorPolicy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedProductCsvReaderTest {
+
+    private static final String HEADER = String.join(",", ProductFieldSetMapper.NAMES) + "\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsSameProductsAsFlatFileItemReader() throws Exception {
+        Resource resource = new ClassPathResource("db/data/test_products.csv");
+
+        List<Product> expected = readAll(flatFileReader(resource));
+        List<Product> actual = readAll(new MappedProductCsvReader(resource));
+
+        assertThat(actual).isNotEmpty().isEqualTo(expected);
+    }
+
+    @Test
+    void readsCapitalisedBooleansOfAGeneratedFeedLikeFlatFileItemReader() throws Exception {
+        Resource resource = new ClassPathResource("db/data/generated_products.csv");
+
+        List<Product> expected = readAll(flatFileReader(resource));
+        List<Product> actual = readAll(new MappedProductCsvReader(resource));
+
+        assertThat(actual).isEqualTo(expected);
+        assertThat(actual).extracting(Product::getInStock).containsExactly(true, false, true, true, false, true);
+        assertThat(actual).extracting(Product::getFeatured).contains(true);
+        assertThat(actual).extracting(Product::getFreeShipping).contains(true, false);
+    }
+
+    @Test
+    void parsesQuotedFieldsFractionsAndCrLf() throws Exception {
+        Resource resource = write(HEADER
+                + row("\"Quoted, with \"\"escapes\"\"\nand a newline\"", "2024-03-05T07:08:09.123456", "True") + "\r\n"
+                + row("Plain", "2024-03-05T07:08", "false") + "\n");
+
+        List<Product> products = readAll(new MappedProductCsvReader(resource));
+
+        assertThat(products).hasSize(2);
+        Product first = products.get(0);
+        assertThat(first.getName()).isEqualTo("Quoted, with \"escapes\"\nand a newline");
+        assertThat(first.getUuid()).isEqualTo(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"));
+        assertThat(first.getPrice()).isEqualTo(1299.99);
+        assertThat(first.getDiscountPercent()).isEqualTo(-0.05);
+        assertThat(first.getReviewCount()).isEqualTo(-42);
+        assertThat(first.getInStock()).isTrue();
+        assertThat(first.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 3, 5, 7, 8, 9, 123_456_000));
+        assertThat(first.getEstimatedDays()).isEqualTo(7);
+        Product second = products.get(1);
+        assertThat(second.getName()).isEqualTo("Plain");
+        assertThat(second.getInStock()).isFalse();
+        assertThat(second.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 3, 5, 7, 8));
+    }
+
+    @Test
+    void restartsFromSavedPosition() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 0; i < 5; i++) {
+            csv.append(row("Product " + i, "2024-01-01T00:00:00", "true")).append('\n');
+        }
+        Resource resource = write(csv.toString());
+
+        ExecutionContext executionContext = new ExecutionContext();
+        MappedProductCsvReader reader = new MappedProductCsvReader(resource);
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        MappedProductCsvReader restarted = new MappedProductCsvReader(resource);
+        restarted.open(executionContext);
+        List<String> names = new ArrayList<>();
+        Product product;
+        while ((product = restarted.read()) != null) {
+            names.add(product.getName());
+        }
+        restarted.close();
+
+        assertThat(names).containsExactly("Product 2", "Product 3", "Product 4");
+    }
+
+    @Test
+    void mapsOnlyCategoryAndInStockOfRowsTheReaderFilterRejects() throws Exception {
+        Resource resource = write(HEADER
+                + row("Laptop", "2024-01-01T00:00:00", "true") + "\n"
+                + row("Novel", "not-a-timestamp", "true").replace("TechCorp,Electronics,", "TechCorp,Books,") + "\n");
+        MappedProductCsvReader mappedReader = new MappedProductCsvReader(resource);
+        mappedReader.setReaderFilter(product -> product.getCategory().equals("Electronics"));
+        ProductFieldSetMapper fieldSetMapper = new ProductFieldSetMapper();
+        fieldSetMapper.setReaderFilter(product -> product.getCategory().equals("Electronics"));
+
+        List<Product> products = readAll(mappedReader);
+
+        assertThat(products).hasSize(2);
+        assertThat(products.get(0)).isEqualTo(readAll(new MappedProductCsvReader(resource)).get(0));
+        assertThat(products.get(1)).isEqualTo(Product.builder().category("Books").inStock(true).build());
+        assertThat(readAll(flatFileReader(resource, fieldSetMapper))).isEqualTo(products);
+    }
+
+    @Test
+    void inStockReaderFilterKeepsTheCapitalisedTrueRowsOfAGeneratedFeed() throws Exception {
+        Resource resource = new ClassPathResource("db/data/generated_products.csv");
+        ProductFilter filter = ProductFilter.parse("inStock = true");
+        MappedProductCsvReader mappedReader = new MappedProductCsvReader(resource);
+        mappedReader.setReaderFilter(filter.readerPredicate());
+        ProductFieldSetMapper fieldSetMapper = new ProductFieldSetMapper();
+        fieldSetMapper.setReaderFilter(filter.readerPredicate());
+
+        for (List<Product> products : List.of(readAll(mappedReader), readAll(flatFileReader(resource, fieldSetMapper)))) {
+            assertThat(products.stream().filter(filter.predicate()).map(Product::getName)).containsExactly(
+                    "EliteGear Professional Lipstick", "ComfortZone Wireless Perfume",
+                    "ToolMaster Wireless Hat", "BeautyGlow Advanced Table");
+        }
+    }
+
+    @Test
+    void sharesTheDictionaryInstancesOfLowCardinalityColumns() throws Exception {
+        Resource resource = write(HEADER
+                + row("Laptop", "2024-01-01T00:00:00", "true") + "\n"
+                + row("Tablet", "2024-01-01T00:00:00", "true") + "\n");
+        ProductDictionary dictionary = new ProductDictionary(ProductDictionary.DEFAULT_CAPACITY);
+        String electronics = dictionary.intern(new String("Electronics"));
+        MappedProductCsvReader mappedReader = new MappedProductCsvReader(resource);
+        mappedReader.setDictionary(dictionary);
+        ProductFieldSetMapper fieldSetMapper = new ProductFieldSetMapper();
+        fieldSetMapper.setDictionary(dictionary);
+
+        List<Product> products = readAll(mappedReader);
+        List<Product> mapped = readAll(flatFileReader(resource, fieldSetMapper));
+
+        assertThat(products).isEqualTo(readAll(new MappedProductCsvReader(resource))).isEqualTo(mapped);
+        assertThat(products.get(0).getCategory()).isSameAs(electronics);
+        assertThat(products.get(1).getCategory()).isSameAs(electronics);
+        assertThat(mapped.get(1).getCategory()).isSameAs(electronics);
+        assertThat(products.get(1).getBrand()).isSameAs(products.get(0).getBrand()).isSameAs(mapped.get(0).getBrand());
+        assertThat(products.get(1).getSubcategory()).isSameAs(products.get(0).getSubcategory());
+        assertThat(products.get(1).getCurrency()).isSameAs(products.get(0).getCurrency());
+        assertThat(products.get(1).getStatus()).isSameAs(products.get(0).getStatus());
+        assertThat(products.get(1).getName()).isNotSameAs(products.get(0).getName());
+    }
+
+    @Test
+    void reportsLineNumberOfMalformedRecord() throws Exception {
+        Resource resource = write(HEADER
+                + row("Good", "2024-01-01T00:00:00", "true") + "\n"
+                + row("Bad", "not-a-timestamp", "true") + "\n");
+
+        MappedProductCsvReader reader = new MappedProductCsvReader(resource);
+        reader.open(new ExecutionContext());
+        reader.read();
+
+        assertThatThrownBy(reader::read)
+                .isInstanceOfSatisfying(FlatFileParseException.class, e -> {
+                    assertThat(e.getLineNumber()).isEqualTo(3);
+                    assertThat(e.getInput()).contains("not-a-timestamp");
+                });
+        reader.close();
+    }
+
+    @Test
+    void rejectsRowsTheTableCannotStoreAndReadsOn() throws Exception {
+        String content = HEADER
+                + row("Good", "2024-01-01T00:00:00", "true") + "\n"
+                + row("x".repeat(256), "2024-01-01T00:00:00", "true") + "\n"
+                + row("Next", "2024-01-01T00:00:00", "true") + "\n";
+
+        for (org.springframework.batch.item.ItemStreamReader<Product> reader
+                : List.of(new MappedProductCsvReader(write(content)), flatFileReader(write(content)))) {
+            reader.open(new ExecutionContext());
+            assertThat(reader.read().getName()).isEqualTo("Good");
+            assertThatThrownBy(reader::read)
+                    .isInstanceOfSatisfying(FlatFileParseException.class, e -> assertThat(e.getLineNumber()).isEqualTo(3))
+                    .hasRootCauseMessage("name is longer than 255 characters");
+            assertThat(reader.read().getName()).isEqualTo("Next");
+            reader.close();
+        }
+    }
+
+    private String row(String name, String timestamp, String inStock) {
+        return String.join(",",
+                "1", "550e8400-e29b-41d4-a716-446655440000", name, "TechCorp", "Electronics", "Electronics > Laptop",
+                "A laptop", "1299.99", "USD", "-0.05", "1234.99", "4.5", "-42", "10", inStock, "TEC-123456",
+                "1234567890123", "2.5", "\"electronics,laptop,techcorp\"", "https://picsum.photos/400/400?random=1",
+                "https://picsum.photos/200/200?random=1", timestamp, timestamp, "active", "false", "35.0", "24.0",
+                "2.0", "true", "0", "7");
+    }
+
+    private Resource write(String content) throws Exception {
+        Path file = tempDir.resolve("products.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return new FileSystemResource(file);
+    }
+
+    private FlatFileItemReader<Product> flatFileReader(Resource resource) {
+        return flatFileReader(resource, new ProductFieldSetMapper());
+    }
+
+    private FlatFileItemReader<Product> flatFileReader(Resource resource, ProductFieldSetMapper fieldSetMapper) {
+        return new FlatFileItemReaderBuilder<Product>()
+                .name("productItemReader")
+                .resource(resource)
+                .linesToSkip(1)
+                .recordSeparatorPolicy(new DefaultRecordSeparatorPolicy())
+                .delimited()
+                .delimiter(",")
+                .names(ProductFieldSetMapper.NAMES)
+                .fieldSetMapper(fieldSetMapper)
+                .build();
+    }
+
+    private List<Product> readAll(org.springframework.batch.item.ItemStreamReader<Product> reader) throws Exception {
+        List<Product> products = new ArrayList<>();
+        reader.open(new ExecutionContext());
+        try {
+            Product product;
+            while ((product = reader.read()) != null) {
+                products.add(product);
+            }
+        } finally {
+            reader.close();
+        }
+        return products;
+    }
+}
@@ -0,0 +1,62 @@
+package com.longineers.batcher.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductDictionaryTest {
+
+    @Test
+    void returnsTheFirstInstanceOfEachValue() {
+        ProductDictionary dictionary = new ProductDictionary(10);
+        String first = new String("Electronics");
+
+        assertThat(dictionary.intern(first)).isSameAs(first);
+        assertThat(dictionary.intern(new String("Electronics"))).isSameAs(first);
+        assertThat(dictionary.intern(null)).isNull();
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsNoMoreThanItsCapacity() {
+        ProductDictionary dictionary = new ProductDictionary(2);
+        dictionary.intern("Books");
+        dictionary.intern("Music");
+        String toys = new String("Toys");
+
+        assertThat(dictionary.intern(toys)).isSameAs(toys);
+        assertThat(dictionary.intern(new String("Toys"))).isNotSameAs(toys).isEqualTo("Toys");
+        assertThat(dictionary.size()).isEqualTo(2);
+        assertThatThrownBy(() -> new ProductDictionary(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void looksValuesUpByTheirBytes() {
+        ProductDictionary dictionary = new ProductDictionary(10);
+        String garden = dictionary.intern(new String("Home & Garden"));
+        ByteBuffer buffer = ByteBuffer.wrap("Home & Garden,Caf\u00e9,Caf\u00e9,".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(dictionary.intern(buffer, 0, 13)).isSameAs(garden);
+        String cafe = dictionary.intern(buffer, 14, 19);
+        assertThat(cafe).isEqualTo("Caf\u00e9");
+        assertThat(dictionary.intern(buffer, 20, 25)).isSameAs(cafe);
+        assertThat(dictionary.intern("Caf\u00e9")).isSameAs(cafe);
+        assertThat(dictionary.intern(buffer, 13, 13)).isEmpty();
+    }
+
+    @Test
+    void decodesEveryValueOnceItIsFull() {
+        ProductDictionary dictionary = new ProductDictionary(0);
+        ByteBuffer buffer = ByteBuffer.wrap("USD".getBytes(StandardCharsets.UTF_8));
+
+        String first = dictionary.intern(buffer, 0, 3);
+
+        assertThat(first).isEqualTo("USD");
+        assertThat(dictionary.intern(buffer, 0, 3)).isEqualTo("USD").isNotSameAs(first);
+        assertThat(dictionary.size()).isZero();
+    }
+}
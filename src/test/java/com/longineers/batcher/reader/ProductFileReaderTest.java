@@ -0,0 +1,96 @@
+package com.longineers.batcher.reader;
+
+import com.longineers.batcher.model.Product;
+import com.longineers.batcher.reader.CheckpointingInputStream.Codec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.MultiResourceItemReader;
+import org.springframework.batch.item.file.builder.MultiResourceItemReaderBuilder;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductFileReaderTest {
+
+    private static final String HEADER = String.join(",", ProductFieldSetMapper.NAMES) + "\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsPlainAndCompressedFilesInTurnAndRestartsWithinTheCurrentFile() throws Exception {
+        Resource[] resources = {
+                write("a.csv", false, "A1", "A2"),
+                write("b.csv.gz", true, "B1", "B2", "B3"),
+                write("c.csv", false, "C1")
+        };
+
+        ExecutionContext context = new ExecutionContext();
+        MultiResourceItemReader<Product> reader = reader(resources);
+        reader.open(context);
+        List<String> first = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            first.add(reader.read().getName());
+        }
+        reader.update(context);
+        reader.close();
+
+        MultiResourceItemReader<Product> restarted = reader(resources);
+        restarted.open(context);
+        List<String> rest = new ArrayList<>();
+        Product product;
+        while ((product = restarted.read()) != null) {
+            rest.add(product.getName());
+        }
+        restarted.close();
+
+        assertThat(first).containsExactly("A1", "A2", "B1");
+        assertThat(rest).containsExactly("B2", "B3", "C1");
+    }
+
+    private MultiResourceItemReader<Product> reader(Resource[] resources) {
+        return new MultiResourceItemReaderBuilder<Product>()
+                .name("productMultiResourceReader")
+                .resources(resources)
+                .delegate(new ProductFileReader(resource -> {
+                    try {
+                        Codec codec = Codec.detect(resource);
+                        return codec == Codec.NONE ? new MappedProductCsvReader(resource) : new CompressedProductCsvReader(resource, codec);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }))
+                .build();
+    }
+
+    private Resource write(String name, boolean gzip, String... names) throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (String productName : names) {
+            csv.append(row(productName)).append('\n');
+        }
+        Path file = tempDir.resolve(name);
+        try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(file)) : Files.newOutputStream(file)) {
+            out.write(csv.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return new FileSystemResource(file);
+    }
+
+    private String row(String name) {
+        return String.join(",",
+                "1", "550e8400-e29b-41d4-a716-446655440000", name, "TechCorp", "Electronics", "Electronics > Laptop",
+                "A laptop", "1299.99", "USD", "0", "1299.99", "4.5", "42", "10", "true", "TEC-123456",
+                "1234567890123", "2.5", "electronics", "https://picsum.photos/400/400?random=1",
+                "https://picsum.photos/200/200?random=1", "2024-01-01T00:00:00", "2024-01-01T00:00:00", "active",
+                "false", "35.0", "24.0", "2.0", "true", "0", "7");
+    }
+}
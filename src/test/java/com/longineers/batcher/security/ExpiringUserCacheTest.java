@@ -0,0 +1,91 @@
+package com.longineers.batcher.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringUserCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void returnsCopiesSoErasingCredentialsKeepsTheCachedHash() {
+        ExpiringUserCache cache = new ExpiringUserCache(10, Duration.ofMinutes(5), clock);
+        cache.putUserInCache(user("alice"));
+
+        User returned = (User) cache.getUserFromCache("alice");
+        returned.eraseCredentials();
+
+        assertThat(cache.getUserFromCache("alice").getPassword()).isEqualTo("hash-alice");
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTimeToLive() {
+        ExpiringUserCache cache = new ExpiringUserCache(10, Duration.ofMinutes(5), clock);
+        cache.putUserInCache(user("alice"));
+
+        clock.advance(Duration.ofMinutes(5));
+
+        assertThat(cache.getUserFromCache("alice")).isNull();
+    }
+
+    @Test
+    void evictsTheOldestEntryWhenFull() {
+        ExpiringUserCache cache = new ExpiringUserCache(2, Duration.ofMinutes(5), clock);
+        cache.putUserInCache(user("alice"));
+        clock.advance(Duration.ofSeconds(1));
+        cache.putUserInCache(user("bob"));
+        clock.advance(Duration.ofSeconds(1));
+        cache.putUserInCache(user("carol"));
+
+        assertThat(cache.getUserFromCache("alice")).isNull();
+        assertThat(cache.getUserFromCache("bob")).isNotNull();
+        assertThat(cache.getUserFromCache("carol")).isNotNull();
+    }
+
+    @Test
+    void removesUserOnRequest() {
+        ExpiringUserCache cache = new ExpiringUserCache(10, Duration.ofMinutes(5), clock);
+        cache.putUserInCache(user("alice"));
+
+        cache.removeUserFromCache("alice");
+
+        assertThat(cache.getUserFromCache("alice")).isNull();
+    }
+
+    private static UserDetails user(String username) {
+        return new User(username, "hash-" + username, List.of());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
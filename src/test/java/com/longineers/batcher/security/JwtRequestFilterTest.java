@@ -1,10 +1,10 @@
 package com.longineers.batcher.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.FilterChain;
@@ -19,9 +19,8 @@ public class JwtRequestFilterTest {
     @Test
     public void testDoFilterInternalWithValidToken() throws Exception {
         // Arrange
-        UserDetailsService userDetailsService = mock(UserDetailsService.class);
         JwtUtil jwtUtil = mock(JwtUtil.class);
-        JwtRequestFilter filter = new JwtRequestFilter(userDetailsService, jwtUtil);
+        JwtRequestFilter filter = new JwtRequestFilter(jwtUtil);
         
         HttpServletRequest request = mock(HttpServletRequest.class);
         HttpServletResponse response = mock(HttpServletResponse.class);
@@ -29,9 +28,10 @@ public class JwtRequestFilterTest {
         String token = "valid_token";
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(jwtUtil.extractUsername(token)).thenReturn("username");
-        when(userDetailsService.loadUserByUsername("username")).thenReturn(new User("username", "password", new ArrayList<>()));
-        when(jwtUtil.isAuthenticated(anyString(), any(UserDetails.class))).thenReturn(true);
+        Claims claims = Jwts.claims().subject("username").build();
+        when(jwtUtil.extractVerifiedClaims(token)).thenReturn(claims);
+        when(jwtUtil.extractUserDetails(claims)).thenReturn(new User("username", "", new ArrayList<>()));
+        when(jwtUtil.isAuthenticated(any(Claims.class), any(UserDetails.class))).thenReturn(true);
 
         // Act
         filter.doFilterInternal(request, response, chain);
@@ -39,5 +39,8 @@ public class JwtRequestFilterTest {
         // Assert
         verify(chain).doFilter(request, response);
         assertEquals("username", SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(jwtUtil, times(1)).extractVerifiedClaims(token);
+        verify(jwtUtil, never()).extractUsername(anyString());
+        SecurityContextHolder.clearContext();
     }
 }
\ No newline at end of file
@@ -442,4 +442,74 @@ class JwtUtilTest {
                     .isInstanceOf(io.jsonwebtoken.ExpiredJwtException.class);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Verified Token Cache")
+    class VerifiedTokenCacheTests {
+
+        @Test
+        @DisplayName("extractVerifiedClaims verifies a token once and then serves it from the cache")
+        void verifiedClaimsAreCached() {
+            var userDetails = Mockito.mock(org.springframework.security.core.userdetails.UserDetails.class);
+            Mockito.when(userDetails.getUsername()).thenReturn(testUsername);
+            String token = jwtUtil.generateToken(userDetails);
+
+            Claims first = jwtUtil.extractVerifiedClaims(token);
+            Claims second = jwtUtil.extractVerifiedClaims(token);
+
+            assertThat(second).isSameAs(first);
+            assertThat(jwtUtil.isAuthenticated(second, userDetails)).isTrue();
+        }
+
+        @Test
+        @DisplayName("a cached token is verified again and rejected once its exp has passed")
+        void cachedTokenExpires() throws Exception {
+            injectField(jwtUtil, "expiryTime", 1_000L);
+            var userDetails = Mockito.mock(org.springframework.security.core.userdetails.UserDetails.class);
+            Mockito.when(userDetails.getUsername()).thenReturn(testUsername);
+            String token = jwtUtil.generateToken(userDetails);
+            assertThat(jwtUtil.isAuthenticated(token, userDetails)).isTrue();
+
+            Thread.sleep(2_100); // exp has second precision
+
+            assertThatThrownBy(() -> jwtUtil.extractVerifiedClaims(token))
+                    .isInstanceOf(io.jsonwebtoken.ExpiredJwtException.class);
+        }
+
+        @Test
+        @DisplayName("tokens beyond the cache size are still verified")
+        void fullCacheStillVerifies() throws Exception {
+            injectField(jwtUtil, "verifiedCacheSize", 1);
+            var alice = Mockito.mock(org.springframework.security.core.userdetails.UserDetails.class);
+            Mockito.when(alice.getUsername()).thenReturn("alice@example.com");
+            var bob = Mockito.mock(org.springframework.security.core.userdetails.UserDetails.class);
+            Mockito.when(bob.getUsername()).thenReturn("bob@example.com");
+
+            String aliceToken = jwtUtil.generateToken(alice);
+            String bobToken = jwtUtil.generateToken(bob);
+
+            assertThat(jwtUtil.isAuthenticated(aliceToken, alice)).isTrue();
+            assertThat(jwtUtil.isAuthenticated(bobToken, bob)).isTrue();
+            assertThat(jwtUtil.extractVerifiedClaims(bobToken)).isNotSameAs(jwtUtil.extractVerifiedClaims(bobToken));
+        }
+    }
+
+    @Nested
+    @DisplayName("Principal From Claims")
+    class PrincipalFromClaimsTests {
+
+        @Test
+        @DisplayName("extractUserDetails rebuilds username and authorities from the token")
+        void userDetailsFromClaims() {
+            var user = new org.springframework.security.core.userdetails.User(testUsername, "hash",
+                    org.springframework.security.core.authority.AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+            String token = jwtUtil.generateToken(user);
+
+            var principal = jwtUtil.extractUserDetails(jwtUtil.extractVerifiedClaims(token));
+
+            assertThat(principal.getUsername()).isEqualTo(testUsername);
+            assertThat(principal.getPassword()).isEmpty();
+            assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_USER", "ROLE_ADMIN");
+        }
+    }
+}
@@ -1,23 +1,22 @@
 package com.longineers.batcher.security;
 
-import org.junit.jupiter.api.Assertions;
+import com.longineers.batcher.model.UserAccount;
+import com.longineers.batcher.repository.UserAccountRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Optional;
 
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class LoginUserDetailServiceTest {
@@ -25,25 +24,56 @@ class LoginUserDetailServiceTest {
     private LoginUserDetailService loginUserDetailService;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private UserAccountRepository userAccountRepository;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        loginUserDetailService = new LoginUserDetailService(passwordEncoder);
+        loginUserDetailService = new LoginUserDetailService(userAccountRepository,
+                new ExpiringUserCache(10, Duration.ofMinutes(5)));
     }
 
     @Test
     void loadUserByUsername_ExistingUser_ReturnsUserDetails() {
-        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(userAccountRepository.findByUsername("user")).thenReturn(Optional.of(account()));
         UserDetails userDetails = loginUserDetailService.loadUserByUsername("user");
         assertEquals("user", userDetails.getUsername());
+        assertEquals("$2a$10$hash", userDetails.getPassword());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"), userDetails.getAuthorities().stream().toList());
+    }
+
+    @Test
+    void loadUserByUsername_RepeatedLookup_IsServedFromCache() {
+        when(userAccountRepository.findByUsername("user")).thenReturn(Optional.of(account()));
+        loginUserDetailService.loadUserByUsername("user");
+        UserDetails userDetails = loginUserDetailService.loadUserByUsername("user");
+        assertEquals("$2a$10$hash", userDetails.getPassword());
+        verify(userAccountRepository, times(1)).findByUsername("user");
+    }
+
+    @Test
+    void loadUserByUsername_DisabledUser_IsNotEnabled() {
+        UserAccount account = account();
+        account.setEnabled(false);
+        when(userAccountRepository.findByUsername("user")).thenReturn(Optional.of(account));
+        assertFalse(loginUserDetailService.loadUserByUsername("user").isEnabled());
     }
 
     @Test
     void loadUserByUsername_NonExistingUser_ThrowsException() {
+        when(userAccountRepository.findByUsername("nonexistent")).thenReturn(Optional.empty());
         assertThrows(UsernameNotFoundException.class, () -> {
             loginUserDetailService.loadUserByUsername("nonexistent");
         });
     }
-}
\ No newline at end of file
+
+    private UserAccount account() {
+        return UserAccount.builder()
+                .id(1L)
+                .username("user")
+                .passwordHash("$2a$10$hash")
+                .roles("USER, ADMIN")
+                .enabled(true)
+                .build();
+    }
+}
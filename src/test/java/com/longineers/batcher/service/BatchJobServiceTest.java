@@ -0,0 +1,123 @@
+package com.longineers.batcher.service;
+
+import com.longineers.batcher.listener.InputSizeEstimationListener;
+import com.longineers.batcher.model.JobProgress;
+import com.longineers.batcher.writer.ProductUpsertWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchJobServiceTest {
+
+    private JobExplorer jobExplorer;
+    private BatchJobService batchJobService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jobExplorer = mock(JobExplorer.class);
+        batchJobService = new BatchJobService(mock(JobRepository.class), jobExplorer, mock(JobOperator.class),
+                mock(Job.class), new SyncTaskExecutor());
+    }
+
+    @Test
+    void sumsWorkerCountsAndSkipsPartitionManager() {
+        JobExecution jobExecution = runningExecution(LocalDateTime.now().minusSeconds(10));
+        StepExecution manager = jobExecution.createStepExecution("csvImportPartitionedStep");
+        manager.getExecutionContext().putLong("SimpleStepExecutionSplitter.GRID_SIZE", 2);
+        manager.setReadCount(2000);
+        manager.setWriteCount(2000);
+        worker(jobExecution, "csvImportWorkerStep:partition0", 1000, 900, 100);
+        worker(jobExecution, "csvImportWorkerStep:partition1", 1000, 1000, 0);
+        jobExecution.getExecutionContext().putLong(InputSizeEstimationListener.ESTIMATED_TOTAL_ITEMS_KEY, 4000);
+        when(jobExplorer.getJobExecution(1L)).thenReturn(jobExecution);
+
+        JobProgress progress = batchJobService.getProgress(1L).orElseThrow();
+
+        assertThat(progress.getReadCount()).isEqualTo(2000);
+        assertThat(progress.getWriteCount()).isEqualTo(1900);
+        assertThat(progress.getFilterCount()).isEqualTo(100);
+        assertThat(progress.getRowsPerSecond()).isBetween(150.0, 201.0);
+        assertThat(progress.getEtaSeconds()).isBetween(9L, 14L);
+    }
+
+    @Test
+    void reportsNoEtaOnceFinished() {
+        JobExecution jobExecution = runningExecution(LocalDateTime.now().minusSeconds(10));
+        worker(jobExecution, "csvImportStep", 1000, 1000, 0);
+        jobExecution.setStatus(BatchStatus.COMPLETED);
+        jobExecution.setEndTime(LocalDateTime.now());
+        jobExecution.getExecutionContext().putLong(InputSizeEstimationListener.ESTIMATED_TOTAL_ITEMS_KEY, 1000);
+        when(jobExplorer.getJobExecution(1L)).thenReturn(jobExecution);
+
+        JobProgress progress = batchJobService.getProgress(1L).orElseThrow();
+
+        assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+        assertThat(progress.getEtaSeconds()).isNull();
+    }
+
+    @Test
+    void sumsUpsertCountsOnlyWhenReported() {
+        JobExecution jobExecution = runningExecution(LocalDateTime.now().minusSeconds(10));
+        worker(jobExecution, "csvImportWorkerStep:partition0", 1000, 1000, 0);
+        worker(jobExecution, "csvImportWorkerStep:partition1", 1000, 1000, 0);
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            stepExecution.getExecutionContext().putLong(ProductUpsertWriter.INSERTED_KEY, 100);
+            stepExecution.getExecutionContext().putLong(ProductUpsertWriter.UPDATED_KEY, 10);
+            stepExecution.getExecutionContext().putLong(ProductUpsertWriter.UNCHANGED_KEY, 890);
+        }
+        when(jobExplorer.getJobExecution(1L)).thenReturn(jobExecution);
+
+        JobProgress progress = batchJobService.getProgress(1L).orElseThrow();
+
+        assertThat(progress.getInsertedCount()).isEqualTo(200);
+        assertThat(progress.getUpdatedCount()).isEqualTo(20);
+        assertThat(progress.getUnchangedCount()).isEqualTo(1780);
+
+        JobExecution withoutUpsert = runningExecution(LocalDateTime.now().minusSeconds(10));
+        worker(withoutUpsert, "csvImportStep", 1000, 1000, 0);
+        when(jobExplorer.getJobExecution(2L)).thenReturn(withoutUpsert);
+
+        assertThat(batchJobService.getProgress(2L).orElseThrow().getInsertedCount()).isNull();
+    }
+
+    @Test
+    void returnsEmptyForUnknownExecution() {
+        assertThat(batchJobService.getProgress(99L)).isEmpty();
+    }
+
+    @Test
+    void restartOfUnknownExecutionFails() {
+        assertThatThrownBy(() -> batchJobService.restart(99L)).isInstanceOf(NoSuchJobExecutionException.class);
+    }
+
+    private JobExecution runningExecution(LocalDateTime startTime) {
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "csvImportJob"), 1L, new JobParameters());
+        jobExecution.setStatus(BatchStatus.STARTED);
+        jobExecution.setStartTime(startTime);
+        return jobExecution;
+    }
+
+    private void worker(JobExecution jobExecution, String name, long read, long write, long filter) {
+        StepExecution stepExecution = jobExecution.createStepExecution(name);
+        stepExecution.setReadCount(read);
+        stepExecution.setWriteCount(write);
+        stepExecution.setFilterCount(filter);
+    }
+}
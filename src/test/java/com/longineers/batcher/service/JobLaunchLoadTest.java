@@ -0,0 +1,154 @@
+package com.longineers.batcher.service;
+
+import com.longineers.batcher.BatcherApplication;
+import com.longineers.batcher.MigratedDatabaseTest;
+import com.longineers.batcher.reader.ProductFieldSetMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Launches hundreds of small imports at once through {@link BatchJobService}, first with the platform
+ * thread pools and then with {@code spring.threads.virtual.enabled}, and compares jobs per second, the
+ * peak number of platform threads and the peak heap. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class JobLaunchLoadTest extends MigratedDatabaseTest {
+
+    private static final int JOBS = 300;
+    private static final int ROWS_PER_JOB = 20;
+    private static final int PLATFORM_LAUNCHER_THREADS = 32;
+    private static final long TIMEOUT_MILLIS = 300_000;
+
+    @TempDir
+    static Path feeds;
+
+    @BeforeAll
+    static void writeFeeds() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        for (int job = 0; job < JOBS; job++) {
+            StringBuilder csv = new StringBuilder(String.join(",", ProductFieldSetMapper.NAMES)).append('\n');
+            for (int row = 0; row < ROWS_PER_JOB; row++) {
+                csv.append(String.join(",",
+                        "0", UUID.randomUUID().toString(), "Supplier " + job + " product " + row, "TechCorp",
+                        "Electronics", "Electronics > Laptop", "A laptop", "1299.99", "USD", "10", "1169.99", "4.5",
+                        "42", "10", "true", "TEC-" + (100000 + row), "1234567890123", "2.5", "\"electronics,laptop\"",
+                        "https://picsum.photos/400/400?random=" + row, "https://picsum.photos/200/200?random=" + row,
+                        now.toString(), now.toString(), "active", "false", "35.0", "24.0", "2.0", "true", "0", "3"))
+                        .append('\n');
+            }
+            Files.writeString(feed(job), csv);
+        }
+    }
+
+    @Test
+    void virtualThreadsRunManySmallJobsConcurrently() throws Exception {
+        Result platform = run("platform threads", Map.of(
+                "spring.threads.virtual.enabled", false,
+                "batch.launcher.threads", PLATFORM_LAUNCHER_THREADS));
+        Result virtual = run("virtual threads", Map.of(
+                "spring.threads.virtual.enabled", true,
+                "batch.launcher.threads", JOBS));
+
+        System.out.println(platform);
+        System.out.println(virtual);
+
+        assertThat(platform.completedJobs()).isEqualTo(JOBS);
+        assertThat(virtual.completedJobs()).isEqualTo(JOBS);
+    }
+
+    private Result run(String label, Map<String, Object> settings) throws Exception {
+        Map<String, Object> properties = new HashMap<>(settings);
+        properties.put("spring.datasource.url", postgres.getJdbcUrl());
+        properties.put("spring.datasource.username", postgres.getUsername());
+        properties.put("spring.datasource.password", postgres.getPassword());
+        properties.put("spring.datasource.hikari.maximum-pool-size", 20);
+        properties.put("batch.launcher.queue-capacity", JOBS);
+        properties.put("batch.chunk-size", ROWS_PER_JOB);
+        properties.put("jwt.secret", "load-test-secret-load-test-secret-load-test-secret");
+        properties.put("server.port", 0);
+        properties.put("batch.input-root", feeds.toString());
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BatcherApplication.class)
+                .properties(properties)
+                .run()) {
+            BatchJobService batchJobService = context.getBean(BatchJobService.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.execute("TRUNCATE products, product_keys");
+
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            threads.resetPeakThreadCount();
+            AtomicLong peakHeap = new AtomicLong();
+            Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+
+            long start = System.nanoTime();
+            long firstExecutionId = Long.MAX_VALUE;
+            for (int job = 0; job < JOBS; job++) {
+                long executionId = batchJobService.launch(new JobParametersBuilder()
+                        .addLong("time", System.nanoTime())
+                        .addString("input", feed(job).toString())
+                        .toJobParameters()).getId();
+                firstExecutionId = Math.min(firstExecutionId, executionId);
+            }
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (count(jdbcTemplate, firstExecutionId, "end_time IS NULL") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            sampler.interrupt();
+
+            return new Result(label,
+                    (int) count(jdbcTemplate, firstExecutionId, "status = 'COMPLETED'"),
+                    JOBS / seconds,
+                    threads.getPeakThreadCount(),
+                    peakHeap.get() / (1024.0 * 1024.0));
+        }
+    }
+
+    private static long count(JdbcTemplate jdbcTemplate, long firstExecutionId, String condition) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM batch_job_execution WHERE job_execution_id >= ? AND " + condition,
+                Long.class, firstExecutionId);
+    }
+
+    private static Path feed(int job) {
+        return feeds.resolve("supplier-" + job + ".csv");
+    }
+
+    private record Result(String label, int completedJobs, double jobsPerSecond, int peakPlatformThreads, double peakHeapMb) {
+        @Override
+        public String toString() {
+            return String.format("%-16s %4d jobs %8.1f jobs/sec %5d peak platform threads %8.1f MiB peak heap",
+                    label, completedJobs, jobsPerSecond, peakPlatformThreads, peakHeapMb);
+        }
+    }
+}
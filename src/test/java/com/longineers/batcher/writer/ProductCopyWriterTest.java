@@ -0,0 +1,171 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes the same products through {@code JpaItemWriter} and both COPY formats against the
+ * Flyway-migrated schema and compares the stored rows column by column.
+ */
+class ProductCopyWriterTest extends MigratedDatabaseTest {
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private static JpaTransactionManager transactionManager;
+
+    @BeforeAll
+    static void setUpEntityManager() {
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.longineers.batcher.model");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy"));
+        entityManagerFactoryBean.afterPropertiesSet();
+
+        transactionManager = new JpaTransactionManager(entityManagerFactoryBean.getObject());
+    }
+
+    @AfterAll
+    static void tearDownEntityManager() {
+        entityManagerFactoryBean.destroy();
+    }
+
+    @BeforeEach
+    void truncate() {
+        jdbcTemplate.execute("TRUNCATE products, product_keys");
+    }
+
+    @Test
+    void copyTextStoresSameRowsAsJpa() {
+        assertParity(new ProductCopyWriter(dataSource, ProductCopyWriter.Format.TEXT));
+    }
+
+    @Test
+    void copyBinaryStoresSameRowsAsJpa() {
+        assertParity(new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY));
+    }
+
+    @Test
+    void copyIsRolledBackWithTheChunkTransaction() {
+        ProductCopyWriter writer = new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            writeChunk(writer, products());
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class)).isZero();
+    }
+
+    private void assertParity(ItemWriter<Product> copyWriter) {
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryBean.getObject();
+        ItemWriter<Product> jpaWriter = new JpaItemWriterBuilder<Product>()
+                .entityManagerFactory(entityManagerFactory)
+                .usePersist(true)
+                .build();
+
+        write(jpaWriter, products());
+        List<Map<String, Object>> viaJpa = snapshot();
+
+        jdbcTemplate.execute("TRUNCATE products, product_keys");
+        write(copyWriter, products());
+        List<Map<String, Object>> viaCopy = snapshot();
+
+        assertThat(viaJpa).hasSize(products().size());
+        assertThat(viaCopy).isEqualTo(viaJpa);
+    }
+
+    private void write(ItemWriter<Product> writer, List<Product> products) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> writeChunk(writer, products));
+    }
+
+    private void writeChunk(ItemWriter<Product> writer, List<Product> products) {
+        try {
+            writer.write(new Chunk<>(products));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        return jdbcTemplate.queryForList(
+                "SELECT " + String.join(", ", ProductCopyWriter.COLUMNS) + " FROM products ORDER BY uuid");
+    }
+
+    private List<Product> products() {
+        List<Product> products = new ArrayList<>();
+        products.add(Product.builder()
+                .uuid(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"))
+                .name("Test Product")
+                .brand("Test Brand")
+                .category("Electronics")
+                .subcategory("Electronics > Smartphone")
+                .description("Test description")
+                .price(999.99)
+                .currency("USD")
+                .discountPercent(10.0)
+                .finalPrice(899.99)
+                .rating(4.5)
+                .reviewCount(100)
+                .stockQuantity(50)
+                .inStock(true)
+                .sku("TEC-123456")
+                .barcode("1234567890123")
+                .weightKg(0.5)
+                .tags("electronics,smartphone,techcorp")
+                .imageUrl("https://example.com/image.jpg")
+                .thumbnailUrl("https://example.com/thumbnail.jpg")
+                .createdAt(LocalDateTime.of(2023, 1, 1, 10, 0))
+                .updatedAt(LocalDateTime.of(2023, 1, 2, 11, 30, 15, 123_456_000))
+                .status("active")
+                .featured(false)
+                .lengthCm(15.0)
+                .widthCm(7.5)
+                .heightCm(0.8)
+                .freeShipping(true)
+                .shippingCost(0.0)
+                .estimatedDays(3)
+                .customiseLink("https://example.com/image.jpg?source=batcher")
+                .build());
+        products.add(Product.builder()
+                .uuid(UUID.fromString("00000000-0000-0000-0000-000000000001"))
+                .name("Tab\tNew\nLine \\ Back\rslash \"quoted\" Ünïcödé")
+                .category("Books")
+                .description(null)
+                .price(12345678.25)
+                .currency("EUR")
+                .discountPercent(0.0)
+                .finalPrice(0.01)
+                .rating(1.0)
+                .reviewCount(0)
+                .stockQuantity(0)
+                .inStock(false)
+                .weightKg(10000.0)
+                .createdAt(LocalDateTime.of(1999, 12, 31, 23, 59, 59))
+                .featured(true)
+                .lengthCm(0.004)
+                .shippingCost(-5.25)
+                .build());
+        return products;
+    }
+}
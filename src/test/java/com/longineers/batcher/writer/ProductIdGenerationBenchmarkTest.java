@@ -0,0 +1,158 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import com.longineers.batcher.model.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.batch.item.database.builder.JpaItemWriterBuilder;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares JDBC statements per chunk and rows/sec of the JPA writer with the old IDENTITY ids
+ * against the pooled sequence with insert batching. Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ProductIdGenerationBenchmarkTest extends MigratedDatabaseTest {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int CHUNKS = 20;
+
+    private static DriverManagerDataSource batchingDataSource;
+
+    @BeforeAll
+    static void setUpBatchingDataSource() {
+        batchingDataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl() + "&reWriteBatchedInserts=true", postgres.getUsername(), postgres.getPassword());
+    }
+
+    @Test
+    void pooledSequenceBatchesInsertsWithinEachChunk() {
+        Result before = run("identity", Map.of(), "benchmark/identity-product-orm.xml");
+        Result after = run("pooled sequence", Map.of(
+                "hibernate.jdbc.batch_size", CHUNK_SIZE,
+                "hibernate.order_inserts", true), null);
+
+        System.out.println(before);
+        System.out.println(after);
+
+        assertThat(after.statementsPerChunk()).isLessThan(before.statementsPerChunk() / 10);
+    }
+
+    private Result run(String label, Map<String, Object> settings, String mappingResource) {
+        jdbcTemplate.execute("TRUNCATE products");
+
+        Map<String, Object> properties = new HashMap<>(settings);
+        properties.put("hibernate.physical_naming_strategy", "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy");
+        properties.put("hibernate.generate_statistics", true);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(batchingDataSource);
+        factoryBean.setPackagesToScan("com.longineers.batcher.model");
+        if (mappingResource != null) {
+            factoryBean.setMappingResources(mappingResource);
+        }
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(properties);
+        factoryBean.afterPropertiesSet();
+        try {
+            EntityManagerFactory entityManagerFactory = factoryBean.getObject();
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            TransactionTemplate transactionTemplate = new TransactionTemplate(new JpaTransactionManager(entityManagerFactory));
+            JpaItemWriter<Product> writer = new JpaItemWriterBuilder<Product>()
+                    .entityManagerFactory(entityManagerFactory)
+                    .usePersist(true)
+                    .build();
+
+            writeChunk(transactionTemplate, writer); // warm-up
+            statistics.clear();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < CHUNKS; i++) {
+                writeChunk(transactionTemplate, writer);
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            return new Result(label,
+                    statistics.getPrepareStatementCount() / (double) CHUNKS,
+                    CHUNKS * CHUNK_SIZE / seconds);
+        } finally {
+            factoryBean.destroy();
+        }
+    }
+
+    private void writeChunk(TransactionTemplate transactionTemplate, JpaItemWriter<Product> writer) {
+        List<Product> products = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            products.add(product(i));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(new Chunk<>(products));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private Product product(int i) {
+        LocalDateTime now = LocalDateTime.now();
+        return Product.builder()
+                .uuid(UUID.randomUUID())
+                .name("TechCorp Premium Laptop " + i)
+                .brand("TechCorp")
+                .category("Electronics")
+                .subcategory("Electronics > Laptop")
+                .description("Premium laptop designed for performance and durability.")
+                .price(1299.99)
+                .currency("USD")
+                .discountPercent(10.0)
+                .finalPrice(1169.99)
+                .rating(4.2)
+                .reviewCount(i % 1000)
+                .stockQuantity(i % 500)
+                .inStock(i % 500 > 0)
+                .sku("TEC-" + (100000 + i))
+                .barcode(String.valueOf(1_000_000_000_000L + i))
+                .weightKg(2.4)
+                .tags("electronics,laptop,techcorp")
+                .imageUrl("https://picsum.photos/400/400?random=" + i)
+                .thumbnailUrl("https://picsum.photos/200/200?random=" + i)
+                .createdAt(now)
+                .updatedAt(now)
+                .status("active")
+                .featured(false)
+                .lengthCm(35.0)
+                .widthCm(24.0)
+                .heightCm(2.0)
+                .freeShipping(true)
+                .shippingCost(0.0)
+                .estimatedDays(3)
+                .build();
+    }
+
+    private record Result(String label, double statementsPerChunk, double rowsPerSecond) {
+        @Override
+        public String toString() {
+            return String.format("%-16s %8.1f statements/chunk %10.0f rows/sec", label, statementsPerChunk, rowsPerSecond);
+        }
+    }
+}
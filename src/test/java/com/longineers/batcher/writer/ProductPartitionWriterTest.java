@@ -0,0 +1,140 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Writes products of several categories through the partition writer against the Flyway-migrated,
+ * partitioned schema and checks the partition each row ended up in.
+ */
+class ProductPartitionWriterTest extends MigratedDatabaseTest {
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE products, product_keys");
+    }
+
+    @Test
+    void writesEachCategoryStraightToItsPartition() {
+        ProductPartitionWriter writer = new ProductPartitionWriter(dataSource, ProductCopyWriter.Format.BINARY, "products");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(new Chunk<>(List.of(
+                        product("Laptop", "Electronics"),
+                        product("Novel", "Books"),
+                        product("Chair", "Home & Garden"),
+                        product("Phone", "Electronics"),
+                        product("Gnome", "Garden Gnomes"))));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT name, tableoid::regclass::text AS partition FROM products ORDER BY name");
+        assertThat(rows).extracting(row -> row.get("name") + " " + row.get("partition")).containsExactly(
+                "Chair products_home_garden",
+                "Gnome products_default",
+                "Laptop products_electronics",
+                "Novel products_books",
+                "Phone products_electronics");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM products", Integer.class)).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product_keys", Integer.class)).isEqualTo(5);
+    }
+
+    /** The unique index of {@code products} includes the category; {@code product_keys} keeps the uuid unique across them. */
+    @Test
+    void plainInsertsRejectAUuidLoadedUnderTwoCategories() {
+        Product book = product("Songbook", "Books");
+        Product record = product("Songbook", "Music");
+        record.setUuid(book.getUuid());
+
+        write(new ProductPartitionWriter(dataSource, ProductCopyWriter.Format.BINARY, "products"), book);
+
+        assertThatThrownBy(() -> write(new ProductCopyWriter(dataSource, ProductCopyWriter.Format.BINARY), record))
+                .hasStackTraceContaining("product_keys_pkey");
+        assertThatThrownBy(() -> write(new ProductKeyWriter(dataSource), record))
+                .hasStackTraceContaining("product_keys_pkey");
+        assertThatThrownBy(() -> write(new ProductPartitionWriter(dataSource, ProductCopyWriter.Format.BINARY,
+                "products"), product("Other", "Toys"), record))
+                .hasStackTraceContaining("product_keys_pkey");
+        assertThat(jdbcTemplate.queryForList("SELECT tableoid::regclass::text FROM products WHERE uuid = ?",
+                String.class, book.getUuid())).containsExactly("products_books");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void upsertKeepsOneRowOfAUuidLoadedUnderTwoCategories() {
+        Product book = product("Songbook", "Books");
+        Product record = product("Songbook", "Music");
+        record.setUuid(book.getUuid());
+
+        write(new ProductPartitionWriter(dataSource, ProductCopyWriter.Format.BINARY, "products"), book);
+        write(new ProductUpsertWriter(dataSource), record);
+
+        assertThat(jdbcTemplate.queryForList("SELECT tableoid::regclass::text FROM products WHERE uuid = ?",
+                String.class, book.getUuid())).containsExactly("products_music");
+        assertThat(jdbcTemplate.queryForList("SELECT category FROM product_keys WHERE uuid = ?",
+                String.class, book.getUuid())).containsExactly("Music");
+    }
+
+    @Test
+    void readsTheCategoriesOfEachPartitionFromTheCatalog() {
+        jdbcTemplate.execute("CREATE TABLE shared_partitions (category TEXT) PARTITION BY LIST (category)");
+        jdbcTemplate.execute("CREATE TABLE shared_toys PARTITION OF shared_partitions FOR VALUES IN ('Toys', 'Kids'' Games', NULL)");
+        jdbcTemplate.execute("CREATE TABLE shared_music PARTITION OF shared_partitions FOR VALUES IN ('Music')");
+
+        ProductPartitions partitions = ProductPartitions.load(jdbcTemplate, "shared_partitions");
+
+        assertThat(partitions.partitionFor("Kids' Games")).isEqualTo("shared_toys");
+        assertThat(partitions.partitionFor(null)).isEqualTo("shared_toys");
+        assertThat(partitions.partitionFor("Books")).isEqualTo("shared_partitions");
+        assertThat(partitions.exclusivePartition("Music")).isEqualTo("shared_music");
+        assertThat(partitions.exclusivePartition("Toys")).isNull();
+        jdbcTemplate.execute("DROP TABLE shared_partitions");
+    }
+
+    @Test
+    void treatsATableThatIsNotPartitionedAsOnePartition() {
+        jdbcTemplate.execute("CREATE TABLE unpartitioned (category TEXT)");
+
+        ProductPartitions partitions = ProductPartitions.load(jdbcTemplate, "unpartitioned");
+
+        assertThat(partitions.partitionFor("Books")).isEqualTo("unpartitioned");
+        assertThat(partitions.exclusivePartition("Books")).isNull();
+        jdbcTemplate.execute("DROP TABLE unpartitioned");
+    }
+
+    private static void write(ItemWriter<Product> writer, Product... products) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                writer.write(new Chunk<>(List.of(products)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static Product product(String name, String category) {
+        return Product.builder()
+                .uuid(UUID.randomUUID())
+                .name(name)
+                .category(category)
+                .price(19.99)
+                .currency("USD")
+                .finalPrice(19.99)
+                .build();
+    }
+}
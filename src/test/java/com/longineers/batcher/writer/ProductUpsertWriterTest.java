@@ -0,0 +1,199 @@
+package com.longineers.batcher.writer;
+
+import com.longineers.batcher.MigratedDatabaseTest;
+import com.longineers.batcher.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the upsert writer against the Flyway-migrated schema and checks the stored rows and the
+ * inserted, updated and unchanged counts left in the step execution context.
+ */
+class ProductUpsertWriterTest extends MigratedDatabaseTest {
+
+    private ProductUpsertWriter writer;
+    private StepExecution stepExecution;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE products, product_keys");
+        writer = new ProductUpsertWriter(dataSource);
+        newStep();
+    }
+
+    @AfterEach
+    void releaseStep() {
+        StepSynchronizationManager.release();
+    }
+
+    @Test
+    void firstImportInsertsEveryRow() {
+        write(products());
+
+        assertCounts(2, 0, 0);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE content_hash IS NOT NULL", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void reimportOfUnchangedRowsWritesNothing() {
+        write(products());
+        List<Map<String, Object>> before = snapshot();
+
+        newStep();
+        write(products());
+
+        assertCounts(0, 0, 2);
+        assertThat(snapshot()).isEqualTo(before);
+    }
+
+    @Test
+    void changedRowsAreUpdatedInPlaceAndNewRowsInserted() {
+        write(products());
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT id FROM products WHERE uuid = '550e8400-e29b-41d4-a716-446655440000'", Long.class);
+
+        newStep();
+        List<Product> products = products();
+        products.get(0).setPrice(899.99);
+        products.add(product(UUID.fromString("00000000-0000-0000-0000-000000000002"), "New Product"));
+        write(products);
+
+        assertCounts(1, 1, 1);
+        assertThat(jdbcTemplate.queryForMap(
+                "SELECT id, price FROM products WHERE uuid = '550e8400-e29b-41d4-a716-446655440000'"))
+                .containsEntry("id", id)
+                .containsEntry("price", new BigDecimal("899.99"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void productWhoseCategoryChangedMovesToItsNewPartition() {
+        write(products());
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT id FROM products WHERE uuid = '550e8400-e29b-41d4-a716-446655440000'", Long.class);
+
+        newStep();
+        List<Product> products = products();
+        products.get(0).setCategory("Books");
+        write(products);
+
+        assertCounts(0, 1, 1);
+        assertThat(jdbcTemplate.queryForMap(
+                "SELECT id, tableoid::regclass::text AS partition FROM products WHERE uuid = '550e8400-e29b-41d4-a716-446655440000'"))
+                .containsEntry("id", id)
+                .containsEntry("partition", "products_books");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void reimportTakesNoIdsForStoredRows() {
+        write(products());
+        Long sequence = jdbcTemplate.queryForObject("SELECT last_value FROM products_id_pooled_seq", Long.class);
+
+        writer = new ProductUpsertWriter(dataSource);
+        newStep();
+        List<Product> products = products();
+        products.get(0).setPrice(899.99);
+        write(products);
+
+        assertCounts(0, 1, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT last_value FROM products_id_pooled_seq", Long.class))
+                .isEqualTo(sequence);
+    }
+
+    @Test
+    void lastOccurrenceWinsWithinAChunk() {
+        UUID uuid = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        write(List.of(product(uuid, "First"), product(uuid, "Second")));
+
+        assertCounts(1, 0, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT name FROM products", String.class)).isEqualTo("Second");
+    }
+
+    @Test
+    void countsAreOnlyRecordedWhenTheChunkCommits() {
+        transactionTemplate.executeWithoutResult(status -> {
+            writeChunk(products());
+            status.setRollbackOnly();
+        });
+
+        assertThat(stepExecution.getExecutionContext().containsKey(ProductUpsertWriter.INSERTED_KEY)).isFalse();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Integer.class)).isZero();
+    }
+
+    private void newStep() {
+        StepSynchronizationManager.release();
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "csvImportJob"), 1L, new JobParameters());
+        stepExecution = jobExecution.createStepExecution("csvImportStep");
+        StepSynchronizationManager.register(stepExecution);
+    }
+
+    private void write(List<Product> products) {
+        transactionTemplate.executeWithoutResult(status -> writeChunk(products));
+    }
+
+    private void writeChunk(List<Product> products) {
+        try {
+            writer.write(new Chunk<>(products));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void assertCounts(long inserted, long updated, long unchanged) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        assertThat(context.getLong(ProductUpsertWriter.INSERTED_KEY)).isEqualTo(inserted);
+        assertThat(context.getLong(ProductUpsertWriter.UPDATED_KEY)).isEqualTo(updated);
+        assertThat(context.getLong(ProductUpsertWriter.UNCHANGED_KEY)).isEqualTo(unchanged);
+    }
+
+    private List<Map<String, Object>> snapshot() {
+        return jdbcTemplate.queryForList("SELECT * FROM products ORDER BY uuid");
+    }
+
+    private List<Product> products() {
+        List<Product> products = new ArrayList<>();
+        products.add(product(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"), "Test Product"));
+        products.add(product(UUID.fromString("00000000-0000-0000-0000-000000000001"), "Other Product"));
+        return products;
+    }
+
+    private Product product(UUID uuid, String name) {
+        return Product.builder()
+                .uuid(uuid)
+                .name(name)
+                .brand("Test Brand")
+                .category("Electronics")
+                .price(999.99)
+                .currency("USD")
+                .discountPercent(10.0)
+                .finalPrice(899.99)
+                .rating(4.5)
+                .reviewCount(100)
+                .stockQuantity(50)
+                .inStock(true)
+                .createdAt(LocalDateTime.of(2023, 1, 1, 10, 0))
+                .updatedAt(LocalDateTime.of(2023, 1, 2, 11, 30, 15, 123_456_000))
+                .status("active")
+                .featured(false)
+                .build();
+    }
+}
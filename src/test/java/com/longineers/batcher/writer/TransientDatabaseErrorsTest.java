@@ -0,0 +1,30 @@
+package com.longineers.batcher.writer;
+
+import jakarta.persistence.PessimisticLockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransientDatabaseErrorsTest {
+
+    @Test
+    void recognisesLockConflictsDeadlocksAndSerializationFailures() {
+        assertThat(TransientDatabaseErrors.isTransient(new CannotAcquireLockException("locked"))).isTrue();
+        assertThat(TransientDatabaseErrors.isTransient(new PessimisticLockException("locked"))).isTrue();
+        assertThat(TransientDatabaseErrors.isTransient(new SQLException("deadlock detected", "40P01"))).isTrue();
+        assertThat(TransientDatabaseErrors.isTransient(
+                new IOException("COPY failed", new SQLException("could not serialize access", "40001")))).isTrue();
+    }
+
+    @Test
+    void doesNotRetryErrorsThatWouldFailAgain() {
+        assertThat(TransientDatabaseErrors.isTransient(new DataIntegrityViolationException("duplicate key"))).isFalse();
+        assertThat(TransientDatabaseErrors.isTransient(new SQLException("value too long", "22001"))).isFalse();
+        assertThat(TransientDatabaseErrors.isTransient(new IllegalStateException())).isFalse();
+    }
+}